@@ -0,0 +1,18 @@
+package com.rnocr;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * JVM stand-in for the Android {@code BitmapDecoder}, carrying only the
+ * {@link Source} type that {@link ResultCache} keys images by.
+ */
+final class BitmapDecoder {
+
+    interface Source {
+        InputStream open() throws IOException;
+    }
+
+    private BitmapDecoder() {
+    }
+}
@@ -0,0 +1,310 @@
+package com.rnocr;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Replays the checked-in corpus through the Android-free stages of a
+ * recognition call and reports each stage as JSON: ops/sec, p50/p99/max
+ * latency and bytes allocated per op.
+ *
+ * <p>Every image in {@code corpus/} has a recorded result next to it
+ * ({@code <name>.ocr}, see {@link CorpusGenerator}), so the stages after
+ * inference run on realistic layouts without a recognizer, device or network:
+ *
+ * <ul>
+ *   <li>{@code decode}: image bytes to ARGB pixels. On the JVM this is
+ *   ImageIO standing in for BitmapFactory, so compare it only between runs
+ *   on the same machine.</li>
+ *   <li>{@code grayscale}, {@code preprocess}: {@link ImagePreprocessor},
+ *   row by row as {@code BitmapDecoder.preprocess} drives it.</li>
+ *   <li>{@code fingerprint}: {@link FrameFingerprint} for video frames.</li>
+ *   <li>{@code marshal.layout}, {@code marshal.codec}: {@link FlatLayout}
+ *   for the bridge and the {@link OCRResultCodec} round trip for the disk
+ *   cache.</li>
+ *   <li>{@code cache.*}: {@link ResultCache} key digest, memory hit, disk
+ *   hit and store.</li>
+ * </ul>
+ *
+ * <p>Arguments: {@code --corpus <dir>}, {@code --out <file>},
+ * {@code --filter <substring>}, {@code --iterations <n>},
+ * {@code --warmup <n>}.
+ */
+public final class CorpusBenchmark {
+
+    private static final int DEFAULT_WARMUP = 10;
+    private static final int DEFAULT_ITERATIONS = 50;
+    private static final String[] IMAGE_SUFFIXES = {".png", ".jpg", ".jpeg"};
+
+    /** Keeps results reachable so the JIT cannot drop the measured work. */
+    static volatile Object sink;
+
+    private interface Op {
+        void run(int iteration) throws Exception;
+    }
+
+    private static final class Measurement {
+        final String benchmark;
+        final String input;
+        final int ops;
+        final double opsPerSec;
+        final double p50Ms;
+        final double p99Ms;
+        final double maxMs;
+        final long allocatedBytesPerOp;
+
+        Measurement(String benchmark, String input, long[] sortedNanos, long totalNanos, long allocatedBytesPerOp) {
+            this.benchmark = benchmark;
+            this.input = input;
+            this.ops = sortedNanos.length;
+            this.opsPerSec = ops / (totalNanos / 1e9);
+            this.p50Ms = OCRStats.percentile(sortedNanos, 50) / 1e6;
+            this.p99Ms = OCRStats.percentile(sortedNanos, 99) / 1e6;
+            this.maxMs = sortedNanos[sortedNanos.length - 1] / 1e6;
+            this.allocatedBytesPerOp = allocatedBytesPerOp;
+        }
+    }
+
+    private final int warmup;
+    private final int iterations;
+    private final String filter;
+    private final List<Measurement> measurements = new ArrayList<>();
+
+    private CorpusBenchmark(int warmup, int iterations, String filter) {
+        this.warmup = warmup;
+        this.iterations = iterations;
+        this.filter = filter;
+    }
+
+    public static void main(String[] args) throws Exception {
+        File corpus = new File("corpus");
+        File out = null;
+        String filter = null;
+        int warmup = DEFAULT_WARMUP;
+        int iterations = DEFAULT_ITERATIONS;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--corpus":
+                    corpus = new File(args[i + 1]);
+                    break;
+                case "--out":
+                    out = new File(args[i + 1]);
+                    break;
+                case "--filter":
+                    filter = args[i + 1];
+                    break;
+                case "--iterations":
+                    iterations = Math.max(1, Integer.parseInt(args[i + 1]));
+                    break;
+                case "--warmup":
+                    warmup = Math.max(0, Integer.parseInt(args[i + 1]));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        File[] images = corpus.listFiles((dir, name) -> isImage(name));
+        if (images == null || images.length == 0) {
+            System.err.println("No corpus images in " + corpus.getAbsolutePath());
+            System.exit(1);
+        }
+        Arrays.sort(images);
+
+        CorpusBenchmark benchmark = new CorpusBenchmark(warmup, iterations, filter);
+        File cacheDirectory = Files.createTempDirectory("rnocr-benchmark").toFile();
+        try {
+            for (File image : images) {
+                benchmark.runImage(image, new File(cacheDirectory, image.getName()));
+            }
+        } finally {
+            deleteRecursively(cacheDirectory);
+        }
+
+        String json = benchmark.toJson();
+        System.out.println(json);
+        if (out != null) {
+            File parent = out.getAbsoluteFile().getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Cannot create " + parent);
+            }
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(out), StandardCharsets.UTF_8)) {
+                writer.write(json);
+                writer.write('\n');
+            }
+        }
+    }
+
+    private void runImage(File file, File cacheDirectory) throws Exception {
+        String name = file.getName();
+        byte[] encoded = Files.readAllBytes(file.toPath());
+        File recordedFile = new File(file.getParentFile(), name.substring(0, name.lastIndexOf('.')) + ".ocr");
+        OCRResult recorded = OCRResultCodec.decode(Files.readAllBytes(recordedFile.toPath()));
+        if (recorded == null) {
+            throw new IOException("Recorded result has an incompatible format: " + recordedFile
+                + "; regenerate the corpus");
+        }
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(encoded));
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[][] rows = new int[height][];
+        for (int y = 0; y < height; y++) {
+            rows[y] = image.getRGB(0, y, width, 1, null, 0, width);
+        }
+
+        measure("decode", name, i -> sink = ImageIO.read(new ByteArrayInputStream(encoded)));
+
+        ImagePreprocessor preprocessor = new ImagePreprocessor();
+        measure("grayscale", name, i -> {
+            preprocessor.reset(width, height);
+            for (int y = 0; y < height; y++) {
+                preprocessor.readRow(y, rows[y]);
+            }
+        });
+
+        ImagePreprocessor.Options all = new ImagePreprocessor.Options(true, true, true, true);
+        int[] row = new int[width];
+        measure("preprocess", name, i -> {
+            ImagePreprocessor.Report report = new ImagePreprocessor.Report();
+            preprocessor.reset(width, height);
+            for (int y = 0; y < height; y++) {
+                preprocessor.readRow(y, rows[y]);
+            }
+            preprocessor.process(all, report);
+            for (int y = 0; y < height; y++) {
+                preprocessor.writeRow(y, row);
+            }
+            sink = report;
+        });
+
+        FrameFingerprint fingerprint = new FrameFingerprint();
+        measure("fingerprint", name, i -> {
+            fingerprint.reset(width, height);
+            for (int y = 0; y < height; y++) {
+                fingerprint.addRow(y, rows[y]);
+            }
+            sink = fingerprint.finish();
+        });
+
+        measure("marshal.layout", name, i -> sink = FlatLayout.encode(recorded, OCRResult.LEVEL_ELEMENT));
+        measure("marshal.codec", name, i -> sink = OCRResultCodec.decode(OCRResultCodec.encode(recorded)));
+
+        ResultCache cache = new ResultCache(cacheDirectory, 2L * 1024 * 1024, 20L * 1024 * 1024);
+        BitmapDecoder.Source source = () -> new ByteArrayInputStream(encoded);
+        String key = cache.keyFor(source, null, "benchmark");
+        cache.put(key, recorded);
+        measure("cache.key", name, i -> sink = cache.keyFor(source, null, "benchmark"));
+        measure("cache.memoryHit", name, i -> sink = cache.get(key));
+        measure("cache.diskHit", name, i -> {
+            cache.trimMemory(0);
+            sink = cache.get(key);
+        });
+        measure("cache.put", name, i -> cache.put(key + "-" + i, recorded));
+    }
+
+    private void measure(String benchmark, String input, Op op) throws Exception {
+        if (filter != null && !(benchmark + "/" + input).contains(filter)) {
+            return;
+        }
+        int iteration = 0;
+        for (int i = 0; i < warmup; i++) {
+            op.run(iteration++);
+        }
+
+        long[] samples = new long[iterations];
+        long allocatedBefore = allocatedBytes();
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            op.run(iteration++);
+            samples[i] = System.nanoTime() - start;
+        }
+        long total = System.nanoTime() - started;
+        long allocatedAfter = allocatedBytes();
+
+        Arrays.sort(samples);
+        long allocatedPerOp = allocatedBefore >= 0 && allocatedAfter >= 0
+            ? (allocatedAfter - allocatedBefore) / iterations
+            : -1;
+        Measurement measurement = new Measurement(benchmark, input, samples, total, allocatedPerOp);
+        measurements.add(measurement);
+        System.err.printf(Locale.ROOT, "%-16s %-15s %10.1f ops/s  p50 %8.3f ms  p99 %8.3f ms  %10d B/op%n",
+            benchmark, input, measurement.opsPerSec, measurement.p50Ms, measurement.p99Ms, allocatedPerOp);
+    }
+
+    /** Bytes allocated by this thread so far, or -1 where the JVM cannot tell. */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"schemaVersion\": 1,\n");
+        json.append("  \"jvm\": \"").append(escape(System.getProperty("java.vm.name") + " "
+            + System.getProperty("java.version"))).append("\",\n");
+        json.append("  \"arch\": \"").append(escape(System.getProperty("os.arch"))).append("\",\n");
+        json.append("  \"processors\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        json.append("  \"warmup\": ").append(warmup).append(",\n");
+        json.append("  \"iterations\": ").append(iterations).append(",\n");
+        json.append("  \"results\": [");
+        for (int i = 0; i < measurements.size(); i++) {
+            Measurement m = measurements.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append(String.format(Locale.ROOT,
+                "    {\"benchmark\": \"%s\", \"input\": \"%s\", \"ops\": %d, \"opsPerSec\": %.2f, "
+                    + "\"p50Ms\": %.4f, \"p99Ms\": %.4f, \"maxMs\": %.4f, \"allocatedBytesPerOp\": %d}",
+                escape(m.benchmark), escape(m.input), m.ops, m.opsPerSec, m.p50Ms, m.p99Ms, m.maxMs,
+                m.allocatedBytesPerOp));
+        }
+        json.append("\n  ]\n}");
+        return json.toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static boolean isImage(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (String suffix : IMAGE_SUFFIXES) {
+            if (lower.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
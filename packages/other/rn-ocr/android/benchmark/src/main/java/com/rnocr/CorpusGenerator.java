@@ -0,0 +1,370 @@
+package com.rnocr;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Renders the benchmark corpus: a receipt, a document page, a phone
+ * screenshot and a photographed sign. Next to each image it writes the layout
+ * the text was drawn with as an {@link OCRResult} in {@link OCRResultCodec}
+ * format ({@code <name>.ocr}), standing in for a recorded recognizer result.
+ *
+ * <p>The output is checked in under {@code corpus/}; rerun with
+ * {@code gradle -p android/benchmark generateCorpus} only to change it, since
+ * new images invalidate comparisons with earlier benchmark runs.
+ */
+public final class CorpusGenerator {
+
+    private static final String[] WORDS = {
+        "the", "invoice", "total", "amount", "payment", "due", "within", "days", "of", "receipt",
+        "shipping", "address", "order", "number", "customer", "account", "balance", "tax", "rate",
+        "service", "period", "contract", "terms", "and", "conditions", "apply", "signature", "date",
+        "reference", "quantity", "description", "unit", "price", "discount", "subtotal", "notes",
+    };
+
+    private CorpusGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        File directory = new File(args.length > 0 ? args[0] : "corpus");
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        write(directory, "receipt", "png", receipt());
+        write(directory, "document", "png", document());
+        write(directory, "screenshot", "png", screenshot());
+        write(directory, "photo", "jpg", photo());
+    }
+
+    /** Narrow thermal receipt, slightly rotated and shadowed towards one edge. */
+    private static Page receipt() {
+        Random random = new Random(1);
+        Page page = new Page(576, 1400, 0xF4F1EA, 2.0);
+        page.font(new Font(Font.MONOSPACED, Font.PLAIN, 22), 0x30302C);
+        int y = 70;
+        page.beginBlock();
+        y = page.line("CORNER MARKET", 190, y, 34);
+        y = page.line("118 HARBOR STREET", 160, y, 34);
+        y = page.line("TEL 555-0142", 200, y, 34);
+        page.endBlock();
+
+        y += 30;
+        page.beginBlock();
+        double total = 0;
+        for (int i = 0; i < 18; i++) {
+            double price = 0.5 + random.nextInt(2000) / 100.0;
+            total += price;
+            String item = (WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)])
+                .toUpperCase();
+            y = page.line(pad(item, 26) + String.format("%7.2f", price), 40, y, 34);
+        }
+        page.endBlock();
+
+        y += 30;
+        page.beginBlock();
+        y = page.line(pad("SUBTOTAL", 26) + String.format("%7.2f", total), 40, y, 34);
+        y = page.line(pad("TAX 8%", 26) + String.format("%7.2f", total * 0.08), 40, y, 34);
+        y = page.line(pad("TOTAL", 26) + String.format("%7.2f", total * 1.08), 40, y, 34);
+        page.endBlock();
+
+        y += 40;
+        page.beginBlock();
+        page.line("THANK YOU FOR SHOPPING", 130, y, 34);
+        page.endBlock();
+        page.shade(0.35f);
+        return page;
+    }
+
+    /** A4 page at 150 dpi: a heading and justified-looking paragraphs. */
+    private static Page document() {
+        Random random = new Random(2);
+        Page page = new Page(1240, 1754, 0xFFFFFF, 0);
+        page.font(new Font(Font.SERIF, Font.BOLD, 40), 0x111111);
+        int y = 160;
+        page.beginBlock();
+        y = page.line("Service Agreement", 120, y, 60);
+        page.endBlock();
+
+        page.font(new Font(Font.SERIF, Font.PLAIN, 24), 0x1A1A1A);
+        y += 30;
+        for (int paragraph = 0; paragraph < 6; paragraph++) {
+            page.beginBlock();
+            int lines = 5 + random.nextInt(4);
+            for (int i = 0; i < lines; i++) {
+                y = page.line(sentence(random, 1000, page.metrics()), 120, y, 36);
+            }
+            page.endBlock();
+            y += 28;
+        }
+        return page;
+    }
+
+    /** Phone screenshot of a chat: status bar, title and alternating bubbles. */
+    private static Page screenshot() {
+        Random random = new Random(3);
+        Page page = new Page(1080, 2340, 0xFAFAFA, 0);
+        page.fill(0, 0, 1080, 220, 0x1F6FEB);
+        page.font(new Font(Font.SANS_SERIF, Font.BOLD, 44), 0xFFFFFF);
+        page.beginBlock();
+        page.line("Project updates", 60, 150, 0);
+        page.endBlock();
+
+        page.font(new Font(Font.SANS_SERIF, Font.PLAIN, 36), 0x202124);
+        int y = 300;
+        for (int message = 0; message < 14 && y < 2200; message++) {
+            boolean mine = message % 2 == 1;
+            int lines = 1 + random.nextInt(3);
+            int left = mine ? 330 : 50;
+            page.fill(left, y - 10, 700, lines * 52 + 40, mine ? 0xD3E3FD : 0xECEFF1);
+            page.beginBlock();
+            int lineY = y + 42;
+            for (int i = 0; i < lines; i++) {
+                lineY = page.line(sentence(random, 640, page.metrics()), left + 30, lineY, 52);
+            }
+            page.endBlock();
+            y += lines * 52 + 80;
+        }
+        return page;
+    }
+
+    /** Photographed sign: large text over a noisy, unevenly lit background. */
+    private static Page photo() {
+        Random random = new Random(4);
+        Page page = new Page(1600, 1200, 0x6B7F5A, -4.0);
+        page.fill(300, 320, 1000, 520, 0x0B5D2A);
+        page.font(new Font(Font.SANS_SERIF, Font.BOLD, 96), 0xF5F5F5);
+        page.beginBlock();
+        int y = page.line("NORTH EXIT", 420, 480, 130);
+        page.endBlock();
+        page.font(new Font(Font.SANS_SERIF, Font.PLAIN, 56), 0xF5F5F5);
+        page.beginBlock();
+        y = page.line("Platform 4  Bus Station", 380, y + 20, 80);
+        page.line("Open 05:30 - 23:45", 460, y, 80);
+        page.endBlock();
+        page.shade(0.25f);
+        page.noise(random, 6);
+        return page;
+    }
+
+    private static String sentence(Random random, int maxWidth, FontMetrics metrics) {
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            String next = line.length() == 0 ? capitalize(word) : line + " " + word;
+            if (metrics.stringWidth(next) > maxWidth) {
+                return line.toString();
+            }
+            line.setLength(0);
+            line.append(next);
+        }
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private static String pad(String text, int width) {
+        StringBuilder padded = new StringBuilder(text);
+        while (padded.length() < width) {
+            padded.append(' ');
+        }
+        return padded.toString();
+    }
+
+    private static void write(File directory, String name, String format, Page page) throws IOException {
+        File image = new File(directory, name + "." + format);
+        // ImageOutputStream writes through a RandomAccessFile, which does not truncate an older, larger file.
+        if (image.exists() && !image.delete()) {
+            throw new IOException("Cannot replace " + image);
+        }
+        if (format.equals("jpg")) {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.85f);
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(image)) {
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(page.image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+        } else {
+            ImageIO.write(page.image, format, image);
+        }
+        try (FileOutputStream out = new FileOutputStream(new File(directory, name + ".ocr"))) {
+            out.write(OCRResultCodec.encode(page.result()));
+        }
+        System.out.println("wrote " + image);
+    }
+
+    /** Canvas that records each line and word it draws as result regions. */
+    private static final class Page {
+        final BufferedImage image;
+        private final Graphics2D graphics;
+        private final AffineTransform transform;
+        private final List<OCRResult.Region> blocks = new ArrayList<>();
+        private final Random confidence = new Random(99);
+        private List<OCRResult.Region> lines;
+
+        Page(int width, int height, int background, double rotationDegrees) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            graphics = image.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setColor(new Color(background));
+            graphics.fillRect(0, 0, width, height);
+            graphics.rotate(Math.toRadians(rotationDegrees), width / 2.0, height / 2.0);
+            transform = graphics.getTransform();
+        }
+
+        void font(Font font, int color) {
+            graphics.setFont(font);
+            graphics.setColor(new Color(color));
+        }
+
+        FontMetrics metrics() {
+            return graphics.getFontMetrics();
+        }
+
+        void fill(int x, int y, int width, int height, int color) {
+            Color text = graphics.getColor();
+            graphics.setColor(new Color(color));
+            graphics.fillRect(x, y, width, height);
+            graphics.setColor(text);
+        }
+
+        void beginBlock() {
+            lines = new ArrayList<>();
+        }
+
+        /** Draws {@code text} with its baseline at {@code baseline}; returns the next baseline. */
+        int line(String text, int x, int baseline, int lineHeight) {
+            graphics.drawString(text, x, baseline);
+            FontMetrics metrics = graphics.getFontMetrics();
+            int top = baseline - metrics.getAscent();
+            int height = metrics.getAscent() + metrics.getDescent();
+
+            List<OCRResult.Region> elements = new ArrayList<>();
+            int start = 0;
+            while (start < text.length()) {
+                while (start < text.length() && text.charAt(start) == ' ') {
+                    start++;
+                }
+                int end = start;
+                while (end < text.length() && text.charAt(end) != ' ') {
+                    end++;
+                }
+                if (end > start) {
+                    int left = x + metrics.stringWidth(text.substring(0, start));
+                    elements.add(region(text.substring(start, end), left, top,
+                        metrics.stringWidth(text.substring(start, end)), height, null));
+                }
+                start = end;
+            }
+            lines.add(region(text.trim(), x, top, metrics.stringWidth(text), height, elements));
+            return baseline + lineHeight;
+        }
+
+        void endBlock() {
+            StringBuilder text = new StringBuilder();
+            int left = Integer.MAX_VALUE;
+            int top = Integer.MAX_VALUE;
+            int right = Integer.MIN_VALUE;
+            int bottom = Integer.MIN_VALUE;
+            for (OCRResult.Region line : lines) {
+                if (text.length() > 0) {
+                    text.append('\n');
+                }
+                text.append(line.text);
+                left = Math.min(left, line.left);
+                top = Math.min(top, line.top);
+                right = Math.max(right, line.right);
+                bottom = Math.max(bottom, line.bottom);
+            }
+            blocks.add(new OCRResult.Region(text.toString(), left, top, right, bottom, null,
+                OCRResult.Region.UNKNOWN_CONFIDENCE, lines));
+            lines = null;
+        }
+
+        /** Darkens the page towards its right edge by up to {@code strength}. */
+        void shade(float strength) {
+            int width = image.getWidth();
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < width; x++) {
+                    float factor = 1f - strength * x / width;
+                    int rgb = image.getRGB(x, y);
+                    int r = (int) (((rgb >> 16) & 0xFF) * factor);
+                    int g = (int) (((rgb >> 8) & 0xFF) * factor);
+                    int b = (int) ((rgb & 0xFF) * factor);
+                    image.setRGB(x, y, (r << 16) | (g << 8) | b);
+                }
+            }
+        }
+
+        void noise(Random random, int amplitude) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    int delta = random.nextInt(2 * amplitude + 1) - amplitude;
+                    int rgb = image.getRGB(x, y);
+                    int r = clamp(((rgb >> 16) & 0xFF) + delta);
+                    int g = clamp(((rgb >> 8) & 0xFF) + delta);
+                    int b = clamp((rgb & 0xFF) + delta);
+                    image.setRGB(x, y, (r << 16) | (g << 8) | b);
+                }
+            }
+        }
+
+        OCRResult result() {
+            StringBuilder text = new StringBuilder();
+            for (OCRResult.Region block : blocks) {
+                if (text.length() > 0) {
+                    text.append('\n');
+                }
+                text.append(block.text);
+            }
+            return new OCRResult(text.toString(), blocks);
+        }
+
+        /** Region for a rectangle in drawing coordinates, mapped through the page rotation. */
+        private OCRResult.Region region(String text, int x, int y, int width, int height,
+                                        List<OCRResult.Region> children) {
+            double[] points = {x, y, x + width, y, x + width, y + height, x, y + height};
+            transform.transform(points, 0, points, 0, 4);
+            int[] corners = new int[8];
+            int left = Integer.MAX_VALUE;
+            int top = Integer.MAX_VALUE;
+            int right = Integer.MIN_VALUE;
+            int bottom = Integer.MIN_VALUE;
+            for (int i = 0; i < 8; i += 2) {
+                corners[i] = (int) Math.round(points[i]);
+                corners[i + 1] = (int) Math.round(points[i + 1]);
+                left = Math.min(left, corners[i]);
+                right = Math.max(right, corners[i]);
+                top = Math.min(top, corners[i + 1]);
+                bottom = Math.max(bottom, corners[i + 1]);
+            }
+            float score = children == null ? 0.8f + confidence.nextFloat() * 0.19f : OCRResult.Region.UNKNOWN_CONFIDENCE;
+            return new OCRResult.Region(text, left, top, right, bottom, corners, score, children);
+        }
+
+        private static int clamp(int value) {
+            return Math.max(0, Math.min(255, value));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.rnocr;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Times each {@link ImagePreprocessor} step on synthetic receipt-like pages of
+ * increasing size and prints the median cost per call and per megapixel.
+ *
+ * <p>Every timed call starts from the same input plane, so steps that rewrite
+ * the plane (binarize, rotate) do not feed their output into the next run.
+ */
+public final class PreprocessBenchmark {
+
+    private static final int[][] SIZES = {{640, 480}, {1280, 960}, {2048, 1536}, {4000, 3000}};
+    private static final int WARMUP_RUNS = 10;
+    private static final int MEASURED_RUNS = 15;
+
+    private interface Step {
+        void run(ImagePreprocessor preprocessor);
+    }
+
+    public static void main(String[] args) {
+        System.out.printf("%-11s %-10s %10s %10s%n", "size", "step", "median ms", "ms/MP");
+        ImagePreprocessor preprocessor = new ImagePreprocessor();
+        for (int[] size : SIZES) {
+            int width = size[0];
+            int height = size[1];
+            int[][] rows = syntheticPage(width, height, 3f);
+            byte[] plane = loadPlane(preprocessor, rows, width, height);
+
+            report(width, height, "grayscale", time(preprocessor, plane, p -> {
+                for (int y = 0; y < height; y++) {
+                    p.readRow(y, rows[y]);
+                }
+            }));
+            report(width, height, "contrast", time(preprocessor, plane, ImagePreprocessor::stretchContrast));
+            report(width, height, "skew", time(preprocessor, plane, ImagePreprocessor::estimateSkew));
+            report(width, height, "rotate", time(preprocessor, plane, p -> p.rotate(3f)));
+            report(width, height, "binarize", time(preprocessor, plane, ImagePreprocessor::binarize));
+        }
+    }
+
+    private static byte[] loadPlane(ImagePreprocessor preprocessor, int[][] rows, int width, int height) {
+        preprocessor.reset(width, height);
+        for (int y = 0; y < height; y++) {
+            preprocessor.readRow(y, rows[y]);
+        }
+        return Arrays.copyOf(preprocessor.getGray(), width * height);
+    }
+
+    private static double time(ImagePreprocessor preprocessor, byte[] plane, Step step) {
+        long[] samples = new long[MEASURED_RUNS];
+        for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+            System.arraycopy(plane, 0, preprocessor.getGray(), 0, plane.length);
+            long start = System.nanoTime();
+            step.run(preprocessor);
+            long elapsed = System.nanoTime() - start;
+            if (run >= WARMUP_RUNS) {
+                samples[run - WARMUP_RUNS] = elapsed;
+            }
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2] / 1e6;
+    }
+
+    private static void report(int width, int height, String step, double millis) {
+        double megapixels = width * (double) height / 1e6;
+        System.out.printf("%-11s %-10s %10.2f %10.2f%n", width + "x" + height, step, millis, millis / megapixels);
+    }
+
+    /**
+     * Dim, unevenly lit page with rows of dark "words", rotated by
+     * {@code skewDegrees} to give the deskew step something to find.
+     */
+    static int[][] syntheticPage(int width, int height, float skewDegrees) {
+        Random random = new Random(42);
+        double tan = Math.tan(Math.toRadians(skewDegrees));
+        int lineHeight = Math.max(12, height / 40);
+        int[][] rows = new int[height][width];
+        boolean[] ink = new boolean[width / 8 + 1];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // Background fades from 200 to 150 across the page, like a shadowed receipt.
+                int value = 200 - 50 * x / width;
+                double lineY = y - x * tan;
+                int line = (int) Math.floor(lineY / lineHeight);
+                double inLine = lineY - line * lineHeight;
+                if (inLine > lineHeight * 0.3 && inLine < lineHeight * 0.7) {
+                    if (x % 8 == 0) {
+                        ink[x / 8] = ((line * 31 + x / 40) & 7) != 0;
+                    }
+                    if (ink[x / 8] && (x & 7) < 6) {
+                        value = 90 + random.nextInt(20);
+                    }
+                }
+                rows[y][x] = 0xFF000000 | (value << 16) | (value << 8) | value;
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,83 @@
+package com.rnocr;
+
+import java.io.InputStream;
+
+/**
+ * Reads the characters of a string from {@code start} onwards as bytes,
+ * without copying the string. Only meaningful for ASCII content such as the
+ * base64 payload of a {@code data:} URI.
+ */
+final class AsciiStringInputStream extends InputStream {
+
+    private static final int CHUNK = 8192;
+
+    private final String source;
+    private final int end;
+    private int position;
+    private int mark;
+    private char[] chunk;
+
+    AsciiStringInputStream(String source, int start) {
+        this.source = source;
+        this.end = source.length();
+        this.position = Math.min(Math.max(0, start), end);
+        this.mark = position;
+    }
+
+    @Override
+    public int read() {
+        return position < end ? source.charAt(position++) & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        if (position >= end) {
+            return -1;
+        }
+        if (chunk == null) {
+            chunk = new char[CHUNK];
+        }
+        int total = Math.min(length, end - position);
+        int copied = 0;
+        while (copied < total) {
+            int count = Math.min(CHUNK, total - copied);
+            source.getChars(position, position + count, chunk, 0);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + copied + i] = (byte) chunk[i];
+            }
+            position += count;
+            copied += count;
+        }
+        return total;
+    }
+
+    @Override
+    public long skip(long n) {
+        int skipped = (int) Math.max(0, Math.min(n, end - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return end - position;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        mark = position;
+    }
+
+    @Override
+    public synchronized void reset() {
+        position = mark;
+    }
+}
@@ -0,0 +1,230 @@
+package com.rnocr;
+
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.text.TextRecognizer;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Two-stage decode/recognize pipeline for a list of image URIs.
+ *
+ * <p>Decodes run on a bounded executor and feed a small ready queue; at most
+ * {@code maxRecognitions} {@code TextRecognizer.process} calls are in flight.
+ * The total number of live bitmaps (decoding, queued or recognizing) never
+ * exceeds {@code maxRecognitions + decodeAhead}, so memory stays flat no
+ * matter how many URIs are submitted.
+ *
+ * <p>After {@link #cancel} no new decode or recognition starts: items not yet
+ * decoded and decoded items still waiting for the recognizer complete with
+ * {@code CANCELLED}, while recognitions already running finish normally.
+ */
+final class BatchPipeline {
+
+    interface ItemHandler {
+        /** Returns an already-known result for the item, or null to decode and recognize it. */
+        OCRResult lookup(int index, String uri) throws Exception;
+
+        BitmapDecoder.Decoded load(int index, String uri) throws Exception;
+
+        void store(int index, OCRResult result);
+    }
+
+    interface Listener {
+        void onItemComplete(int index, String uri, OCRResult result, String errorCode, String errorMessage,
+                            int completed, int total);
+
+        void onBatchComplete();
+    }
+
+    private final List<String> uris;
+    private final ItemHandler handler;
+    private final BitmapDecoder decoder;
+    private final TextRecognizer recognizer;
+    private final Executor decodeExecutor;
+    private final Executor callbackExecutor;
+    private final Listener listener;
+    private final int maxRecognitions;
+    private final int maxLive;
+    private final StageTracer tracer;
+    private final OCRStats.Timings timings;
+
+    private final ArrayDeque<Pending> ready = new ArrayDeque<>();
+    private int nextIndex;
+    private int live;
+    private int recognizing;
+    private int completed;
+    private int reported;
+    private boolean cancelled;
+
+    BatchPipeline(List<String> uris, ItemHandler handler, BitmapDecoder decoder, TextRecognizer recognizer,
+                  Executor decodeExecutor, Executor callbackExecutor, int maxRecognitions, int decodeAhead,
+                  StageTracer tracer, OCRStats.Timings timings, Listener listener) {
+        this.uris = uris;
+        this.handler = handler;
+        this.decoder = decoder;
+        this.recognizer = recognizer;
+        this.decodeExecutor = decodeExecutor;
+        this.callbackExecutor = callbackExecutor;
+        this.listener = listener;
+        this.maxRecognitions = Math.max(1, maxRecognitions);
+        this.maxLive = this.maxRecognitions + Math.max(0, decodeAhead);
+        this.tracer = tracer;
+        this.timings = timings;
+    }
+
+    void start() {
+        if (uris.isEmpty()) {
+            listener.onBatchComplete();
+            return;
+        }
+        scheduleDecodes();
+    }
+
+    void cancel() {
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+        }
+        dispatchRecognitions();
+    }
+
+    synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void scheduleDecodes() {
+        while (true) {
+            final int index;
+            synchronized (this) {
+                if (nextIndex >= uris.size() || live >= maxLive) {
+                    return;
+                }
+                index = nextIndex++;
+                live++;
+            }
+            decodeExecutor.execute(() -> decode(index));
+        }
+    }
+
+    private void decode(int index) {
+        String uri = uris.get(index);
+        if (isCancelled()) {
+            finishCancelled(index);
+            return;
+        }
+        BitmapDecoder.Decoded decoded;
+        try {
+            OCRResult known = handler.lookup(index, uri);
+            if (known != null) {
+                finish(index, known, null, null, false);
+                return;
+            }
+            decoded = handler.load(index, uri);
+        } catch (Exception e) {
+            finish(index, null, "UNKNOWN", e.getMessage(), false);
+            return;
+        }
+        if (decoded == null) {
+            finish(index, null, "NO_IMAGE", "Failed to load image from URI: " + uri, false);
+            return;
+        }
+
+        synchronized (this) {
+            ready.addLast(new Pending(index, decoded));
+        }
+        dispatchRecognitions();
+    }
+
+    private void dispatchRecognitions() {
+        while (true) {
+            final Pending pending;
+            final boolean drop;
+            synchronized (this) {
+                drop = cancelled && !ready.isEmpty();
+                if (!drop && (recognizing >= maxRecognitions || ready.isEmpty())) {
+                    return;
+                }
+                pending = ready.pollFirst();
+                if (!drop) {
+                    recognizing++;
+                }
+            }
+            if (drop) {
+                decoder.release(pending.decoded.bitmap);
+                finishCancelled(pending.index);
+            } else {
+                recognize(pending);
+            }
+        }
+    }
+
+    private void recognize(Pending pending) {
+        BitmapDecoder.Decoded decoded = pending.decoded;
+        try {
+            InputImage image = InputImage.fromBitmap(decoded.bitmap, 0);
+            StageTracer.Span inference = tracer.beginAsync(OCRStats.INFERENCE);
+            recognizer.process(image).addOnCompleteListener(callbackExecutor, task -> {
+                tracer.endAsync(inference, timings);
+                decoder.release(decoded.bitmap);
+                if (task.isSuccessful()) {
+                    long marshal = tracer.begin(OCRStats.MARSHAL);
+                    OCRResult result = TextMapper.fromText(task.getResult(), decoded);
+                    tracer.end(OCRStats.MARSHAL, marshal, timings);
+                    handler.store(pending.index, result);
+                    finish(pending.index, result, null, null, true);
+                } else {
+                    Exception e = task.getException();
+                    finish(pending.index, null, "RECOGNITION_FAILED", e != null ? e.getMessage() : null, true);
+                }
+            });
+        } catch (Exception e) {
+            decoder.release(decoded.bitmap);
+            finish(pending.index, null, "UNKNOWN", e.getMessage(), true);
+        }
+    }
+
+    private void finishCancelled(int index) {
+        finish(index, null, RecognitionRequest.CANCELLED, "Recognition was cancelled", false);
+    }
+
+    private void finish(int index, OCRResult result, String errorCode, String errorMessage,
+                        boolean wasRecognizing) {
+        int done;
+        synchronized (this) {
+            live--;
+            if (wasRecognizing) {
+                recognizing--;
+            }
+            done = ++completed;
+        }
+
+        listener.onItemComplete(index, uris.get(index), result, errorCode, errorMessage, done, uris.size());
+
+        // Counted after the listener so everything it wrote is visible to whichever
+        // thread ends up reporting the batch as complete.
+        boolean allDone;
+        synchronized (this) {
+            allDone = ++reported == uris.size();
+        }
+        if (allDone) {
+            listener.onBatchComplete();
+            return;
+        }
+        dispatchRecognitions();
+        scheduleDecodes();
+    }
+
+    private static final class Pending {
+        final int index;
+        final BitmapDecoder.Decoded decoded;
+
+        Pending(int index, BitmapDecoder.Decoded decoded) {
+            this.index = index;
+            this.decoded = decoded;
+        }
+    }
+}
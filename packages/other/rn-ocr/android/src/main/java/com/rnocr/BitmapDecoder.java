@@ -0,0 +1,227 @@
+package com.rnocr;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes images in two passes: a bounds-only pass to pick a power-of-two
+ * {@code inSampleSize} that keeps the longest side within {@code maxDimension},
+ * then a real decode into a pooled {@code inBitmap} buffer when one fits.
+ */
+final class BitmapDecoder {
+
+    static final int DEFAULT_MAX_DIMENSION = 2048;
+
+    interface Source {
+        InputStream open() throws IOException;
+    }
+
+    static final class Decoded {
+        final Bitmap bitmap;
+        final int sourceWidth;
+        final int sourceHeight;
+        /** Position of the decoded area within the source image. */
+        final int offsetX;
+        final int offsetY;
+        /** Rotation, in degrees, that was removed from the bitmap by deskewing. */
+        final float skewDegrees;
+        /** Preprocessing cost, or null when the bitmap was not preprocessed. */
+        final ImagePreprocessor.Report preprocessing;
+
+        Decoded(Bitmap bitmap, int sourceWidth, int sourceHeight) {
+            this(bitmap, sourceWidth, sourceHeight, 0, 0);
+        }
+
+        Decoded(Bitmap bitmap, int sourceWidth, int sourceHeight, int offsetX, int offsetY) {
+            this(bitmap, sourceWidth, sourceHeight, offsetX, offsetY, 0f, null);
+        }
+
+        private Decoded(Bitmap bitmap, int sourceWidth, int sourceHeight, int offsetX, int offsetY,
+                        float skewDegrees, ImagePreprocessor.Report preprocessing) {
+            this.bitmap = bitmap;
+            this.sourceWidth = sourceWidth;
+            this.sourceHeight = sourceHeight;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.skewDegrees = skewDegrees;
+            this.preprocessing = preprocessing;
+        }
+
+        Decoded withPreprocessing(ImagePreprocessor.Report report) {
+            return new Decoded(bitmap, sourceWidth, sourceHeight, offsetX, offsetY, report.skewDegrees, report);
+        }
+
+        /** Factor that maps decoded-bitmap coordinates back to source pixels. */
+        float scale() {
+            return (float) sourceWidth / bitmap.getWidth();
+        }
+    }
+
+    private final BitmapPool pool;
+
+    BitmapDecoder(BitmapPool pool) {
+        this.pool = pool;
+    }
+
+    Decoded decode(Source source, int maxDimension) throws IOException {
+        BitmapFactory.Options bounds = readBounds(source);
+        if (bounds == null) {
+            return null;
+        }
+
+        int sampleSize = computeSampleSize(bounds.outWidth, bounds.outHeight, maxDimension);
+        Bitmap.Config config = configFor(bounds.outMimeType);
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = config;
+        options.inMutable = true;
+        options.inBitmap = pool.get(
+            ceilDiv(bounds.outWidth, sampleSize),
+            ceilDiv(bounds.outHeight, sampleSize),
+            config
+        );
+
+        Bitmap bitmap;
+        try {
+            bitmap = decodeInto(source, options);
+        } catch (IllegalArgumentException e) {
+            // The decoder rejected the pooled buffer; fall back to a fresh allocation.
+            if (options.inBitmap == null) {
+                throw e;
+            }
+            pool.put(options.inBitmap);
+            options.inBitmap = null;
+            bitmap = decodeInto(source, options);
+        }
+        return bitmap != null ? new Decoded(bitmap, bounds.outWidth, bounds.outHeight) : null;
+    }
+
+    /** Returns the image's dimensions and MIME type, or null if it cannot be decoded. */
+    static BitmapFactory.Options readBounds(Source source) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = source.open()) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        return bounds.outWidth > 0 && bounds.outHeight > 0 ? bounds : null;
+    }
+
+    /**
+     * Opens a region decoder over the whole image so that only the parts that
+     * are recognized get decoded. Callers must {@code recycle()} it. Region
+     * decodes are serialized internally, so one instance can serve many tiles.
+     */
+    @SuppressWarnings("deprecation")
+    static BitmapRegionDecoder openRegionDecoder(Source source) throws IOException {
+        try (InputStream in = source.open()) {
+            return BitmapRegionDecoder.newInstance(in, false);
+        }
+    }
+
+    /**
+     * Decodes {@code rect} (in source pixels), downsampled so its longest side
+     * stays within {@code maxDimension}. The result carries the region's
+     * origin so recognized coordinates map back to the whole image.
+     */
+    Decoded decodeRegion(BitmapRegionDecoder regionDecoder, Rect rect, Bitmap.Config config, int maxDimension) {
+        int sampleSize = computeSampleSize(rect.width(), rect.height(), maxDimension);
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = config;
+        options.inMutable = true;
+        options.inBitmap = pool.get(
+            ceilDiv(rect.width(), sampleSize),
+            ceilDiv(rect.height(), sampleSize),
+            config
+        );
+
+        Bitmap bitmap;
+        try {
+            bitmap = regionDecoder.decodeRegion(rect, options);
+        } catch (IllegalArgumentException e) {
+            if (options.inBitmap == null) {
+                throw e;
+            }
+            pool.put(options.inBitmap);
+            options.inBitmap = null;
+            bitmap = regionDecoder.decodeRegion(rect, options);
+        }
+        if (bitmap == null) {
+            pool.put(options.inBitmap);
+            return null;
+        }
+        return new Decoded(bitmap, rect.width(), rect.height(), rect.left, rect.top);
+    }
+
+    /**
+     * Runs the preprocessing steps on {@code decoded} in place. Pixels move
+     * through {@code preprocessor}'s buffers one row at a time.
+     */
+    static Decoded preprocess(Decoded decoded, ImagePreprocessor preprocessor, ImagePreprocessor.Options options) {
+        Bitmap bitmap = decoded.bitmap;
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        ImagePreprocessor.Report report = new ImagePreprocessor.Report();
+
+        long start = System.nanoTime();
+        preprocessor.reset(width, height);
+        int[] row = preprocessor.getRowBuffer();
+        for (int y = 0; y < height; y++) {
+            bitmap.getPixels(row, 0, width, 0, y, width, 1);
+            preprocessor.readRow(y, row);
+        }
+        report.grayscaleNanos = System.nanoTime() - start;
+
+        preprocessor.process(options, report);
+
+        start = System.nanoTime();
+        for (int y = 0; y < height; y++) {
+            preprocessor.writeRow(y, row);
+            bitmap.setPixels(row, 0, width, 0, y, width, 1);
+        }
+        report.writeBackNanos = System.nanoTime() - start;
+        return decoded.withPreprocessing(report);
+    }
+
+    void release(Bitmap bitmap) {
+        pool.put(bitmap);
+    }
+
+    private Bitmap decodeInto(Source source, BitmapFactory.Options options) throws IOException {
+        Bitmap reusable = options.inBitmap;
+        Bitmap bitmap;
+        try (InputStream in = source.open()) {
+            bitmap = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (bitmap == null && reusable != null) {
+            pool.put(reusable);
+        }
+        return bitmap;
+    }
+
+    static int computeSampleSize(int width, int height, int maxDimension) {
+        int sampleSize = 1;
+        if (maxDimension <= 0) {
+            return sampleSize;
+        }
+        int longest = Math.max(width, height);
+        while (ceilDiv(longest, sampleSize) > maxDimension) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    static Bitmap.Config configFor(String mimeType) {
+        return "image/jpeg".equals(mimeType) ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+}
@@ -0,0 +1,128 @@
+package com.rnocr;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Small pool of mutable bitmaps bucketed by power-of-two allocation size, used
+ * as {@code inBitmap} targets so repeated decodes reuse the same pixel buffers.
+ */
+final class BitmapPool {
+
+    private static final int MAX_PER_BUCKET = 2;
+
+    private final Map<Integer, ArrayDeque<Bitmap>> buckets = new HashMap<>();
+    private final long maxBytes;
+    private long currentBytes;
+
+    BitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns a pooled bitmap large enough to hold a {@code width x height}
+     * image in {@code config}, or null if none is available.
+     */
+    synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+        long needed = (long) width * height * bytesPerPixel(config);
+        // Every bitmap in bucket b holds at least 2^b bytes, so starting at the
+        // ceiling bucket guarantees a fit; one bucket of slack bounds the waste.
+        int bucket = ceilBucket(needed);
+        for (int b = bucket; b <= bucket + 1; b++) {
+            ArrayDeque<Bitmap> queue = buckets.get(b);
+            if (queue == null) {
+                continue;
+            }
+            while (!queue.isEmpty()) {
+                Bitmap candidate = queue.pollFirst();
+                currentBytes -= candidate.getAllocationByteCount();
+                if (!candidate.isRecycled()) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hands a bitmap back to the pool. Bitmaps that cannot be reused, or that
+     * would push the pool over its budget, are recycled instead.
+     */
+    synchronized void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        int size = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || size > maxBytes) {
+            bitmap.recycle();
+            return;
+        }
+
+        int bucket = floorBucket(size);
+        ArrayDeque<Bitmap> queue = buckets.get(bucket);
+        if (queue == null) {
+            queue = new ArrayDeque<>();
+            buckets.put(bucket, queue);
+        }
+        if (queue.size() >= MAX_PER_BUCKET) {
+            bitmap.recycle();
+            return;
+        }
+
+        trimTo(maxBytes - size);
+        queue.addLast(bitmap);
+        currentBytes += size;
+    }
+
+    synchronized void clear() {
+        trimTo(0);
+    }
+
+    /** Recycles pooled bitmaps, largest first, until at most {@code targetBytes} remain. */
+    synchronized void trimToSize(long targetBytes) {
+        trimTo(Math.max(0, targetBytes));
+    }
+
+    synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    private void trimTo(long targetBytes) {
+        while (currentBytes > targetBytes) {
+            int largest = -1;
+            for (Map.Entry<Integer, ArrayDeque<Bitmap>> entry : buckets.entrySet()) {
+                if (!entry.getValue().isEmpty() && entry.getKey() > largest) {
+                    largest = entry.getKey();
+                }
+            }
+            if (largest < 0) {
+                currentBytes = 0;
+                return;
+            }
+            Bitmap evicted = buckets.get(largest).pollFirst();
+            currentBytes -= evicted.getAllocationByteCount();
+            evicted.recycle();
+        }
+    }
+
+    private static int floorBucket(long bytes) {
+        return 63 - Long.numberOfLeadingZeros(Math.max(bytes, 1));
+    }
+
+    private static int ceilBucket(long bytes) {
+        return 64 - Long.numberOfLeadingZeros(Math.max(bytes - 1, 1));
+    }
+
+    static int bytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+            return 2;
+        }
+        if (config == Bitmap.Config.ALPHA_8) {
+            return 1;
+        }
+        return 4;
+    }
+}
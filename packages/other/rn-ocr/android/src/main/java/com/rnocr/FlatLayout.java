@@ -0,0 +1,101 @@
+package com.rnocr;
+
+import java.util.List;
+
+/**
+ * Flattened, level-by-level view of an {@link OCRResult}.
+ *
+ * <p>Each level stores its regions in parallel primitive arrays instead of one
+ * object per region: {@code geometry} holds {@link #GEOMETRY_STRIDE} numbers
+ * per region (x, y, width, height followed by four corner points), and
+ * {@code childOffsets} holds {@code count + 1} indices so that the children of
+ * region {@code i} are {@code [childOffsets[i], childOffsets[i + 1])} in the
+ * next level. The deepest encoded level has no offsets.
+ */
+final class FlatLayout {
+
+    static final int GEOMETRY_STRIDE = 12;
+
+    final int granularity;
+    final Level[] levels;
+
+    private FlatLayout(int granularity, Level[] levels) {
+        this.granularity = granularity;
+        this.levels = levels;
+    }
+
+    static final class Level {
+        final int count;
+        final String[] text;
+        final int[] geometry;
+        final float[] confidence;
+        final int[] childOffsets;
+
+        Level(int count, boolean hasChildren) {
+            this.count = count;
+            this.text = new String[count];
+            this.geometry = new int[count * GEOMETRY_STRIDE];
+            this.confidence = new float[count];
+            this.childOffsets = hasChildren ? new int[count + 1] : null;
+        }
+    }
+
+    /**
+     * @param granularity deepest level to include, one of the
+     *     {@code OCRResult.LEVEL_*} constants
+     */
+    static FlatLayout encode(OCRResult result, int granularity) {
+        int depth = Math.max(OCRResult.LEVEL_BLOCK, Math.min(granularity, OCRResult.LEVEL_ELEMENT)) + 1;
+        int[] counts = new int[depth];
+        count(result.blocks, 0, counts);
+
+        Level[] levels = new Level[depth];
+        for (int d = 0; d < depth; d++) {
+            levels[d] = new Level(counts[d], d + 1 < depth);
+        }
+        fill(result.blocks, 0, levels, new int[depth]);
+        return new FlatLayout(depth - 1, levels);
+    }
+
+    private static void count(List<OCRResult.Region> regions, int depth, int[] counts) {
+        counts[depth] += regions.size();
+        if (depth + 1 < counts.length) {
+            for (OCRResult.Region region : regions) {
+                count(region.children, depth + 1, counts);
+            }
+        }
+    }
+
+    private static void fill(List<OCRResult.Region> regions, int depth, Level[] levels, int[] cursors) {
+        Level level = levels[depth];
+        for (OCRResult.Region region : regions) {
+            int i = cursors[depth]++;
+            level.text[i] = region.text;
+            level.confidence[i] = region.confidence;
+
+            int g = i * GEOMETRY_STRIDE;
+            level.geometry[g] = region.left;
+            level.geometry[g + 1] = region.top;
+            level.geometry[g + 2] = region.width();
+            level.geometry[g + 3] = region.height();
+            if (region.corners != null) {
+                System.arraycopy(region.corners, 0, level.geometry, g + 4, 8);
+            } else {
+                level.geometry[g + 4] = region.left;
+                level.geometry[g + 5] = region.top;
+                level.geometry[g + 6] = region.right;
+                level.geometry[g + 7] = region.top;
+                level.geometry[g + 8] = region.right;
+                level.geometry[g + 9] = region.bottom;
+                level.geometry[g + 10] = region.left;
+                level.geometry[g + 11] = region.bottom;
+            }
+
+            if (level.childOffsets != null) {
+                level.childOffsets[i] = cursors[depth + 1];
+                fill(region.children, depth + 1, levels, cursors);
+                level.childOffsets[i + 1] = cursors[depth + 1];
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.rnocr;
+
+import java.util.Arrays;
+
+/**
+ * Coarse luminance fingerprint of a video frame: the mean luminance of each
+ * cell in a {@link #GRID} x {@link #GRID} grid, built from full-resolution
+ * rows so thin text strokes still move their cell's average.
+ *
+ * <p>Two frames are considered unchanged when only a small fraction of cells
+ * differ by more than a tolerance, which ignores compression noise and
+ * cursor blinks but catches a new line of text or a slide change.
+ */
+final class FrameFingerprint {
+
+    static final int GRID = 48;
+    /** Per-cell luminance change, out of 255, treated as noise. */
+    static final int CELL_TOLERANCE = 10;
+
+    private final long[] sums = new long[GRID * GRID];
+    private final int[] counts = new int[GRID * GRID];
+    private int[] columnCells = new int[0];
+    private int width;
+    private int height;
+
+    void reset(int width, int height) {
+        this.width = width;
+        this.height = height;
+        if (columnCells.length < width) {
+            columnCells = new int[width];
+        }
+        for (int x = 0; x < width; x++) {
+            columnCells[x] = (int) ((long) x * GRID / width);
+        }
+        Arrays.fill(sums, 0);
+        Arrays.fill(counts, 0);
+    }
+
+    void addRow(int y, int[] argb) {
+        int rowBase = (int) ((long) y * GRID / height) * GRID;
+        for (int x = 0; x < width; x++) {
+            int pixel = argb[x];
+            int luma = (((pixel >> 16) & 0xFF) * 77 + ((pixel >> 8) & 0xFF) * 150 + (pixel & 0xFF) * 29) >> 8;
+            int cell = rowBase + columnCells[x];
+            sums[cell] += luma;
+            counts[cell]++;
+        }
+    }
+
+    /** Returns the fingerprint of the rows added since {@link #reset}. */
+    byte[] finish() {
+        byte[] cells = new byte[GRID * GRID];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = (byte) (counts[i] > 0 ? sums[i] / counts[i] : 0);
+        }
+        return cells;
+    }
+
+    /** Fraction of cells, in [0, 1], whose luminance differs by more than {@link #CELL_TOLERANCE}. */
+    static float difference(byte[] a, byte[] b) {
+        int changed = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (Math.abs((a[i] & 0xFF) - (b[i] & 0xFF)) > CELL_TOLERANCE) {
+                changed++;
+            }
+        }
+        return (float) changed / a.length;
+    }
+}
@@ -0,0 +1,359 @@
+package com.rnocr;
+
+import java.util.Arrays;
+
+/**
+ * Grayscale, contrast stretch, deskew and adaptive binarization on a single
+ * 8-bit luminance plane.
+ *
+ * <p>All work happens on primitive buffers owned by the instance and grown
+ * only when a larger image arrives, so steady-state preprocessing allocates
+ * nothing. Instances are not thread-safe; callers pool them per thread.
+ */
+final class ImagePreprocessor {
+
+    static final float MAX_SKEW_DEGREES = 8f;
+    private static final float SKEW_COARSE_STEP_DEGREES = 1f;
+    private static final float SKEW_STEP_DEGREES = 0.25f;
+    /** Angles below this are left alone; resampling would cost more than it gains. */
+    private static final float MIN_SKEW_DEGREES = 0.2f;
+    /** Upper bound on dark pixels voted into the skew histogram. */
+    private static final int SKEW_SAMPLE_LIMIT = 100_000;
+    private static final int DARK_THRESHOLD = 128;
+    /** Bradley threshold: a pixel is ink when it is this many percent darker than its window. */
+    private static final int BINARIZE_PERCENT = 15;
+
+    static final class Options {
+        final boolean grayscale;
+        final boolean contrast;
+        final boolean binarize;
+        final boolean deskew;
+
+        Options(boolean grayscale, boolean contrast, boolean binarize, boolean deskew) {
+            this.grayscale = grayscale;
+            this.contrast = contrast;
+            this.binarize = binarize;
+            this.deskew = deskew;
+        }
+
+        boolean isEnabled() {
+            return grayscale || contrast || binarize || deskew;
+        }
+
+        String cacheKey() {
+            return (grayscale ? "g" : "") + (contrast ? "c" : "") + (binarize ? "b" : "") + (deskew ? "d" : "");
+        }
+    }
+
+    /** Wall-clock cost of each step in nanoseconds, and the skew that was corrected. */
+    static final class Report {
+        long grayscaleNanos;
+        long contrastNanos;
+        long deskewNanos;
+        long binarizeNanos;
+        /** Copying the processed plane back into the bitmap; not a step of its own. */
+        long writeBackNanos;
+        float skewDegrees;
+
+        long totalNanos() {
+            return grayscaleNanos + contrastNanos + deskewNanos + binarizeNanos + writeBackNanos;
+        }
+    }
+
+    private int width;
+    private int height;
+    private byte[] gray = new byte[0];
+    private byte[] scratch = new byte[0];
+    private final int[] histogram = new int[256];
+    private final byte[] lut = new byte[256];
+    private int[] columnSums = new int[0];
+    private int[] rowPrefix = new int[0];
+    private int[] skewBins = new int[0];
+    private int[] skewPoints = new int[0];
+    private int[] argbRow = new int[0];
+
+    /** Prepares the luminance plane for a {@code width x height} image. */
+    void reset(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int size = width * height;
+        if (gray.length < size) {
+            gray = new byte[size];
+            scratch = new byte[size];
+        }
+        if (columnSums.length < width) {
+            columnSums = new int[width];
+            rowPrefix = new int[width + 1];
+            argbRow = new int[width];
+        }
+    }
+
+    /** Bytes held by the working buffers, which persist between images. */
+    long getRetainedBytes() {
+        return gray.length + scratch.length
+            + 4L * (columnSums.length + rowPrefix.length + skewBins.length + skewPoints.length + argbRow.length);
+    }
+
+    byte[] getGray() {
+        return gray;
+    }
+
+    /** Scratch row of {@code width} ARGB pixels for moving data in and out of the plane. */
+    int[] getRowBuffer() {
+        return argbRow;
+    }
+
+    /** Converts one row of ARGB pixels to luminance (Rec. 601 weights). */
+    void readRow(int y, int[] argb) {
+        int offset = y * width;
+        for (int x = 0; x < width; x++) {
+            int pixel = argb[x];
+            int r = (pixel >> 16) & 0xFF;
+            int g = (pixel >> 8) & 0xFF;
+            int b = pixel & 0xFF;
+            gray[offset + x] = (byte) ((r * 77 + g * 150 + b * 29) >> 8);
+        }
+    }
+
+    /** Writes one row of the luminance plane back as opaque ARGB. */
+    void writeRow(int y, int[] argb) {
+        int offset = y * width;
+        for (int x = 0; x < width; x++) {
+            int v = gray[offset + x] & 0xFF;
+            argb[x] = 0xFF000000 | (v << 16) | (v << 8) | v;
+        }
+    }
+
+    /**
+     * Runs the enabled steps on the current plane in a fixed order: contrast
+     * stretch, deskew, then binarization. Grayscale conversion is done by the
+     * caller through {@link #readRow}.
+     */
+    void process(Options options, Report report) {
+        long start = System.nanoTime();
+        if (options.contrast) {
+            stretchContrast();
+        }
+        long afterContrast = System.nanoTime();
+        report.contrastNanos = afterContrast - start;
+
+        if (options.deskew) {
+            float angle = estimateSkew();
+            if (Math.abs(angle) >= MIN_SKEW_DEGREES) {
+                rotate(angle);
+                report.skewDegrees = angle;
+            }
+        }
+        long afterDeskew = System.nanoTime();
+        report.deskewNanos = afterDeskew - afterContrast;
+
+        if (options.binarize) {
+            binarize();
+        }
+        report.binarizeNanos = System.nanoTime() - afterDeskew;
+    }
+
+    /** Maps the 1st..99th luminance percentiles onto the full 0..255 range. */
+    void stretchContrast() {
+        int size = width * height;
+        Arrays.fill(histogram, 0);
+        for (int i = 0; i < size; i++) {
+            histogram[gray[i] & 0xFF]++;
+        }
+
+        int clip = size / 100;
+        int low = 0;
+        for (int seen = 0; low < 255 && (seen += histogram[low]) <= clip; ) {
+            low++;
+        }
+        int high = 255;
+        for (int seen = 0; high > 0 && (seen += histogram[high]) <= clip; ) {
+            high--;
+        }
+        if (high - low < 1) {
+            return;
+        }
+
+        for (int v = 0; v < 256; v++) {
+            int stretched = (v - low) * 255 / (high - low);
+            lut[v] = (byte) Math.max(0, Math.min(255, stretched));
+        }
+        for (int i = 0; i < size; i++) {
+            gray[i] = lut[gray[i] & 0xFF];
+        }
+    }
+
+    /**
+     * Bradley-Roth adaptive threshold. The window mean comes from running
+     * column sums slid down the image plus a prefix sum per row, which is the
+     * integral-image method with O(width) extra memory instead of O(pixels).
+     */
+    void binarize() {
+        int radius = Math.max(7, Math.max(width, height) / 32);
+        int[] columns = columnSums;
+        int[] prefix = rowPrefix;
+        byte[] out = scratch;
+        Arrays.fill(columns, 0, width, 0);
+
+        int windowBottom = Math.min(height - 1, radius);
+        for (int y = 0; y <= windowBottom; y++) {
+            addRow(columns, y, 1);
+        }
+
+        for (int y = 0; y < height; y++) {
+            int top = Math.max(0, y - radius);
+            int bottom = Math.min(height - 1, y + radius);
+            int rows = bottom - top + 1;
+
+            // Sums may exceed Integer.MAX_VALUE on huge images; window sums are
+            // differences, so two's-complement wraparound still yields exact results.
+            prefix[0] = 0;
+            for (int x = 0; x < width; x++) {
+                prefix[x + 1] = prefix[x] + columns[x];
+            }
+
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                int left = Math.max(0, x - radius);
+                int right = Math.min(width - 1, x + radius);
+                long sum = prefix[right + 1] - prefix[left];
+                long count = (long) (right - left + 1) * rows;
+                long value = (gray[offset + x] & 0xFF) * count * 100;
+                out[offset + x] = value <= sum * (100 - BINARIZE_PERCENT) ? 0 : (byte) 255;
+            }
+
+            if (y + radius + 1 < height) {
+                addRow(columns, y + radius + 1, 1);
+            }
+            if (y - radius >= 0) {
+                addRow(columns, y - radius, -1);
+            }
+        }
+        swapPlanes();
+    }
+
+    private void addRow(int[] columns, int y, int sign) {
+        int offset = y * width;
+        for (int x = 0; x < width; x++) {
+            columns[x] += sign * (gray[offset + x] & 0xFF);
+        }
+    }
+
+    /**
+     * Estimates the text skew in degrees by projecting dark pixels along each
+     * candidate angle and picking the one whose row histogram is sharpest
+     * (largest sum of squared bin counts). Positive angles mean text lines
+     * descend to the right.
+     */
+    float estimateSkew() {
+        int dark = 0;
+        int size = width * height;
+        for (int i = 0; i < size; i++) {
+            if ((gray[i] & 0xFF) < DARK_THRESHOLD) {
+                dark++;
+            }
+        }
+        if (dark == 0) {
+            return 0f;
+        }
+        int stride = Math.max(1, (int) Math.ceil(Math.sqrt((double) dark / SKEW_SAMPLE_LIMIT)));
+
+        // Collect the sampled dark pixels once instead of rescanning the plane per angle.
+        int points = 0;
+        for (int y = 0; y < height; y += stride) {
+            int offset = y * width;
+            for (int x = 0; x < width; x += stride) {
+                if ((gray[offset + x] & 0xFF) < DARK_THRESHOLD) {
+                    if (points * 2 == skewPoints.length) {
+                        skewPoints = Arrays.copyOf(skewPoints, Math.max(1024, skewPoints.length * 2));
+                    }
+                    skewPoints[points * 2] = x;
+                    skewPoints[points * 2 + 1] = y;
+                    points++;
+                }
+            }
+        }
+
+        // Bins are one sampling stride tall; finer bins would leave every other
+        // bin empty at 0 degrees and bias the score towards leaving the page alone.
+        double maxTan = Math.tan(Math.toRadians(MAX_SKEW_DEGREES));
+        int shift = (int) Math.ceil(width * maxTan / stride) + 1;
+        int binCount = height / stride + 2 * shift + 1;
+        if (skewBins.length < binCount) {
+            skewBins = new int[binCount];
+        }
+
+        // Coarse pass over the whole range, then a fine pass around the winner.
+        float coarse = bestSkew(-MAX_SKEW_DEGREES, MAX_SKEW_DEGREES, SKEW_COARSE_STEP_DEGREES,
+            points, stride, shift, binCount);
+        return bestSkew(coarse - SKEW_COARSE_STEP_DEGREES, coarse + SKEW_COARSE_STEP_DEGREES,
+            SKEW_STEP_DEGREES, points, stride, shift, binCount);
+    }
+
+    private float bestSkew(float from, float to, float stepDegrees, int points, int stride, int shift,
+                           int binCount) {
+        float bestAngle = 0f;
+        long bestScore = -1;
+        int steps = Math.round((to - from) / stepDegrees);
+        for (int step = 0; step <= steps; step++) {
+            float angle = from + step * stepDegrees;
+            if (Math.abs(angle) > MAX_SKEW_DEGREES) {
+                continue;
+            }
+            double tan = Math.tan(Math.toRadians(angle));
+            Arrays.fill(skewBins, 0, binCount, 0);
+            for (int i = 0; i < points * 2; i += 2) {
+                skewBins[(int) Math.round((skewPoints[i + 1] - skewPoints[i] * tan) / stride) + shift]++;
+            }
+            long score = 0;
+            for (int b = 0; b < binCount; b++) {
+                score += (long) skewBins[b] * skewBins[b];
+            }
+            // Ties go to the smaller angle so blank-ish pages are left alone.
+            if (score > bestScore || (score == bestScore && Math.abs(angle) < Math.abs(bestAngle))) {
+                bestScore = score;
+                bestAngle = angle;
+            }
+        }
+        return bestAngle;
+    }
+
+    /**
+     * Rotates the plane by {@code -degrees} about its centre so that text
+     * skewed by {@code degrees} becomes horizontal. Uncovered corners are
+     * filled white. Nearest-neighbour sampling keeps edges crisp for the
+     * binarizer.
+     */
+    void rotate(float degrees) {
+        double radians = Math.toRadians(degrees);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+        double cx = (width - 1) / 2.0;
+        double cy = (height - 1) / 2.0;
+        byte[] out = scratch;
+
+        for (int y = 0; y < height; y++) {
+            double dy = y - cy;
+            // Source position of (x, y) is R(degrees) * (p - c) + c, stepped along the row.
+            double sx = -cx * cos - dy * sin + cx;
+            double sy = -cx * sin + dy * cos + cy;
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                int ix = (int) Math.round(sx);
+                int iy = (int) Math.round(sy);
+                out[offset + x] = ix >= 0 && ix < width && iy >= 0 && iy < height
+                    ? gray[iy * width + ix]
+                    : (byte) 255;
+                sx += cos;
+                sy += sin;
+            }
+        }
+        swapPlanes();
+    }
+
+    private void swapPlanes() {
+        byte[] previous = gray;
+        gray = scratch;
+        scratch = previous;
+    }
+}
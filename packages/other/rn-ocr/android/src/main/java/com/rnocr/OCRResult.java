@@ -0,0 +1,64 @@
+package com.rnocr;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable recognition result, detached from ML Kit so it can outlive the
+ * recognizer task and be marshalled to JS more than once.
+ *
+ * <p>{@link #blocks} are the top-level regions; each block's children are its
+ * lines and each line's children are its elements. Coordinates are in source
+ * image pixels.
+ */
+final class OCRResult {
+
+    static final int LEVEL_BLOCK = 0;
+    static final int LEVEL_LINE = 1;
+    static final int LEVEL_ELEMENT = 2;
+
+    final String text;
+    final List<Region> blocks;
+
+    OCRResult(String text, List<Region> blocks) {
+        this.text = text;
+        this.blocks = Collections.unmodifiableList(blocks);
+    }
+
+    static final class Region {
+        /** Confidence reported when the recognizer does not provide one. */
+        static final float UNKNOWN_CONFIDENCE = -1f;
+
+        final String text;
+        final int left;
+        final int top;
+        final int right;
+        final int bottom;
+        /** Four corner points as x0, y0 .. x3, y3, clockwise from top-left; null if unknown. */
+        final int[] corners;
+        final float confidence;
+        final List<Region> children;
+
+        Region(String text, int left, int top, int right, int bottom, int[] corners, float confidence,
+               List<Region> children) {
+            this.text = text;
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+            this.corners = corners;
+            this.confidence = confidence;
+            this.children = children != null
+                ? Collections.unmodifiableList(children)
+                : Collections.<Region>emptyList();
+        }
+
+        int width() {
+            return right - left;
+        }
+
+        int height() {
+            return bottom - top;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.rnocr;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of {@link OCRResult} used by the disk cache.
+ *
+ * <pre>
+ * int     magic ('RNOC')
+ * byte    version
+ * utf8    text (int length + bytes)
+ * regions blocks
+ *
+ * regions: int count, then per region
+ *   utf8 text, int left, int top, int right, int bottom,
+ *   byte hasCorners, [8 x int corners], float confidence, regions children
+ * </pre>
+ */
+final class OCRResultCodec {
+
+    private static final int MAGIC = 0x524E4F43;
+    private static final byte VERSION = 2;
+    /** Smallest encoded region: empty text, box, no corners, confidence, no children. */
+    private static final int MIN_REGION_BYTES = 4 + 16 + 1 + 4 + 4;
+
+    private OCRResultCodec() {
+    }
+
+    static byte[] encode(OCRResult result) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + result.text.length() * 2);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeString(out, result.text);
+        writeRegions(out, result.blocks);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return the decoded result, or null if the bytes were written by an
+     *     incompatible format version
+     * @throws IOException if the bytes are truncated or a length or count is
+     *     out of range
+     */
+    static OCRResult decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+            return null;
+        }
+        String text = readString(in);
+        return new OCRResult(text, readRegions(in));
+    }
+
+    /** Rough heap footprint of a decoded result, used to bound the memory tier. */
+    static int estimateSize(OCRResult result) {
+        return 64 + result.text.length() * 2 + estimateSize(result.blocks);
+    }
+
+    private static int estimateSize(List<OCRResult.Region> regions) {
+        int size = 0;
+        for (OCRResult.Region region : regions) {
+            size += 96 + region.text.length() * 2 + estimateSize(region.children);
+        }
+        return size;
+    }
+
+    private static void writeRegions(DataOutputStream out, List<OCRResult.Region> regions) throws IOException {
+        out.writeInt(regions.size());
+        for (OCRResult.Region region : regions) {
+            writeString(out, region.text);
+            out.writeInt(region.left);
+            out.writeInt(region.top);
+            out.writeInt(region.right);
+            out.writeInt(region.bottom);
+            out.writeBoolean(region.corners != null);
+            if (region.corners != null) {
+                for (int coordinate : region.corners) {
+                    out.writeInt(coordinate);
+                }
+            }
+            out.writeFloat(region.confidence);
+            writeRegions(out, region.children);
+        }
+    }
+
+    private static List<OCRResult.Region> readRegions(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > in.available() / MIN_REGION_BYTES) {
+            throw new IOException("Corrupt region count " + count);
+        }
+        List<OCRResult.Region> regions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String text = readString(in);
+            int left = in.readInt();
+            int top = in.readInt();
+            int right = in.readInt();
+            int bottom = in.readInt();
+            int[] corners = null;
+            if (in.readBoolean()) {
+                corners = new int[8];
+                for (int c = 0; c < corners.length; c++) {
+                    corners[c] = in.readInt();
+                }
+            }
+            float confidence = in.readFloat();
+            regions.add(new OCRResult.Region(text, left, top, right, bottom, corners, confidence, readRegions(in)));
+        }
+        return regions;
+    }
+
+    // DataOutputStream.writeUTF caps strings at 64 KB, which dense pages exceed.
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Corrupt string length " + length);
+        }
+        byte[] utf8 = new byte[length];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
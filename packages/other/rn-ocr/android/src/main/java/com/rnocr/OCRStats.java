@@ -0,0 +1,128 @@
+package com.rnocr;
+
+import java.util.Arrays;
+
+/**
+ * Rolling per-stage latency windows and call counters for the module.
+ *
+ * <p>Each stage keeps its last {@link #WINDOW} samples in a ring buffer;
+ * percentiles are computed on demand from a sorted copy, so recording stays
+ * O(1) and allocation-free on the hot path.
+ */
+final class OCRStats {
+
+    static final int RESOLVE = 0;
+    static final int CACHE = 1;
+    static final int DECODE = 2;
+    static final int PREPROCESS = 3;
+    static final int INFERENCE = 4;
+    static final int MARSHAL = 5;
+    static final int TOTAL = 6;
+    static final String[] STAGE_NAMES = {"resolve", "cache", "decode", "preprocess", "inference", "marshal", "total"};
+
+    private static final int WINDOW = 256;
+
+    /** Stage durations of a single request, in nanoseconds. Safe to add to from several threads. */
+    static final class Timings {
+        private final long[] nanos = new long[STAGE_NAMES.length];
+
+        synchronized void add(int stage, long elapsed) {
+            nanos[stage] += elapsed;
+        }
+
+        synchronized long get(int stage) {
+            return nanos[stage];
+        }
+    }
+
+    /** Percentiles of one stage over the current window, in nanoseconds. */
+    static final class StageSummary {
+        final int count;
+        final long p50;
+        final long p95;
+        final long p99;
+        final long max;
+
+        StageSummary(int count, long p50, long p95, long p99, long max) {
+            this.count = count;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+            this.max = max;
+        }
+    }
+
+    private final long[][] windows = new long[STAGE_NAMES.length][WINDOW];
+    private final int[] sizes = new int[STAGE_NAMES.length];
+    private final int[] cursors = new int[STAGE_NAMES.length];
+    private long calls;
+    private long failures;
+    private long cancelled;
+    private long bytesDecoded;
+
+    synchronized void record(int stage, long elapsedNanos) {
+        windows[stage][cursors[stage]] = elapsedNanos;
+        cursors[stage] = (cursors[stage] + 1) % WINDOW;
+        if (sizes[stage] < WINDOW) {
+            sizes[stage]++;
+        }
+    }
+
+    /** Counts one recognized image (single call, batch item or PDF page). */
+    synchronized void recordCall(boolean succeeded) {
+        calls++;
+        if (!succeeded) {
+            failures++;
+        }
+    }
+
+    synchronized void recordCancelled() {
+        cancelled++;
+    }
+
+    synchronized void addBytesDecoded(long bytes) {
+        bytesDecoded += bytes;
+    }
+
+    synchronized long getCalls() {
+        return calls;
+    }
+
+    synchronized long getFailures() {
+        return failures;
+    }
+
+    synchronized long getCancelled() {
+        return cancelled;
+    }
+
+    synchronized long getBytesDecoded() {
+        return bytesDecoded;
+    }
+
+    synchronized StageSummary summarize(int stage) {
+        int size = sizes[stage];
+        if (size == 0) {
+            return new StageSummary(0, 0, 0, 0, 0);
+        }
+        long[] sorted = Arrays.copyOf(windows[stage], size);
+        Arrays.sort(sorted);
+        return new StageSummary(size, percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99),
+            sorted[size - 1]);
+    }
+
+    synchronized void reset() {
+        Arrays.fill(sizes, 0);
+        Arrays.fill(cursors, 0);
+        calls = 0;
+        failures = 0;
+        cancelled = 0;
+        bytesDecoded = 0;
+    }
+
+    /** Nearest-rank percentile of an ascending array. */
+    static long percentile(long[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+}
@@ -0,0 +1,265 @@
+package com.rnocr;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.pdf.PdfRenderer;
+import android.os.ParcelFileDescriptor;
+
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.text.TextRecognizer;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Renders the pages of a PDF with {@link PdfRenderer} and recognizes them one
+ * after another, overlapping the rendering of page {@code n + 1} with the
+ * recognition of page {@code n}.
+ *
+ * <p>Pages are rendered into a fixed set of {@link #BUFFERS} bitmaps that are
+ * reconfigured in place for each page, so memory does not grow with the page
+ * count. {@link PdfRenderer} allows a single open page at a time, which the
+ * pipeline guarantees by never having more than one render in flight.
+ */
+final class PdfPipeline {
+
+    static final int DEFAULT_DPI = 200;
+    private static final int POINTS_PER_INCH = 72;
+    private static final int BUFFERS = 2;
+
+    interface PageCache {
+        /** Returns a known result for the page, or null to render and recognize it. */
+        OCRResult lookup(int page);
+
+        void store(int page, OCRResult result);
+    }
+
+    interface Listener {
+        void onPageComplete(int page, OCRResult result, String errorCode, String errorMessage,
+                            int completed, int total);
+
+        void onComplete(boolean cancelled);
+    }
+
+    private final ParcelFileDescriptor descriptor;
+    private final PdfRenderer renderer;
+    private final int pageCount;
+    private final int dpi;
+    private final int maxDimension;
+    private final TextRecognizer recognizer;
+    private final Executor executor;
+    private final PageCache cache;
+    private final Listener listener;
+    private final StageTracer tracer;
+
+    private final ArrayDeque<Bitmap> freeBuffers = new ArrayDeque<>();
+    private int allocatedBuffers;
+    private int nextPage;
+    private boolean rendering;
+    private int completed;
+    private int reported;
+    private boolean cancelled;
+    private boolean finished;
+
+    /**
+     * @param maxDimension longest side a page is rendered at, or 0 for no
+     *     limit; results are still reported in pixels at {@code dpi}
+     */
+    PdfPipeline(ParcelFileDescriptor descriptor, int dpi, int maxDimension, TextRecognizer recognizer,
+                Executor executor, PageCache cache, StageTracer tracer, Listener listener) throws IOException {
+        this.descriptor = descriptor;
+        this.renderer = new PdfRenderer(descriptor);
+        this.pageCount = renderer.getPageCount();
+        this.dpi = dpi > 0 ? dpi : DEFAULT_DPI;
+        this.maxDimension = maxDimension;
+        this.recognizer = recognizer;
+        this.executor = executor;
+        this.cache = cache;
+        this.listener = listener;
+        this.tracer = tracer;
+    }
+
+    int getPageCount() {
+        return pageCount;
+    }
+
+    void start() {
+        pump();
+    }
+
+    /**
+     * Stops rendering new pages. Pages already handed to the recognizer finish
+     * first, then {@link Listener#onComplete} reports the cancellation.
+     */
+    void cancel() {
+        synchronized (this) {
+            cancelled = true;
+        }
+        pump();
+    }
+
+    private void pump() {
+        int page = -1;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            if (cancelled || nextPage >= pageCount) {
+                if (reported < nextPage) {
+                    return;
+                }
+                finished = true;
+            } else if (rendering || (freeBuffers.isEmpty() && allocatedBuffers >= BUFFERS)) {
+                return;
+            } else {
+                page = nextPage++;
+                rendering = true;
+            }
+        }
+
+        if (page < 0) {
+            executor.execute(this::close);
+        } else {
+            int next = page;
+            executor.execute(() -> render(next));
+        }
+    }
+
+    private void render(int page) {
+        OCRResult known = cache != null ? cache.lookup(page) : null;
+        if (known != null) {
+            synchronized (this) {
+                rendering = false;
+            }
+            finishPage(page, known, null, null);
+            return;
+        }
+
+        Bitmap buffer = null;
+        int pageWidth;
+        int pageHeight;
+        // Rendering is this pipeline's decode stage.
+        long decodeStart = tracer.begin(OCRStats.DECODE);
+        try (PdfRenderer.Page pdfPage = renderer.openPage(page)) {
+            pageWidth = Math.round(pdfPage.getWidth() * (float) dpi / POINTS_PER_INCH);
+            pageHeight = Math.round(pdfPage.getHeight() * (float) dpi / POINTS_PER_INCH);
+            float fit = 1f;
+            int longest = Math.max(pageWidth, pageHeight);
+            if (maxDimension > 0 && longest > maxDimension) {
+                fit = (float) maxDimension / longest;
+            }
+            int width = Math.max(1, Math.round(pageWidth * fit));
+            int height = Math.max(1, Math.round(pageHeight * fit));
+
+            buffer = acquireBuffer(width, height);
+            // PDF pages are transparent by default; text on transparent black is invisible to ML Kit.
+            buffer.eraseColor(Color.WHITE);
+            Matrix transform = new Matrix();
+            transform.setScale((float) width / pdfPage.getWidth(), (float) height / pdfPage.getHeight());
+            pdfPage.render(buffer, null, transform, PdfRenderer.Page.RENDER_MODE_FOR_DISPLAY);
+            tracer.getStats().addBytesDecoded(buffer.getByteCount());
+        } catch (Exception e) {
+            tracer.end(OCRStats.DECODE, decodeStart, null);
+            synchronized (this) {
+                rendering = false;
+                if (buffer != null) {
+                    freeBuffers.addLast(buffer);
+                }
+            }
+            finishPage(page, null, "INVALID_PDF", e.getMessage());
+            return;
+        }
+
+        tracer.end(OCRStats.DECODE, decodeStart, null);
+        synchronized (this) {
+            rendering = false;
+        }
+        // Start rendering the next page while this one is being recognized.
+        pump();
+        recognize(page, new BitmapDecoder.Decoded(buffer, pageWidth, pageHeight));
+    }
+
+    private void recognize(int page, BitmapDecoder.Decoded decoded) {
+        try {
+            InputImage image = InputImage.fromBitmap(decoded.bitmap, 0);
+            StageTracer.Span inference = tracer.beginAsync(OCRStats.INFERENCE);
+            recognizer.process(image).addOnCompleteListener(executor, task -> {
+                tracer.endAsync(inference, null);
+                OCRResult result = null;
+                if (task.isSuccessful()) {
+                    long marshal = tracer.begin(OCRStats.MARSHAL);
+                    result = TextMapper.fromText(task.getResult(), decoded);
+                    tracer.end(OCRStats.MARSHAL, marshal, null);
+                }
+                releaseBuffer(decoded.bitmap);
+                if (result != null) {
+                    if (cache != null) {
+                        cache.store(page, result);
+                    }
+                    finishPage(page, result, null, null);
+                } else {
+                    Exception e = task.getException();
+                    finishPage(page, null, "RECOGNITION_FAILED", e != null ? e.getMessage() : null);
+                }
+            });
+        } catch (Exception e) {
+            releaseBuffer(decoded.bitmap);
+            finishPage(page, null, "UNKNOWN", e.getMessage());
+        }
+    }
+
+    private synchronized Bitmap acquireBuffer(int width, int height) {
+        Bitmap buffer = freeBuffers.pollFirst();
+        if (buffer != null) {
+            long needed = (long) width * height * BitmapPool.bytesPerPixel(Bitmap.Config.ARGB_8888);
+            if (buffer.getAllocationByteCount() >= needed) {
+                buffer.reconfigure(width, height, Bitmap.Config.ARGB_8888);
+                return buffer;
+            }
+            buffer.recycle();
+            allocatedBuffers--;
+        }
+        // PdfRenderer only renders into ARGB_8888 bitmaps.
+        allocatedBuffers++;
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    private void releaseBuffer(Bitmap buffer) {
+        synchronized (this) {
+            freeBuffers.addLast(buffer);
+        }
+    }
+
+    private void finishPage(int page, OCRResult result, String errorCode, String errorMessage) {
+        int done;
+        synchronized (this) {
+            done = ++completed;
+        }
+        listener.onPageComplete(page, result, errorCode, errorMessage, done, pageCount);
+        // Counted after the listener so the document is never reported complete
+        // before its last page event has been delivered.
+        synchronized (this) {
+            reported++;
+        }
+        pump();
+    }
+
+    private void close() {
+        boolean wasCancelled;
+        synchronized (this) {
+            wasCancelled = cancelled && completed < pageCount;
+            for (Bitmap buffer : freeBuffers) {
+                buffer.recycle();
+            }
+            freeBuffers.clear();
+        }
+        renderer.close();
+        try {
+            descriptor.close();
+        } catch (IOException ignored) {
+        }
+        listener.onComplete(wasCancelled);
+    }
+}
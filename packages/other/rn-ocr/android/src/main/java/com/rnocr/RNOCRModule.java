@@ -1,11 +1,25 @@
 package com.rnocr;
 
 import android.Manifest;
+import android.content.ComponentCallbacks2;
+import android.content.ContentResolver;
 import android.content.pm.PackageManager;
+import android.content.res.Configuration;
+import android.database.sqlite.SQLiteException;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Color;
+import android.graphics.Rect;
+import android.media.MediaMetadataRetriever;
 import android.net.Uri;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.os.SystemClock;
 import android.util.Base64;
+import android.util.Base64InputStream;
 
 import androidx.core.content.ContextCompat;
 
@@ -14,29 +28,113 @@ import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.blob.BlobModule;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 
 import com.google.mlkit.vision.common.InputImage;
-import com.google.mlkit.vision.text.Text;
-import com.google.mlkit.vision.text.TextRecognition;
 import com.google.mlkit.vision.text.TextRecognizer;
-import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RNOCRModule extends ReactContextBaseJavaModule {
 
+    private static final long BITMAP_POOL_MAX_BYTES = 24L * 1024 * 1024;
+    private static final int DECODE_THREADS =
+        Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 4));
+    private static final int DEFAULT_BATCH_CONCURRENCY = 2;
+    private static final long RESULT_CACHE_MEMORY_BYTES = 2L * 1024 * 1024;
+    private static final long RESULT_CACHE_DISK_BYTES = 20L * 1024 * 1024;
+    private static final int MAX_RECOGNIZERS = 2;
+    private static final int WARM_UP_SIZE = 32;
+    private static final long RECOGNIZER_IDLE_MS = 60_000L;
+
     private final ReactApplicationContext reactContext;
-    private TextRecognizer textRecognizer;
+    private final RecognizerPool recognizerPool = new RecognizerPool(MAX_RECOGNIZERS, RECOGNIZER_IDLE_MS);
+    private final Handler idleHandler = new Handler(Looper.getMainLooper());
+    private final Runnable trimRecognizers = this::trimRecognizers;
+    private final BitmapPool bitmapPool;
+    private final BitmapDecoder bitmapDecoder;
+    private final ThreadPoolExecutor decodeExecutor;
+    /** Serializes index writes, and searches behind them, off the decode threads. */
+    private final ThreadPoolExecutor indexExecutor;
+    private TextIndex textIndex;
+    private final ResultCache resultCache;
+    private final AtomicInteger batchCounter = new AtomicInteger();
+    private final AtomicInteger pdfCounter = new AtomicInteger();
+    private final AtomicInteger videoCounter = new AtomicInteger();
+    private final AtomicInteger requestCounter = new AtomicInteger();
+    private final ConcurrentMap<String, RecognitionRequest> requests = new ConcurrentHashMap<>();
+    private final ArrayDeque<ImagePreprocessor> preprocessors = new ArrayDeque<>();
+    private final OCRStats stats = new OCRStats();
+    private final StageTracer tracer = new StageTracer(stats);
+    private volatile int lastTrimLevel;
+    private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            trimMemory(level);
+        }
+
+        @Override
+        public void onLowMemory() {
+            trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+    };
 
     public RNOCRModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.reactContext = reactContext;
-        this.textRecognizer = TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS);
+        long poolBytes = Math.min(BITMAP_POOL_MAX_BYTES, Runtime.getRuntime().maxMemory() / 8);
+        this.bitmapPool = new BitmapPool(poolBytes);
+        this.bitmapDecoder = new BitmapDecoder(bitmapPool);
+        this.decodeExecutor = createExecutor(DECODE_THREADS, "RNOCR-decode-");
+        this.indexExecutor = createExecutor(1, "RNOCR-index-");
+        this.resultCache = new ResultCache(
+            new File(reactContext.getCacheDir(), "rnocr-results"),
+            RESULT_CACHE_MEMORY_BYTES,
+            RESULT_CACHE_DISK_BYTES
+        );
+        reactContext.registerComponentCallbacks(memoryCallbacks);
+    }
+
+    private static ThreadPoolExecutor createExecutor(int threads, String namePrefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            30L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            }
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     @Override
@@ -66,43 +164,1329 @@ public class RNOCRModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void recognizeText(String imageUri, ReadableMap options, Promise promise) {
+        recognize(imageUri, () -> openSource(imageUri), fileFor(imageUri), options, promise);
+    }
+
+    /**
+     * Recognizes an image that is already in memory, such as a file cache
+     * entry read by other native code. The array is read in place, without
+     * base64 or an extra copy, and must not be modified until the promise
+     * settles. Obtain the module with
+     * {@code reactContext.getNativeModule(RNOCRModule.class)}.
+     */
+    public void recognizeBytes(byte[] data, int offset, int length, ReadableMap options, Promise promise) {
+        BitmapDecoder.Source source = () -> new ByteArrayInputStream(data, offset, length);
+        recognize("bytes:" + length, () -> source, null, options, promise);
+    }
+
+    /**
+     * Recognizes a JS {@code Blob} (from {@code fetch().blob()} or a file
+     * picker) through React Native's blob store, so the bytes never pass
+     * through base64 or the bridge.
+     */
+    @ReactMethod
+    public void recognizeBlob(ReadableMap blob, ReadableMap options, Promise promise) {
+        String blobId = blob.getString("blobId");
+        int offset = blob.hasKey("offset") ? blob.getInt("offset") : 0;
+        int size = blob.hasKey("size") ? blob.getInt("size") : -1;
+        recognize("blob:" + blobId, () -> {
+            BlobModule blobs = reactContext.getNativeModule(BlobModule.class);
+            byte[] data = blobs != null ? blobs.resolve(blobId, offset, size) : null;
+            return data != null ? () -> new ByteArrayInputStream(data) : null;
+        }, null, options, promise);
+    }
+
+    private interface SourceResolver {
+        /** Returns the image to recognize, or null if it cannot be opened. */
+        BitmapDecoder.Source resolve() throws IOException;
+    }
+
+    private void recognize(String label, SourceResolver resolver, File file, ReadableMap options,
+                           Promise promise) {
+        RecognitionOptions recognitionOptions = RecognitionOptions.from(options);
+        if (!RecognizerPool.isSupported(recognitionOptions.script)) {
+            promise.reject("NOT_AVAILABLE", "Unsupported script: " + recognitionOptions.script);
+            return;
+        }
+        RecognitionRequest request = register(
+            requestIdFrom(options, "requestId"),
+            "ocr-" + requestCounter.incrementAndGet(),
+            promise
+        );
+        if (request == null) {
+            return;
+        }
+        OCRStats.Timings timings = new OCRStats.Timings();
+        long totalStart = System.nanoTime();
+
+        Runnable task = () -> {
+            try {
+                if (request.isCancelled()) {
+                    cancelCall(request);
+                    return;
+                }
+                long stage = tracer.begin(OCRStats.RESOLVE);
+                BitmapDecoder.Source source;
+                try {
+                    source = resolver.resolve();
+                } finally {
+                    tracer.end(OCRStats.RESOLVE, stage, timings);
+                }
+                if (source == null) {
+                    finishCall(timings, totalStart, false);
+                    request.reject("NO_IMAGE", "Failed to load image from URI: " + label);
+                    return;
+                }
+
+                String cacheKey = null;
+                if (recognitionOptions.useCache) {
+                    stage = tracer.begin(OCRStats.CACHE);
+                    OCRResult cached;
+                    try {
+                        cacheKey = resultCache.keyFor(source, file, recognitionOptions.cacheKey());
+                        cached = resultCache.get(cacheKey);
+                    } finally {
+                        tracer.end(OCRStats.CACHE, stage, timings);
+                    }
+                    if (cached != null) {
+                        if (recognitionOptions.index) {
+                            indexResult(label, TextIndex.NO_PAGE, cached);
+                        }
+                        request.resolve(buildResultMap(cached, recognitionOptions, null, request, timings, totalStart));
+                        return;
+                    }
+                }
+
+                String key = cacheKey;
+                recognizeSource(label, source, recognitionOptions, request, timings, new ResultCallback() {
+                    @Override
+                    public void onResult(OCRResult result, ImagePreprocessor.Report preprocessing) {
+                        if (key != null) {
+                            resultCache.put(key, result);
+                        }
+                        if (recognitionOptions.index) {
+                            indexResult(label, TextIndex.NO_PAGE, result);
+                        }
+                        if (request.isCancelled()) {
+                            cancelCall(request);
+                            return;
+                        }
+                        request.resolve(
+                            buildResultMap(result, recognitionOptions, preprocessing, request, timings, totalStart));
+                    }
+
+                    @Override
+                    public void onError(String code, String message) {
+                        if (RecognitionRequest.CANCELLED.equals(code)) {
+                            cancelCall(request);
+                            return;
+                        }
+                        finishCall(timings, totalStart, false);
+                        request.reject(code, message);
+                    }
+                });
+            } catch (Exception e) {
+                finishCall(timings, totalStart, false);
+                request.reject("UNKNOWN", e.getMessage());
+            }
+        };
+        // A call still waiting for a decode thread is dropped from the queue outright.
+        request.onCancel(() -> {
+            if (decodeExecutor.remove(task)) {
+                cancelCall(request);
+            }
+        });
+        decodeExecutor.execute(task);
+    }
+
+    /** Reads the caller's id for a call from {@code key}, falling back to {@code requestId}. */
+    private static String requestIdFrom(ReadableMap options, String key) {
+        if (options == null) {
+            return null;
+        }
+        if (options.hasKey(key) && !options.isNull(key)) {
+            return options.getString(key);
+        }
+        return options.hasKey("requestId") && !options.isNull("requestId") ? options.getString("requestId") : null;
+    }
+
+    /**
+     * Registers a call under the caller's id or {@code fallbackId}. Rejects
+     * {@code promise} with {@code DUPLICATE_ID} and returns null when a call
+     * with that id is still in flight, so the earlier one stays cancellable.
+     */
+    private RecognitionRequest register(String requestedId, String fallbackId, Promise promise) {
+        String id = requestedId != null ? requestedId : fallbackId;
+        RecognitionRequest request = new RecognitionRequest(id, promise, requests);
+        if (requests.putIfAbsent(id, request) != null) {
+            promise.reject("DUPLICATE_ID", "A recognition with id " + id + " is already in progress");
+            return null;
+        }
+        return request;
+    }
+
+    private void cancelCall(RecognitionRequest request) {
+        stats.recordCancelled();
+        request.rejectCancelled();
+    }
+
+    private WritableMap buildResultMap(OCRResult result, RecognitionOptions options,
+                                       ImagePreprocessor.Report preprocessing, RecognitionRequest request,
+                                       OCRStats.Timings timings, long totalStart) {
+        long stage = tracer.begin(OCRStats.MARSHAL);
+        WritableMap resultMap;
         try {
-            Bitmap bitmap = loadBitmapFromUri(imageUri);
-            if (bitmap == null) {
-                promise.reject("NO_IMAGE", "Failed to load image from URI: " + imageUri);
+            resultMap = TextMapper.toMap(result, options.granularity);
+            if (preprocessing != null) {
+                resultMap.putMap("preprocessing", buildPreprocessingMap(preprocessing));
+            }
+        } finally {
+            tracer.end(OCRStats.MARSHAL, stage, timings);
+        }
+        finishCall(timings, totalStart, true);
+        resultMap.putMap("timings", buildTimingsMap(timings));
+        resultMap.putString("requestId", request.id);
+        return resultMap;
+    }
+
+    private void finishCall(OCRStats.Timings timings, long totalStart, boolean succeeded) {
+        tracer.record(OCRStats.TOTAL, System.nanoTime() - totalStart, timings);
+        stats.recordCall(succeeded);
+    }
+
+    private interface ResultCallback {
+        /** @param preprocessing per-step cost, or null when no preprocessing ran */
+        void onResult(OCRResult result, ImagePreprocessor.Report preprocessing);
+
+        void onError(String code, String message);
+    }
+
+    private void recognizeSource(String imageUri, BitmapDecoder.Source source, RecognitionOptions options,
+                                 RecognitionRequest request, OCRStats.Timings timings, ResultCallback callback)
+        throws IOException {
+        if (options.tileSize <= 0) {
+            BitmapDecoder.Decoded decoded = decodeSource(source, options, timings);
+            if (decoded == null) {
+                callback.onError("NO_IMAGE", "Failed to load image from URI: " + imageUri);
                 return;
             }
+            recognizeBitmap(decoded, options.script, request, timings, callback);
+            return;
+        }
 
-            InputImage image = InputImage.fromBitmap(bitmap, 0);
-            
-            textRecognizer.process(image)
-                .addOnSuccessListener(result -> {
-                    String recognizedText = result.getText();
-                    WritableMap resultMap = Arguments.createMap();
-                    resultMap.putString("text", recognizedText);
-                    
-                    if (result.getTextBlocks().size() > 0) {
-                        Text.TextBlock firstBlock = result.getTextBlocks().get(0);
-                        WritableMap boundingBox = Arguments.createMap();
-                        boundingBox.putInt("x", firstBlock.getBoundingBox().left);
-                        boundingBox.putInt("y", firstBlock.getBoundingBox().top);
-                        boundingBox.putInt("width", firstBlock.getBoundingBox().width());
-                        boundingBox.putInt("height", firstBlock.getBoundingBox().height());
-                        resultMap.putMap("boundingBox", boundingBox);
-                    }
-                    
-                    promise.resolve(resultMap);
-                })
-                .addOnFailureListener(e -> {
-                    promise.reject("RECOGNITION_FAILED", e.getMessage());
-                });
+        BitmapFactory.Options bounds = BitmapDecoder.readBounds(source);
+        Rect area = bounds != null ? new Rect(0, 0, bounds.outWidth, bounds.outHeight) : null;
+        if (area == null || (options.region != null && !area.intersect(options.region))) {
+            callback.onError("NO_IMAGE", "Failed to load image from URI: " + imageUri);
+            return;
+        }
+        BitmapRegionDecoder regionDecoder = BitmapDecoder.openRegionDecoder(source);
+        if (regionDecoder == null) {
+            callback.onError("NO_IMAGE", "Failed to load image from URI: " + imageUri);
+            return;
+        }
+
+        Bitmap.Config config = BitmapDecoder.configFor(bounds.outMimeType);
+        recognizeTiles(imageUri, regionDecoder, area, config, options, request, timings, callback);
+    }
+
+    private void recognizeBitmap(BitmapDecoder.Decoded decoded, String script, RecognitionRequest request,
+                                 OCRStats.Timings timings, ResultCallback callback) {
+        if (request.isCancelled()) {
+            bitmapDecoder.release(decoded.bitmap);
+            callback.onError(RecognitionRequest.CANCELLED, null);
+            return;
+        }
+        TextRecognizer recognizer = recognizerPool.acquire(script);
+        try {
+            InputImage image = InputImage.fromBitmap(decoded.bitmap, 0);
+            StageTracer.Span inference = tracer.beginAsync(OCRStats.INFERENCE);
+            recognizer.process(image).addOnCompleteListener(decodeExecutor, task -> {
+                tracer.endAsync(inference, timings);
+                bitmapDecoder.release(decoded.bitmap);
+                releaseRecognizer(script);
+                if (task.isSuccessful()) {
+                    long stage = tracer.begin(OCRStats.MARSHAL);
+                    OCRResult result;
+                    try {
+                        result = TextMapper.fromText(task.getResult(), decoded);
+                    } finally {
+                        tracer.end(OCRStats.MARSHAL, stage, timings);
+                    }
+                    callback.onResult(result, decoded.preprocessing);
+                } else {
+                    Exception e = task.getException();
+                    callback.onError("RECOGNITION_FAILED", e != null ? e.getMessage() : null);
+                }
+            });
+        } catch (RuntimeException e) {
+            bitmapDecoder.release(decoded.bitmap);
+            releaseRecognizer(script);
+            callback.onError("UNKNOWN", e.getMessage());
+        }
+    }
+
+    /**
+     * Splits {@code area} into overlapping tiles that are decoded at (up to)
+     * full resolution and recognized in parallel, then merges them back into
+     * page coordinates with duplicate blocks along the seams removed.
+     */
+    private void recognizeTiles(String imageUri, BitmapRegionDecoder regionDecoder, Rect area,
+                                Bitmap.Config config, RecognitionOptions options, RecognitionRequest request,
+                                OCRStats.Timings timings, ResultCallback callback) {
+        List<int[]> tiles = TileMerger.grid(area.left, area.top, area.right, area.bottom,
+            options.tileSize, Math.min(options.tileOverlap, options.tileSize / 2));
+        List<String> labels = new ArrayList<>(tiles.size());
+        for (int i = 0; i < tiles.size(); i++) {
+            labels.add(imageUri + "#tile-" + i);
+        }
+
+        OCRResult[] tileResults = new OCRResult[tiles.size()];
+        String[] firstError = new String[2];
+        TextRecognizer recognizer = recognizerPool.acquire(options.script);
+
+        BatchPipeline pipeline = new BatchPipeline(
+            labels,
+            new BatchPipeline.ItemHandler() {
+                @Override
+                public OCRResult lookup(int index, String label) {
+                    return null;
+                }
+
+                @Override
+                public BitmapDecoder.Decoded load(int index, String label) {
+                    int[] tile = tiles.get(index);
+                    Rect rect = new Rect(tile[0], tile[1], tile[2], tile[3]);
+                    long stage = tracer.begin(OCRStats.DECODE);
+                    BitmapDecoder.Decoded decoded;
+                    try {
+                        decoded = bitmapDecoder.decodeRegion(regionDecoder, rect, config, options.maxDimension);
+                    } finally {
+                        tracer.end(OCRStats.DECODE, stage, timings);
+                    }
+                    if (decoded != null) {
+                        stats.addBytesDecoded(decoded.bitmap.getByteCount());
+                    }
+                    return preprocess(decoded, options, timings);
+                }
+
+                @Override
+                public void store(int index, OCRResult result) {
+                }
+            },
+            bitmapDecoder,
+            recognizer,
+            decodeExecutor,
+            decodeExecutor,
+            DEFAULT_BATCH_CONCURRENCY,
+            DECODE_THREADS,
+            tracer,
+            timings,
+            new BatchPipeline.Listener() {
+                @Override
+                public void onItemComplete(int index, String label, OCRResult result, String errorCode,
+                                           String errorMessage, int completed, int total) {
+                    tileResults[index] = result;
+                    if (result == null) {
+                        synchronized (firstError) {
+                            if (firstError[0] == null) {
+                                firstError[0] = errorCode;
+                                firstError[1] = errorMessage;
+                            }
+                        }
+                    }
+                }
+
+                @Override
+                public void onBatchComplete() {
+                    regionDecoder.recycle();
+                    releaseRecognizer(options.script);
+                    if (request.isCancelled()) {
+                        callback.onError(RecognitionRequest.CANCELLED, null);
+                        return;
+                    }
+                    List<OCRResult> recognized = new ArrayList<>(tileResults.length);
+                    for (OCRResult result : tileResults) {
+                        if (result != null) {
+                            recognized.add(result);
+                        }
+                    }
+                    if (recognized.isEmpty() && firstError[0] != null) {
+                        callback.onError(firstError[0], firstError[1]);
+                        return;
+                    }
+                    callback.onResult(TileMerger.merge(recognized), null);
+                }
+            }
+        );
+        request.onCancel(pipeline::cancel);
+        pipeline.start();
+    }
+
+    @ReactMethod
+    public void recognizeTextBatch(ReadableArray imageUris, ReadableMap options, Promise promise) {
+        List<String> uris = new ArrayList<>(imageUris.size());
+        for (int i = 0; i < imageUris.size(); i++) {
+            uris.add(imageUris.getString(i));
+        }
+
+        RecognitionOptions recognitionOptions = RecognitionOptions.from(options);
+        if (!RecognizerPool.isSupported(recognitionOptions.script)) {
+            promise.reject("NOT_AVAILABLE", "Unsupported script: " + recognitionOptions.script);
+            return;
+        }
+        int granularity = recognitionOptions.granularity;
+        int concurrency = options != null && options.hasKey("concurrency")
+            ? Math.max(1, options.getInt("concurrency"))
+            : DEFAULT_BATCH_CONCURRENCY;
+        boolean includeResults = options == null || !options.hasKey("includeResults")
+            || options.getBoolean("includeResults");
+        RecognitionRequest request = register(
+            requestIdFrom(options, "batchId"),
+            "batch-" + batchCounter.incrementAndGet(),
+            promise
+        );
+        if (request == null) {
+            return;
+        }
+        String batchId = request.id;
+
+        boolean useCache = recognitionOptions.useCache;
+        String optionsKey = recognitionOptions.cacheKey();
+        String[] cacheKeys = new String[uris.size()];
+        OCRResult[] results = new OCRResult[uris.size()];
+        String[][] errors = new String[uris.size()][];
+        AtomicInteger succeeded = new AtomicInteger();
+        long startedAt = SystemClock.elapsedRealtime();
+        TextRecognizer recognizer = recognizerPool.acquire(recognitionOptions.script);
+
+        BatchPipeline pipeline = new BatchPipeline(
+            uris,
+            new BatchPipeline.ItemHandler() {
+                @Override
+                public OCRResult lookup(int index, String uri) throws Exception {
+                    if (!useCache) {
+                        return null;
+                    }
+                    BitmapDecoder.Source source = openSource(uri);
+                    if (source == null) {
+                        return null;
+                    }
+                    cacheKeys[index] = resultCache.keyFor(source, fileFor(uri), optionsKey);
+                    return resultCache.get(cacheKeys[index]);
+                }
+
+                @Override
+                public BitmapDecoder.Decoded load(int index, String uri) throws Exception {
+                    return loadBitmapFromUri(uri, recognitionOptions);
+                }
+
+                @Override
+                public void store(int index, OCRResult result) {
+                    if (cacheKeys[index] != null) {
+                        resultCache.put(cacheKeys[index], result);
+                    }
+                }
+            },
+            bitmapDecoder,
+            recognizer,
+            decodeExecutor,
+            decodeExecutor,
+            concurrency,
+            DECODE_THREADS,
+            tracer,
+            null,
+            new BatchPipeline.Listener() {
+                @Override
+                public void onItemComplete(int index, String uri, OCRResult result, String errorCode,
+                                           String errorMessage, int completed, int total) {
+                    if (!RecognitionRequest.CANCELLED.equals(errorCode)) {
+                        stats.recordCall(result != null);
+                    }
+                    if (result != null) {
+                        succeeded.incrementAndGet();
+                        if (recognitionOptions.index) {
+                            indexResult(uri, TextIndex.NO_PAGE, result);
+                        }
+                    } else {
+                        errors[index] = new String[]{errorCode, errorMessage};
+                    }
+                    if (includeResults) {
+                        results[index] = result;
+                    }
+
+                    WritableMap event = Arguments.createMap();
+                    event.putString("batchId", batchId);
+                    event.putInt("completed", completed);
+                    event.putInt("total", total);
+                    event.putMap("item", buildBatchItem(index, uri, result, errors[index], granularity));
+                    sendEvent("onBatchProgress", event);
+                }
+
+                @Override
+                public void onBatchComplete() {
+                    releaseRecognizer(recognitionOptions.script);
+                    if (request.isCancelled()) {
+                        cancelCall(request);
+                        return;
+                    }
+                    WritableArray items = Arguments.createArray();
+                    if (includeResults) {
+                        for (int i = 0; i < results.length; i++) {
+                            items.pushMap(buildBatchItem(i, uris.get(i), results[i], errors[i], granularity));
+                        }
+                    }
+
+                    WritableMap aggregate = Arguments.createMap();
+                    aggregate.putString("batchId", batchId);
+                    aggregate.putInt("total", results.length);
+                    aggregate.putInt("succeeded", succeeded.get());
+                    aggregate.putInt("failed", results.length - succeeded.get());
+                    aggregate.putDouble("durationMs", SystemClock.elapsedRealtime() - startedAt);
+                    aggregate.putArray("results", items);
+                    request.resolve(aggregate);
+                }
+            }
+        );
+        request.onCancel(pipeline::cancel);
+        pipeline.start();
+    }
+
+    private static WritableMap buildBatchItem(int index, String uri, OCRResult result, String[] error,
+                                              int granularity) {
+        WritableMap item = result != null ? TextMapper.toMap(result, granularity) : Arguments.createMap();
+        item.putInt("index", index);
+        item.putString("uri", uri);
+        if (result == null && error != null) {
+            WritableMap errorMap = Arguments.createMap();
+            errorMap.putString("code", error[0]);
+            errorMap.putString("message", error[1]);
+            item.putMap("error", errorMap);
+        }
+        return item;
+    }
+
+    @ReactMethod
+    public void recognizePdf(String pdfUri, ReadableMap options, Promise promise) {
+        RecognitionOptions recognitionOptions = RecognitionOptions.from(options);
+        if (!RecognizerPool.isSupported(recognitionOptions.script)) {
+            promise.reject("NOT_AVAILABLE", "Unsupported script: " + recognitionOptions.script);
+            return;
+        }
+        int granularity = recognitionOptions.granularity;
+        int dpi = options != null && options.hasKey("dpi") ? options.getInt("dpi") : PdfPipeline.DEFAULT_DPI;
+        boolean includeResults = options == null || !options.hasKey("includeResults")
+            || options.getBoolean("includeResults");
+        RecognitionRequest request = register(
+            requestIdFrom(options, "jobId"),
+            "pdf-" + pdfCounter.incrementAndGet(),
+            promise
+        );
+        if (request == null) {
+            return;
+        }
+        String jobId = request.id;
+
+        decodeExecutor.execute(() -> {
+            ParcelFileDescriptor descriptor = null;
+            TextRecognizer recognizer = null;
+            try {
+                if (request.isCancelled()) {
+                    cancelCall(request);
+                    return;
+                }
+                descriptor = openPdfDescriptor(pdfUri);
+                if (descriptor == null) {
+                    request.reject("NO_IMAGE", "Failed to open PDF from URI: " + pdfUri);
+                    return;
+                }
+
+                String documentKey = null;
+                if (recognitionOptions.useCache) {
+                    BitmapDecoder.Source source = openSource(pdfUri);
+                    if (source != null) {
+                        documentKey = resultCache.keyFor(source, fileFor(pdfUri),
+                            "pdf;dpi=" + dpi + ";" + recognitionOptions.cacheKey());
+                    }
+                }
+                String pageKeyPrefix = documentKey;
+
+                PdfPipeline.PageCache pageCache = pageKeyPrefix == null ? null : new PdfPipeline.PageCache() {
+                    @Override
+                    public OCRResult lookup(int page) {
+                        return resultCache.get(pageKeyPrefix + "-p" + page);
+                    }
+
+                    @Override
+                    public void store(int page, OCRResult result) {
+                        resultCache.put(pageKeyPrefix + "-p" + page, result);
+                    }
+                };
+
+                List<OCRResult> pages = new ArrayList<>();
+                List<String[]> pageErrors = new ArrayList<>();
+                AtomicInteger succeeded = new AtomicInteger();
+                long startedAt = SystemClock.elapsedRealtime();
+                PdfPipeline[] holder = new PdfPipeline[1];
+                String script = recognitionOptions.script;
+                recognizer = recognizerPool.acquire(script);
+
+                holder[0] = new PdfPipeline(
+                    descriptor,
+                    dpi,
+                    recognitionOptions.maxDimension,
+                    recognizer,
+                    decodeExecutor,
+                    pageCache,
+                    tracer,
+                    new PdfPipeline.Listener() {
+                        @Override
+                        public void onPageComplete(int page, OCRResult result, String errorCode,
+                                                   String errorMessage, int completed, int total) {
+                            stats.recordCall(result != null);
+                            if (result != null) {
+                                succeeded.incrementAndGet();
+                                if (recognitionOptions.index) {
+                                    indexResult(pdfUri, page, result);
+                                }
+                            }
+                            String[] error = result == null ? new String[]{errorCode, errorMessage} : null;
+                            if (includeResults) {
+                                synchronized (pages) {
+                                    while (pages.size() <= page) {
+                                        pages.add(null);
+                                        pageErrors.add(null);
+                                    }
+                                    pages.set(page, result);
+                                    pageErrors.set(page, error);
+                                }
+                            }
+
+                            WritableMap event = Arguments.createMap();
+                            event.putString("jobId", jobId);
+                            event.putInt("completed", completed);
+                            event.putInt("total", total);
+                            event.putMap("item", buildPdfPage(page, result, error, granularity));
+                            sendEvent("onPdfPage", event);
+                        }
+
+                        @Override
+                        public void onComplete(boolean cancelled) {
+                            releaseRecognizer(script);
+                            if (cancelled) {
+                                cancelCall(request);
+                                return;
+                            }
+
+                            WritableArray results = Arguments.createArray();
+                            synchronized (pages) {
+                                for (int i = 0; i < pages.size(); i++) {
+                                    results.pushMap(buildPdfPage(i, pages.get(i), pageErrors.get(i), granularity));
+                                }
+                            }
+
+                            WritableMap aggregate = Arguments.createMap();
+                            aggregate.putString("jobId", jobId);
+                            aggregate.putInt("pageCount", holder[0].getPageCount());
+                            aggregate.putInt("succeeded", succeeded.get());
+                            aggregate.putInt("failed", holder[0].getPageCount() - succeeded.get());
+                            aggregate.putDouble("durationMs", SystemClock.elapsedRealtime() - startedAt);
+                            aggregate.putArray("results", results);
+                            request.resolve(aggregate);
+                        }
+                    }
+                );
+                descriptor = null;
+                recognizer = null;
+                request.onCancel(holder[0]::cancel);
+                holder[0].start();
+            } catch (Exception e) {
+                request.reject("INVALID_PDF", e.getMessage());
+            } finally {
+                if (recognizer != null) {
+                    releaseRecognizer(recognitionOptions.script);
+                }
+                if (descriptor != null) {
+                    try {
+                        descriptor.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+        });
+    }
+
+    private static WritableMap buildPdfPage(int page, OCRResult result, String[] error, int granularity) {
+        WritableMap item = result != null ? TextMapper.toMap(result, granularity) : Arguments.createMap();
+        item.putInt("page", page);
+        if (result == null && error != null) {
+            WritableMap errorMap = Arguments.createMap();
+            errorMap.putString("code", error[0]);
+            errorMap.putString("message", error[1]);
+            item.putMap("error", errorMap);
+        }
+        return item;
+    }
+
+    @ReactMethod
+    public void recognizeVideo(String videoUri, ReadableMap options, Promise promise) {
+        RecognitionOptions recognitionOptions = RecognitionOptions.from(options);
+        if (!RecognizerPool.isSupported(recognitionOptions.script)) {
+            promise.reject("NOT_AVAILABLE", "Unsupported script: " + recognitionOptions.script);
+            return;
+        }
+        int granularity = recognitionOptions.granularity;
+        long intervalMs = options != null && options.hasKey("intervalMs")
+            ? (long) options.getDouble("intervalMs")
+            : VideoPipeline.DEFAULT_INTERVAL_MS;
+        float changeThreshold = options != null && options.hasKey("changeThreshold")
+            ? (float) options.getDouble("changeThreshold")
+            : VideoPipeline.DEFAULT_CHANGE_THRESHOLD;
+        boolean keyframesOnly = options != null && options.hasKey("keyframesOnly")
+            && options.getBoolean("keyframesOnly");
+        boolean includeResults = options == null || !options.hasKey("includeResults")
+            || options.getBoolean("includeResults");
+        RecognitionRequest request = register(
+            requestIdFrom(options, "jobId"),
+            "video-" + videoCounter.incrementAndGet(),
+            promise
+        );
+        if (request == null) {
+            return;
+        }
+        String jobId = request.id;
+
+        decodeExecutor.execute(() -> {
+            MediaMetadataRetriever retriever = null;
+            TextRecognizer recognizer = null;
+            try {
+                if (request.isCancelled()) {
+                    cancelCall(request);
+                    return;
+                }
+                retriever = openVideo(videoUri);
+                if (retriever == null) {
+                    request.reject("NO_IMAGE", "Failed to open video from URI: " + videoUri);
+                    return;
+                }
+
+                WritableArray results = Arguments.createArray();
+                AtomicInteger recognized = new AtomicInteger();
+                long startedAt = SystemClock.elapsedRealtime();
+                VideoPipeline[] holder = new VideoPipeline[1];
+                String script = recognitionOptions.script;
+                recognizer = recognizerPool.acquire(script);
+
+                holder[0] = new VideoPipeline(
+                    retriever,
+                    intervalMs,
+                    recognitionOptions.maxDimension,
+                    changeThreshold,
+                    keyframesOnly,
+                    recognizer,
+                    decodeExecutor,
+                    tracer,
+                    new VideoPipeline.Listener() {
+                        @Override
+                        public void onFrame(long timeMs, OCRResult result, String errorCode, String errorMessage,
+                                            int sampled, int skipped, int total) {
+                            stats.recordCall(result != null);
+                            if (result != null) {
+                                recognized.incrementAndGet();
+                            }
+                            String[] error = result == null ? new String[]{errorCode, errorMessage} : null;
+                            if (includeResults) {
+                                synchronized (results) {
+                                    results.pushMap(buildVideoFrame(timeMs, result, error, granularity));
+                                }
+                            }
+
+                            WritableMap event = Arguments.createMap();
+                            event.putString("jobId", jobId);
+                            event.putInt("sampled", sampled);
+                            event.putInt("skipped", skipped);
+                            event.putInt("total", total);
+                            event.putMap("item", buildVideoFrame(timeMs, result, error, granularity));
+                            sendEvent("onVideoFrame", event);
+                        }
+
+                        @Override
+                        public void onComplete(boolean cancelled) {
+                            releaseRecognizer(script);
+                            if (cancelled) {
+                                cancelCall(request);
+                                return;
+                            }
+
+                            VideoPipeline pipeline = holder[0];
+                            WritableMap aggregate = Arguments.createMap();
+                            aggregate.putString("jobId", jobId);
+                            aggregate.putDouble("videoDurationMs", pipeline.getDurationMs());
+                            aggregate.putInt("sampled", pipeline.getSampled());
+                            aggregate.putInt("recognized", recognized.get());
+                            aggregate.putInt("skipped", pipeline.getSkipped());
+                            aggregate.putInt("failed", pipeline.getFailed());
+                            aggregate.putDouble("durationMs", SystemClock.elapsedRealtime() - startedAt);
+                            synchronized (results) {
+                                aggregate.putArray("results", results);
+                            }
+                            request.resolve(aggregate);
+                        }
+                    }
+                );
+                if (holder[0].getSampleCount() == 0) {
+                    holder[0] = null;
+                    request.reject("INVALID_VIDEO", "Video has no duration: " + videoUri);
+                    return;
+                }
+                retriever = null;
+                recognizer = null;
+                request.onCancel(holder[0]::cancel);
+                holder[0].start();
+            } catch (Exception e) {
+                request.reject("INVALID_VIDEO", e.getMessage());
+            } finally {
+                if (recognizer != null) {
+                    releaseRecognizer(recognitionOptions.script);
+                }
+                if (retriever != null) {
+                    try {
+                        retriever.release();
+                    } catch (Exception ignored) {
+                    }
+                }
+            }
+        });
+    }
+
+    private static WritableMap buildVideoFrame(long timeMs, OCRResult result, String[] error, int granularity) {
+        WritableMap item = result != null ? TextMapper.toMap(result, granularity) : Arguments.createMap();
+        item.putDouble("timeMs", timeMs);
+        if (result == null && error != null) {
+            WritableMap errorMap = Arguments.createMap();
+            errorMap.putString("code", error[0]);
+            errorMap.putString("message", error[1]);
+            item.putMap("error", errorMap);
+        }
+        return item;
+    }
 
-        } catch (Exception e) {
-            promise.reject("UNKNOWN", e.getMessage());
+    private MediaMetadataRetriever openVideo(String uriString) {
+        if (uriString == null || uriString.isEmpty()) {
+            return null;
+        }
+        Uri uri = Uri.parse(uriString);
+        String scheme = uri.getScheme();
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            if (scheme == null || scheme.equals("file")) {
+                File file = fileFor(uriString);
+                if (file == null || !file.exists()) {
+                    retriever.release();
+                    return null;
+                }
+                retriever.setDataSource(file.getAbsolutePath());
+            } else if (scheme.equals("content")) {
+                retriever.setDataSource(reactContext, uri);
+            } else {
+                // Frames are seeked at random, which needs a local, seekable source.
+                android.util.Log.e("RNOCR", "Unsupported video URI scheme: " + scheme);
+                retriever.release();
+                return null;
+            }
+        } catch (RuntimeException e) {
+            try {
+                retriever.release();
+            } catch (Exception ignored) {
+            }
+            throw e;
         }
+        return retriever;
     }
 
-    private Bitmap loadBitmapFromUri(String uriString) throws IOException {
+    /**
+     * Cancels a {@code recognizeText}, {@code recognizeTextBatch},
+     * {@code recognizePdf} or {@code recognizeVideo} call by its request,
+     * batch or job id. Work that has not started is dropped; the call's
+     * promise rejects with {@code CANCELLED}.
+     */
+    @ReactMethod
+    public void cancelRecognition(String requestId, Promise promise) {
+        RecognitionRequest request = requestId != null ? requests.get(requestId) : null;
+        promise.resolve(request != null && request.cancel());
+    }
+
+    @ReactMethod
+    public void cancelAll(Promise promise) {
+        promise.resolve(cancelAllRequests());
+    }
+
+    private int cancelAllRequests() {
+        int cancelled = 0;
+        for (RecognitionRequest request : requests.values()) {
+            if (request.cancel()) {
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    @ReactMethod
+    public void cancelPdfRecognition(String jobId, Promise promise) {
+        cancelRecognition(jobId, promise);
+    }
+
+    private ParcelFileDescriptor openPdfDescriptor(String uriString) throws IOException {
+        if (uriString == null || uriString.isEmpty()) {
+            return null;
+        }
+        Uri uri = Uri.parse(uriString);
+        String scheme = uri.getScheme();
+        if (scheme == null || scheme.equals("file")) {
+            File file = fileFor(uriString);
+            return file != null && file.exists()
+                ? ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY)
+                : null;
+        } else if (scheme.equals("content")) {
+            return reactContext.getContentResolver().openFileDescriptor(uri, "r");
+        }
+        // PdfRenderer needs a seekable file descriptor, which data: URIs cannot provide.
+        android.util.Log.e("RNOCR", "Unsupported PDF URI scheme: " + scheme);
+        return null;
+    }
+
+    private synchronized TextIndex getTextIndex() {
+        if (textIndex == null) {
+            textIndex = new TextIndex(reactContext);
+        }
+        return textIndex;
+    }
+
+    private void indexResult(String uri, int page, OCRResult result) {
+        indexExecutor.execute(() -> {
+            try {
+                getTextIndex().put(uri, page, result);
+            } catch (RuntimeException e) {
+                android.util.Log.e("RNOCR", "Failed to index result for " + uri, e);
+            }
+        });
+    }
+
+    /**
+     * Searches results recorded with {@code index: true}. Matching blocks are
+     * grouped by source, most recently indexed first.
+     */
+    @ReactMethod
+    public void searchText(String query, ReadableMap options, Promise promise) {
+        int limit = options != null && options.hasKey("limit") ? Math.max(1, options.getInt("limit")) : 100;
+        indexExecutor.execute(() -> {
+            long startedAt = SystemClock.elapsedRealtime();
+            List<TextIndex.Hit> hits;
+            try {
+                hits = getTextIndex().search(query, limit);
+            } catch (SQLiteException e) {
+                promise.reject("INVALID_QUERY", e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                promise.reject("UNKNOWN", e.getMessage());
+                return;
+            }
+
+            Map<String, WritableArray> blocksBySource = new LinkedHashMap<>();
+            Map<String, TextIndex.Hit> firstBySource = new LinkedHashMap<>();
+            for (TextIndex.Hit hit : hits) {
+                String source = hit.page + ":" + hit.uri;
+                WritableArray blocks = blocksBySource.get(source);
+                if (blocks == null) {
+                    blocks = Arguments.createArray();
+                    blocksBySource.put(source, blocks);
+                    firstBySource.put(source, hit);
+                }
+                WritableMap block = Arguments.createMap();
+                block.putString("text", hit.text);
+                WritableMap box = Arguments.createMap();
+                box.putInt("x", hit.left);
+                box.putInt("y", hit.top);
+                box.putInt("width", hit.right - hit.left);
+                box.putInt("height", hit.bottom - hit.top);
+                block.putMap("boundingBox", box);
+                blocks.pushMap(block);
+            }
+
+            WritableArray documents = Arguments.createArray();
+            for (Map.Entry<String, WritableArray> entry : blocksBySource.entrySet()) {
+                TextIndex.Hit first = firstBySource.get(entry.getKey());
+                WritableMap document = Arguments.createMap();
+                document.putString("uri", first.uri);
+                if (first.page != TextIndex.NO_PAGE) {
+                    document.putInt("page", first.page);
+                }
+                document.putArray("blocks", entry.getValue());
+                documents.pushMap(document);
+            }
+
+            WritableMap result = Arguments.createMap();
+            result.putString("query", query);
+            result.putInt("blockCount", hits.size());
+            result.putArray("documents", documents);
+            result.putDouble("durationMs", SystemClock.elapsedRealtime() - startedAt);
+            promise.resolve(result);
+        });
+    }
+
+    @ReactMethod
+    public void removeFromIndex(String uri, Promise promise) {
+        runOnIndex(promise, () -> getTextIndex().remove(uri));
+    }
+
+    @ReactMethod
+    public void clearIndex(Promise promise) {
+        runOnIndex(promise, () -> {
+            getTextIndex().clear();
+            return null;
+        });
+    }
+
+    /** Merges index segments and reclaims deleted space; resolves with the size before and after. */
+    @ReactMethod
+    public void compactIndex(Promise promise) {
+        runOnIndex(promise, () -> {
+            TextIndex index = getTextIndex();
+            long startedAt = SystemClock.elapsedRealtime();
+            long before = index.getSizeBytes();
+            index.compact();
+            WritableMap result = Arguments.createMap();
+            result.putDouble("bytesBefore", before);
+            result.putDouble("bytesAfter", index.getSizeBytes());
+            result.putDouble("durationMs", SystemClock.elapsedRealtime() - startedAt);
+            return result;
+        });
+    }
+
+    @ReactMethod
+    public void getIndexStats(Promise promise) {
+        runOnIndex(promise, () -> {
+            TextIndex index = getTextIndex();
+            WritableMap result = Arguments.createMap();
+            result.putDouble("documents", index.getDocumentCount());
+            result.putDouble("blocks", index.getBlockCount());
+            result.putDouble("sizeBytes", index.getSizeBytes());
+            return result;
+        });
+    }
+
+    private interface IndexTask {
+        Object run();
+    }
+
+    private void runOnIndex(Promise promise, IndexTask task) {
+        indexExecutor.execute(() -> {
+            try {
+                promise.resolve(task.run());
+            } catch (RuntimeException e) {
+                promise.reject("UNKNOWN", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Loads the recognizers for {@code scripts} and runs one inference on a
+     * blank bitmap so the first real call does not pay for model loading.
+     */
+    @ReactMethod
+    public void warmUp(ReadableArray scripts, Promise promise) {
+        List<String> requested = new ArrayList<>();
+        if (scripts == null || scripts.size() == 0) {
+            requested.add(RecognizerPool.LATIN);
+        } else {
+            for (int i = 0; i < scripts.size(); i++) {
+                String script = scripts.getString(i);
+                if (!RecognizerPool.isSupported(script)) {
+                    promise.reject("NOT_AVAILABLE", "Unsupported script: " + script);
+                    return;
+                }
+                if (!requested.contains(script)) {
+                    requested.add(script);
+                }
+            }
+        }
+
+        long startedAt = SystemClock.elapsedRealtime();
+        AtomicInteger remaining = new AtomicInteger(requested.size());
+        Runnable finishOne = () -> {
+            if (remaining.decrementAndGet() == 0) {
+                WritableMap result = Arguments.createMap();
+                WritableArray loaded = Arguments.createArray();
+                for (String name : recognizerPool.getOpenScripts()) {
+                    loaded.pushString(name);
+                }
+                result.putArray("scripts", loaded);
+                result.putDouble("durationMs", SystemClock.elapsedRealtime() - startedAt);
+                promise.resolve(result);
+            }
+        };
+
+        decodeExecutor.execute(() -> {
+            for (String script : requested) {
+                Bitmap blank = Bitmap.createBitmap(WARM_UP_SIZE, WARM_UP_SIZE, Bitmap.Config.ARGB_8888);
+                blank.eraseColor(Color.WHITE);
+                TextRecognizer recognizer = recognizerPool.acquire(script);
+                try {
+                    recognizer.process(InputImage.fromBitmap(blank, 0)).addOnCompleteListener(decodeExecutor, task -> {
+                        blank.recycle();
+                        releaseRecognizer(script);
+                        finishOne.run();
+                    });
+                } catch (RuntimeException e) {
+                    blank.recycle();
+                    releaseRecognizer(script);
+                    finishOne.run();
+                }
+            }
+        });
+    }
+
+    private void releaseRecognizer(String script) {
+        recognizerPool.release(script);
+        idleHandler.removeCallbacks(trimRecognizers);
+        idleHandler.postDelayed(trimRecognizers, RECOGNIZER_IDLE_MS);
+    }
+
+    private void trimRecognizers() {
+        long next = recognizerPool.trimIdle();
+        if (next >= 0) {
+            idleHandler.postDelayed(trimRecognizers, next);
+        }
+    }
+
+    /**
+     * Gives memory back as pressure rises: first half of the bitmap pool and
+     * in-memory results, then the preprocessing buffers, and once the app is
+     * hidden or memory is critical everything that can be rebuilt, including
+     * idle recognizers. In-flight work keeps the buffers and clients it holds.
+     */
+    private void trimMemory(int level) {
+        lastTrimLevel = level;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            bitmapPool.clear();
+            resultCache.trimMemory(0);
+            clearPreprocessors();
+            recognizerPool.closeIdle();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            bitmapPool.trimToSize(bitmapPool.getCurrentBytes() / 2);
+            resultCache.trimMemory(resultCache.getMemoryBytes() / 2);
+            if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+                clearPreprocessors();
+            }
+        }
+    }
+
+    private void clearPreprocessors() {
+        synchronized (preprocessors) {
+            preprocessors.clear();
+        }
+    }
+
+    /** Bytes the module is holding on to between calls, plus process heap usage. */
+    @ReactMethod
+    public void getMemoryStats(Promise promise) {
+        long preprocessorBytes = 0;
+        synchronized (preprocessors) {
+            for (ImagePreprocessor preprocessor : preprocessors) {
+                preprocessorBytes += preprocessor.getRetainedBytes();
+            }
+        }
+        Runtime runtime = Runtime.getRuntime();
+
+        WritableMap result = Arguments.createMap();
+        result.putDouble("bitmapPoolBytes", bitmapPool.getCurrentBytes());
+        result.putDouble("resultCacheBytes", resultCache.getMemoryBytes());
+        result.putDouble("preprocessorBytes", preprocessorBytes);
+        result.putInt("openRecognizers", recognizerPool.getOpenScripts().size());
+        result.putDouble("javaHeapBytes", runtime.totalMemory() - runtime.freeMemory());
+        result.putDouble("javaHeapMaxBytes", runtime.maxMemory());
+        result.putDouble("nativeHeapBytes", Debug.getNativeHeapAllocatedSize());
+        result.putInt("lastTrimLevel", lastTrimLevel);
+        promise.resolve(result);
+    }
+
+    private static WritableMap buildTimingsMap(OCRStats.Timings timings) {
+        WritableMap map = Arguments.createMap();
+        for (int stage = 0; stage < OCRStats.STAGE_NAMES.length; stage++) {
+            map.putDouble(OCRStats.STAGE_NAMES[stage] + "Ms", timings.get(stage) / 1e6);
+        }
+        return map;
+    }
+
+    @ReactMethod
+    public void getOCRStats(Promise promise) {
+        WritableMap result = Arguments.createMap();
+        result.putDouble("calls", stats.getCalls());
+        result.putDouble("failures", stats.getFailures());
+        result.putDouble("cancelled", stats.getCancelled());
+        result.putDouble("bytesDecoded", stats.getBytesDecoded());
+
+        WritableMap stages = Arguments.createMap();
+        for (int stage = 0; stage < OCRStats.STAGE_NAMES.length; stage++) {
+            OCRStats.StageSummary summary = stats.summarize(stage);
+            WritableMap stageMap = Arguments.createMap();
+            stageMap.putInt("count", summary.count);
+            stageMap.putDouble("p50Ms", summary.p50 / 1e6);
+            stageMap.putDouble("p95Ms", summary.p95 / 1e6);
+            stageMap.putDouble("p99Ms", summary.p99 / 1e6);
+            stageMap.putDouble("maxMs", summary.max / 1e6);
+            stages.putMap(OCRStats.STAGE_NAMES[stage], stageMap);
+        }
+        result.putMap("stages", stages);
+        promise.resolve(result);
+    }
+
+    @ReactMethod
+    public void resetOCRStats(Promise promise) {
+        stats.reset();
+        promise.resolve(null);
+    }
+
+    @ReactMethod
+    public void clearOCRCache(Promise promise) {
+        decodeExecutor.execute(() -> {
+            resultCache.clear();
+            promise.resolve(null);
+        });
+    }
+
+    @ReactMethod
+    public void getOCRCacheStats(Promise promise) {
+        decodeExecutor.execute(() -> {
+            WritableMap stats = Arguments.createMap();
+            long memoryHits = resultCache.getMemoryHits();
+            long diskHits = resultCache.getDiskHits();
+            stats.putDouble("hits", memoryHits + diskHits);
+            stats.putDouble("memoryHits", memoryHits);
+            stats.putDouble("diskHits", diskHits);
+            stats.putDouble("misses", resultCache.getMisses());
+            stats.putInt("memoryEntries", resultCache.getMemoryEntries());
+            stats.putDouble("memoryBytes", resultCache.getMemoryBytes());
+            stats.putDouble("diskBytes", resultCache.getDiskBytes());
+            promise.resolve(stats);
+        });
+    }
+
+    private BitmapDecoder.Decoded loadBitmapFromUri(String uriString, RecognitionOptions options)
+        throws IOException {
+        long stage = tracer.begin(OCRStats.RESOLVE);
+        BitmapDecoder.Source source;
+        try {
+            source = openSource(uriString);
+        } finally {
+            tracer.end(OCRStats.RESOLVE, stage, null);
+        }
+        if (source == null) {
+            return null;
+        }
+        return decodeSource(source, options, null);
+    }
+
+    private BitmapDecoder.Decoded decodeSource(BitmapDecoder.Source source, RecognitionOptions options,
+                                               OCRStats.Timings timings) throws IOException {
+        long stage = tracer.begin(OCRStats.DECODE);
+        BitmapDecoder.Decoded decoded;
+        try {
+            decoded = decodeArea(source, options);
+        } finally {
+            tracer.end(OCRStats.DECODE, stage, timings);
+        }
+        if (decoded != null) {
+            stats.addBytesDecoded(decoded.bitmap.getByteCount());
+        }
+        return preprocess(decoded, options, timings);
+    }
+
+    /**
+     * Decodes the whole image, or only {@code options.region} through a region
+     * decoder so the rest of the page is never materialized.
+     */
+    private BitmapDecoder.Decoded decodeArea(BitmapDecoder.Source source, RecognitionOptions options)
+        throws IOException {
+        if (options.region == null) {
+            return bitmapDecoder.decode(source, options.maxDimension);
+        }
+
+        BitmapFactory.Options bounds = BitmapDecoder.readBounds(source);
+        if (bounds == null) {
+            return null;
+        }
+        Rect area = new Rect(0, 0, bounds.outWidth, bounds.outHeight);
+        if (!area.intersect(options.region)) {
+            return null;
+        }
+        BitmapRegionDecoder regionDecoder = BitmapDecoder.openRegionDecoder(source);
+        if (regionDecoder == null) {
+            return null;
+        }
+        try {
+            return bitmapDecoder.decodeRegion(
+                regionDecoder, area, BitmapDecoder.configFor(bounds.outMimeType), options.maxDimension);
+        } finally {
+            regionDecoder.recycle();
+        }
+    }
+
+    /**
+     * Applies the requested preprocessing steps between decoding and
+     * recognition. Preprocessors keep their pixel buffers between calls, so
+     * a few are pooled rather than allocated per image.
+     */
+    private BitmapDecoder.Decoded preprocess(BitmapDecoder.Decoded decoded, RecognitionOptions options,
+                                             OCRStats.Timings timings) {
+        if (decoded == null || !options.preprocess.isEnabled()) {
+            return decoded;
+        }
+        long stage = tracer.begin(OCRStats.PREPROCESS);
+        ImagePreprocessor preprocessor;
+        synchronized (preprocessors) {
+            preprocessor = preprocessors.pollFirst();
+        }
+        if (preprocessor == null) {
+            preprocessor = new ImagePreprocessor();
+        }
+        try {
+            return BitmapDecoder.preprocess(decoded, preprocessor, options.preprocess);
+        } catch (RuntimeException e) {
+            bitmapDecoder.release(decoded.bitmap);
+            throw e;
+        } finally {
+            tracer.end(OCRStats.PREPROCESS, stage, timings);
+            synchronized (preprocessors) {
+                if (preprocessors.size() < DECODE_THREADS) {
+                    preprocessors.addLast(preprocessor);
+                }
+            }
+        }
+    }
+
+    private static WritableMap buildPreprocessingMap(ImagePreprocessor.Report report) {
+        WritableMap map = Arguments.createMap();
+        map.putDouble("grayscaleMs", report.grayscaleNanos / 1e6);
+        map.putDouble("contrastMs", report.contrastNanos / 1e6);
+        map.putDouble("deskewMs", report.deskewNanos / 1e6);
+        map.putDouble("binarizeMs", report.binarizeNanos / 1e6);
+        map.putDouble("writeBackMs", report.writeBackNanos / 1e6);
+        map.putDouble("totalMs", report.totalNanos() / 1e6);
+        map.putDouble("skewDegrees", report.skewDegrees);
+        return map;
+    }
+
+    private static File fileFor(String uriString) {
+        Uri uri = Uri.parse(uriString);
+        String scheme = uri.getScheme();
+        if ((scheme == null || scheme.equals("file")) && uri.getPath() != null) {
+            return new File(uri.getPath());
+        }
+        return null;
+    }
+
+    private BitmapDecoder.Source openSource(String uriString) {
         if (uriString == null || uriString.isEmpty()) {
             return null;
         }
@@ -115,28 +1499,27 @@ public class RNOCRModule extends ReactContextBaseJavaModule {
             if (path != null) {
                 File file = new File(path);
                 if (file.exists()) {
-                    FileInputStream fis = new FileInputStream(file);
-                    return BitmapFactory.decodeStream(fis);
+                    return () -> new FileInputStream(file);
                 }
             }
         } else if (scheme.equals("content")) {
-            try {
-                android.content.ContentResolver resolver = reactContext.getContentResolver();
-                android.graphics.Bitmap bitmap = android.provider.MediaStore.Images.Media.getBitmap(resolver, uri);
-                return bitmap;
-            } catch (Exception e) {
-                android.util.Log.e("RNOCR", "Failed to load content URI: " + uriString, e);
-                return null;
-            }
+            ContentResolver resolver = reactContext.getContentResolver();
+            return () -> {
+                InputStream in = resolver.openInputStream(uri);
+                if (in == null) {
+                    throw new IOException("Failed to open content URI: " + uriString);
+                }
+                return in;
+            };
         } else if (scheme.equals("data")) {
-            try {
-                String base64Data = uriString.substring(uriString.indexOf(",") + 1);
-                byte[] decodedBytes = Base64.decode(base64Data, Base64.DEFAULT);
-                return BitmapFactory.decodeByteArray(decodedBytes, 0, decodedBytes.length);
-            } catch (Exception e) {
-                android.util.Log.e("RNOCR", "Failed to decode base64 data", e);
+            // Decode the payload straight out of the URI string on every open rather
+            // than keeping a substring and a decoded byte array alive for the whole call.
+            int comma = uriString.indexOf(',');
+            if (comma < 0 || !uriString.regionMatches(true, comma - 7, ";base64", 0, 7)) {
+                android.util.Log.e("RNOCR", "Only base64 data: URIs are supported");
                 return null;
             }
+            return () -> new Base64InputStream(new AsciiStringInputStream(uriString, comma + 1), Base64.DEFAULT);
         } else {
             android.util.Log.e("RNOCR", "Unsupported URI scheme: " + scheme);
         }
@@ -149,4 +1532,26 @@ public class RNOCRModule extends ReactContextBaseJavaModule {
             .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
             .emit(eventName, params);
     }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        reactContext.unregisterComponentCallbacks(memoryCallbacks);
+        cancelAllRequests();
+        decodeExecutor.shutdownNow();
+        // Let queued index writes land before the database is closed.
+        indexExecutor.execute(() -> {
+            synchronized (this) {
+                if (textIndex != null) {
+                    textIndex.close();
+                    textIndex = null;
+                }
+            }
+        });
+        indexExecutor.shutdown();
+        idleHandler.removeCallbacks(trimRecognizers);
+        recognizerPool.close();
+        bitmapPool.clear();
+        clearPreprocessors();
+    }
 }
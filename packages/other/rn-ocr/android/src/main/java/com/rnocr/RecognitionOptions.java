@@ -0,0 +1,94 @@
+package com.rnocr;
+
+import android.graphics.Rect;
+
+import com.facebook.react.bridge.ReadableMap;
+
+/**
+ * Recognition options parsed once from the JS options map.
+ */
+final class RecognitionOptions {
+
+    static final int DEFAULT_TILE_OVERLAP = 128;
+
+    final int maxDimension;
+    final int granularity;
+    final boolean useCache;
+    /** Whether successful results are added to the full-text index. */
+    final boolean index;
+    /** Crop rectangle in source pixels, or null for the whole image. */
+    final Rect region;
+    /** Tile edge in source pixels; 0 disables tiling. */
+    final int tileSize;
+    final int tileOverlap;
+    final ImagePreprocessor.Options preprocess;
+    /** One of the {@code RecognizerPool} script names. */
+    final String script;
+
+    private RecognitionOptions(ReadableMap options) {
+        maxDimension = options != null && options.hasKey("maxDimension")
+            ? options.getInt("maxDimension")
+            : BitmapDecoder.DEFAULT_MAX_DIMENSION;
+        granularity = options != null && options.hasKey("granularity")
+            ? TextMapper.parseGranularity(options.getString("granularity"))
+            : -1;
+        useCache = options == null || !options.hasKey("cache") || options.getBoolean("cache");
+        index = options != null && options.hasKey("index") && options.getBoolean("index");
+
+        if (options != null && options.hasKey("region") && !options.isNull("region")) {
+            ReadableMap map = options.getMap("region");
+            int x = map.getInt("x");
+            int y = map.getInt("y");
+            region = new Rect(x, y, x + map.getInt("width"), y + map.getInt("height"));
+        } else {
+            region = null;
+        }
+
+        tileSize = options != null && options.hasKey("tileSize") ? Math.max(0, options.getInt("tileSize")) : 0;
+        tileOverlap = options != null && options.hasKey("tileOverlap")
+            ? Math.max(0, options.getInt("tileOverlap"))
+            : DEFAULT_TILE_OVERLAP;
+
+        ReadableMap steps = options != null && options.hasKey("preprocess") && !options.isNull("preprocess")
+            ? options.getMap("preprocess")
+            : null;
+        script = RecognizerPool.scriptFor(
+            options != null && options.hasKey("script") ? options.getString("script") : null,
+            options != null && options.hasKey("language") ? options.getString("language") : null
+        );
+
+        preprocess = new ImagePreprocessor.Options(
+            flag(steps, "grayscale"),
+            flag(steps, "contrast"),
+            flag(steps, "binarize"),
+            flag(steps, "deskew")
+        );
+    }
+
+    private static boolean flag(ReadableMap map, String key) {
+        return map != null && map.hasKey(key) && map.getBoolean(key);
+    }
+
+    static RecognitionOptions from(ReadableMap options) {
+        return new RecognitionOptions(options);
+    }
+
+    /** Everything that changes what ML Kit sees must be part of the cache key. */
+    String cacheKey() {
+        StringBuilder key = new StringBuilder("maxDimension=").append(maxDimension);
+        if (!RecognizerPool.LATIN.equals(script)) {
+            key.append(";script=").append(script);
+        }
+        if (region != null) {
+            key.append(";region=").append(region.left).append(',').append(region.top)
+                .append(',').append(region.right).append(',').append(region.bottom);
+        }
+        if (tileSize > 0) {
+            key.append(";tile=").append(tileSize).append('/').append(tileOverlap);
+        }
+        if (preprocess.isEnabled()) {
+            key.append(";preprocess=").append(preprocess.cacheKey());
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,92 @@
+package com.rnocr;
+
+import com.facebook.react.bridge.Promise;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * One in-flight recognition call that JS can cancel by id.
+ *
+ * <p>The promise is settled exactly once through {@link #resolve} or
+ * {@link #reject}, which also removes the request from the registry. Work
+ * checks {@link #isCancelled} between stages; a {@link #onCancel cancel
+ * action} lets the owner drop work that has not started yet, such as queued
+ * decode tasks or pipeline items.
+ */
+final class RecognitionRequest {
+
+    static final String CANCELLED = "CANCELLED";
+
+    final String id;
+    private final Promise promise;
+    private final ConcurrentMap<String, RecognitionRequest> registry;
+    private volatile boolean cancelled;
+    private boolean settled;
+    private Runnable cancelAction;
+
+    RecognitionRequest(String id, Promise promise, ConcurrentMap<String, RecognitionRequest> registry) {
+        this.id = id;
+        this.promise = promise;
+        this.registry = registry;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** @return false if the request had already been cancelled or settled */
+    boolean cancel() {
+        Runnable action;
+        synchronized (this) {
+            if (cancelled || settled) {
+                return false;
+            }
+            cancelled = true;
+            action = cancelAction;
+        }
+        if (action != null) {
+            action.run();
+        }
+        return true;
+    }
+
+    /** Sets the action run on cancellation; runs it right away if already cancelled. */
+    void onCancel(Runnable action) {
+        boolean runNow;
+        synchronized (this) {
+            cancelAction = action;
+            runNow = cancelled && !settled;
+        }
+        if (runNow) {
+            action.run();
+        }
+    }
+
+    void resolve(Object value) {
+        if (settle()) {
+            promise.resolve(value);
+        }
+    }
+
+    void reject(String code, String message) {
+        if (settle()) {
+            promise.reject(code, message);
+        }
+    }
+
+    void rejectCancelled() {
+        reject(CANCELLED, "Recognition was cancelled: " + id);
+    }
+
+    private boolean settle() {
+        synchronized (this) {
+            if (settled) {
+                return false;
+            }
+            settled = true;
+            cancelAction = null;
+        }
+        registry.remove(id, this);
+        return true;
+    }
+}
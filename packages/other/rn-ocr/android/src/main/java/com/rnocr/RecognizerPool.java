@@ -0,0 +1,233 @@
+package com.rnocr;
+
+import android.os.SystemClock;
+
+import com.google.mlkit.vision.text.TextRecognition;
+import com.google.mlkit.vision.text.TextRecognizer;
+import com.google.mlkit.vision.text.TextRecognizerOptionsInterface;
+import com.google.mlkit.vision.text.chinese.ChineseTextRecognizerOptions;
+import com.google.mlkit.vision.text.devanagari.DevanagariTextRecognizerOptions;
+import com.google.mlkit.vision.text.japanese.JapaneseTextRecognizerOptions;
+import com.google.mlkit.vision.text.korean.KoreanTextRecognizerOptions;
+import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lazily created ML Kit recognizers, one per script, kept in LRU order.
+ *
+ * <p>Callers {@link #acquire} a recognizer for the duration of a recognition
+ * and {@link #release} it afterwards. Only idle clients are ever closed: when
+ * more than {@code maxClients} are open the least recently used idle ones go
+ * first, and {@link #trimIdle} closes any that have not been used for
+ * {@code idleTimeoutMs} so their native models are unloaded.
+ */
+final class RecognizerPool {
+
+    static final String LATIN = "latin";
+    static final String CHINESE = "chinese";
+    static final String DEVANAGARI = "devanagari";
+    static final String JAPANESE = "japanese";
+    static final String KOREAN = "korean";
+
+    private static final class Entry {
+        final TextRecognizer recognizer;
+        int inUse;
+        long lastUsed;
+
+        Entry(TextRecognizer recognizer) {
+            this.recognizer = recognizer;
+        }
+    }
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(8, 0.75f, true);
+    private final int maxClients;
+    private final long idleTimeoutMs;
+
+    RecognizerPool(int maxClients, long idleTimeoutMs) {
+        this.maxClients = Math.max(1, maxClients);
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    TextRecognizer acquire(String script) {
+        List<TextRecognizer> evicted;
+        TextRecognizer recognizer;
+        synchronized (this) {
+            Entry entry = entries.get(script);
+            if (entry == null) {
+                entry = new Entry(TextRecognition.getClient(optionsFor(script)));
+                entries.put(script, entry);
+            }
+            entry.inUse++;
+            entry.lastUsed = SystemClock.elapsedRealtime();
+            recognizer = entry.recognizer;
+            evicted = evictOverflow();
+        }
+        closeAll(evicted);
+        return recognizer;
+    }
+
+    void release(String script) {
+        List<TextRecognizer> evicted;
+        synchronized (this) {
+            Entry entry = entries.get(script);
+            if (entry == null) {
+                return;
+            }
+            entry.inUse = Math.max(0, entry.inUse - 1);
+            entry.lastUsed = SystemClock.elapsedRealtime();
+            evicted = evictOverflow();
+        }
+        closeAll(evicted);
+    }
+
+    /**
+     * Closes clients idle for at least {@code idleTimeoutMs}.
+     *
+     * @return milliseconds until the next client would expire, or -1 if no
+     *     idle clients remain open
+     */
+    long trimIdle() {
+        List<TextRecognizer> expired = new ArrayList<>();
+        long next = -1;
+        synchronized (this) {
+            long now = SystemClock.elapsedRealtime();
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.inUse > 0) {
+                    continue;
+                }
+                long remaining = entry.lastUsed + idleTimeoutMs - now;
+                if (remaining <= 0) {
+                    expired.add(entry.recognizer);
+                    it.remove();
+                } else if (next < 0 || remaining < next) {
+                    next = remaining;
+                }
+            }
+        }
+        closeAll(expired);
+        return next;
+    }
+
+    /**
+     * Closes every client that is not in use, regardless of how recently it
+     * ran. Used when the system is low on memory.
+     */
+    void closeIdle() {
+        List<TextRecognizer> idle = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.inUse == 0) {
+                    idle.add(entry.recognizer);
+                    it.remove();
+                }
+            }
+        }
+        closeAll(idle);
+    }
+
+    synchronized List<String> getOpenScripts() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    void close() {
+        List<TextRecognizer> all = new ArrayList<>();
+        synchronized (this) {
+            for (Entry entry : entries.values()) {
+                all.add(entry.recognizer);
+            }
+            entries.clear();
+        }
+        closeAll(all);
+    }
+
+    private List<TextRecognizer> evictOverflow() {
+        List<TextRecognizer> evicted = null;
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        int open = entries.size();
+        // Iteration starts at the least recently used entry.
+        while (open > maxClients && it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (entry.inUse == 0) {
+                if (evicted == null) {
+                    evicted = new ArrayList<>();
+                }
+                evicted.add(entry.recognizer);
+                it.remove();
+                open--;
+            }
+        }
+        return evicted;
+    }
+
+    private static void closeAll(List<TextRecognizer> recognizers) {
+        if (recognizers == null) {
+            return;
+        }
+        for (TextRecognizer recognizer : recognizers) {
+            recognizer.close();
+        }
+    }
+
+    static boolean isSupported(String script) {
+        return LATIN.equals(script) || CHINESE.equals(script) || DEVANAGARI.equals(script)
+            || JAPANESE.equals(script) || KOREAN.equals(script);
+    }
+
+    /**
+     * Picks the script model for a call: an explicit {@code script} wins,
+     * otherwise it is derived from the language code, defaulting to Latin.
+     */
+    static String scriptFor(String script, String language) {
+        if (script != null) {
+            return script;
+        }
+        if (language == null) {
+            return LATIN;
+        }
+        String base = language.toLowerCase(Locale.ROOT);
+        int separator = base.indexOf('-');
+        if (separator > 0) {
+            base = base.substring(0, separator);
+        }
+        switch (base) {
+            case "zh":
+                return CHINESE;
+            case "ja":
+                return JAPANESE;
+            case "ko":
+                return KOREAN;
+            case "hi":
+            case "mr":
+            case "ne":
+            case "sa":
+                return DEVANAGARI;
+            default:
+                return LATIN;
+        }
+    }
+
+    private static TextRecognizerOptionsInterface optionsFor(String script) {
+        switch (script) {
+            case CHINESE:
+                return new ChineseTextRecognizerOptions.Builder().build();
+            case DEVANAGARI:
+                return new DevanagariTextRecognizerOptions.Builder().build();
+            case JAPANESE:
+                return new JapaneseTextRecognizerOptions.Builder().build();
+            case KOREAN:
+                return new KoreanTextRecognizerOptions.Builder().build();
+            default:
+                return TextRecognizerOptions.DEFAULT_OPTIONS;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.rnocr;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed cache of recognition results: a size-bounded in-memory
+ * LRU in front of a size-bounded directory of {@link OCRResultCodec} files.
+ * Keys are SHA-256 digests of the source image bytes plus the options that
+ * influence recognition, so the same pixels are never recognized twice.
+ */
+final class ResultCache {
+
+    private static final String FILE_SUFFIX = ".ocr";
+    private static final int DIGEST_MEMO_ENTRIES = 256;
+
+    private final File directory;
+    private final long maxMemoryBytes;
+    private final long maxDiskBytes;
+
+    private final LinkedHashMap<String, OCRResult> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+
+    // Avoids re-hashing unchanged files: path|length|mtime -> content digest.
+    private final LinkedHashMap<String, String> digestMemo =
+        new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > DIGEST_MEMO_ENTRIES;
+            }
+        };
+
+    private final Object diskLock = new Object();
+    private long diskBytes = -1;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    ResultCache(File directory, long maxMemoryBytes, long maxDiskBytes) {
+        this.directory = directory;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxDiskBytes = maxDiskBytes;
+    }
+
+    /**
+     * Builds the cache key for an image. {@code file} may be null; when set, the
+     * content digest is memoized against its length and modification time.
+     */
+    String keyFor(BitmapDecoder.Source source, File file, String optionsKey) throws IOException {
+        String contentDigest = null;
+        String memoKey = null;
+        if (file != null) {
+            memoKey = file.getPath() + '|' + file.length() + '|' + file.lastModified();
+            synchronized (digestMemo) {
+                contentDigest = digestMemo.get(memoKey);
+            }
+        }
+        if (contentDigest == null) {
+            try (InputStream in = source.open()) {
+                contentDigest = digest(in);
+            }
+            if (memoKey != null) {
+                synchronized (digestMemo) {
+                    digestMemo.put(memoKey, contentDigest);
+                }
+            }
+        }
+        return sha256Hex((contentDigest + '|' + optionsKey).getBytes(StandardCharsets.UTF_8));
+    }
+
+    OCRResult get(String key) {
+        synchronized (memory) {
+            OCRResult cached = memory.get(key);
+            if (cached != null) {
+                memoryHits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        OCRResult fromDisk = readDisk(key);
+        if (fromDisk != null) {
+            diskHits.incrementAndGet();
+            putMemory(key, fromDisk);
+            return fromDisk;
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    void put(String key, OCRResult result) {
+        putMemory(key, result);
+        writeDisk(key, result);
+    }
+
+    void clear() {
+        synchronized (memory) {
+            memory.clear();
+            memoryBytes = 0;
+        }
+        synchronized (diskLock) {
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            diskBytes = 0;
+        }
+    }
+
+    /**
+     * Drops least recently used in-memory entries until at most
+     * {@code targetBytes} remain. Entries stay available on disk.
+     */
+    void trimMemory(long targetBytes) {
+        synchronized (memory) {
+            trimMemoryTo(Math.max(0, targetBytes));
+        }
+    }
+
+    long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    long getDiskHits() {
+        return diskHits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    long getMemoryBytes() {
+        synchronized (memory) {
+            return memoryBytes;
+        }
+    }
+
+    int getMemoryEntries() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    long getDiskBytes() {
+        synchronized (diskLock) {
+            ensureDiskSize();
+            return diskBytes;
+        }
+    }
+
+    private void putMemory(String key, OCRResult result) {
+        int size = OCRResultCodec.estimateSize(result);
+        if (size > maxMemoryBytes) {
+            return;
+        }
+        synchronized (memory) {
+            OCRResult previous = memory.put(key, result);
+            if (previous != null) {
+                memoryBytes -= OCRResultCodec.estimateSize(previous);
+            }
+            memoryBytes += size;
+            trimMemoryTo(maxMemoryBytes);
+        }
+    }
+
+    private void trimMemoryTo(long targetBytes) {
+        Iterator<Map.Entry<String, OCRResult>> it = memory.entrySet().iterator();
+        while (memoryBytes > targetBytes && it.hasNext()) {
+            Map.Entry<String, OCRResult> eldest = it.next();
+            memoryBytes -= OCRResultCodec.estimateSize(eldest.getValue());
+            it.remove();
+        }
+    }
+
+    private OCRResult readDisk(String key) {
+        File file = new File(directory, key + FILE_SUFFIX);
+        synchronized (diskLock) {
+            if (!file.isFile()) {
+                return null;
+            }
+            try {
+                byte[] data = new byte[(int) file.length()];
+                try (FileInputStream in = new FileInputStream(file)) {
+                    int offset = 0;
+                    while (offset < data.length) {
+                        int read = in.read(data, offset, data.length - offset);
+                        if (read < 0) {
+                            throw new IOException("Truncated cache entry");
+                        }
+                        offset += read;
+                    }
+                }
+                OCRResult result = OCRResultCodec.decode(data);
+                if (result == null) {
+                    deleteLocked(file);
+                    return null;
+                }
+                // Modification time doubles as the disk tier's recency marker.
+                file.setLastModified(System.currentTimeMillis());
+                return result;
+            } catch (IOException | RuntimeException e) {
+                // Anything unreadable is treated as a miss and dropped.
+                deleteLocked(file);
+                return null;
+            }
+        }
+    }
+
+    private void writeDisk(String key, OCRResult result) {
+        if (maxDiskBytes <= 0) {
+            return;
+        }
+        byte[] data;
+        try {
+            data = OCRResultCodec.encode(result);
+        } catch (IOException e) {
+            return;
+        }
+        if (data.length > maxDiskBytes) {
+            return;
+        }
+
+        synchronized (diskLock) {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                return;
+            }
+            ensureDiskSize();
+            File target = new File(directory, key + FILE_SUFFIX);
+            File temp = new File(directory, key + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                out.write(data);
+            } catch (IOException e) {
+                temp.delete();
+                return;
+            }
+            long previous = target.isFile() ? target.length() : 0;
+            if (!temp.renameTo(target)) {
+                temp.delete();
+                return;
+            }
+            diskBytes += data.length - previous;
+            if (diskBytes > maxDiskBytes) {
+                trimDiskTo(maxDiskBytes * 9 / 10);
+            }
+        }
+    }
+
+    private void trimDiskTo(long targetBytes) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            if (diskBytes <= targetBytes) {
+                break;
+            }
+            deleteLocked(file);
+        }
+    }
+
+    private void ensureDiskSize() {
+        if (diskBytes >= 0) {
+            return;
+        }
+        long total = 0;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                total += file.length();
+            }
+        }
+        diskBytes = total;
+    }
+
+    private void deleteLocked(File file) {
+        long length = file.length();
+        if (file.delete() && diskBytes >= 0) {
+            diskBytes -= length;
+        }
+    }
+
+    private static String digest(InputStream in) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            digest.update(buffer, 0, read);
+        }
+        return toHex(digest.digest());
+    }
+
+    private static String sha256Hex(byte[] data) {
+        return toHex(newDigest().digest(data));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xFF;
+            hex[i * 2] = Character.forDigit(v >>> 4, 16);
+            hex[i * 2 + 1] = Character.forDigit(v & 0x0F, 16);
+        }
+        return new String(hex);
+    }
+}
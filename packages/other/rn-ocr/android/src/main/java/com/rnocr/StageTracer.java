@@ -0,0 +1,86 @@
+package com.rnocr;
+
+import android.os.Build;
+import android.os.Trace;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Times pipeline stages with {@link System#nanoTime()} and mirrors them as
+ * {@link Trace} sections so they show up in Perfetto / systrace captures.
+ *
+ * <p>Synchronous stages use {@link #begin}/{@link #end} on one thread.
+ * ML Kit inference completes on another thread, so it uses
+ * {@link #beginAsync}/{@link #endAsync}, which map to async trace sections on
+ * Android 10+ and are timing-only below that.
+ */
+final class StageTracer {
+
+    private static final String[] SECTION_NAMES = new String[OCRStats.STAGE_NAMES.length];
+    private static final AtomicInteger COOKIES = new AtomicInteger();
+
+    static {
+        for (int i = 0; i < SECTION_NAMES.length; i++) {
+            SECTION_NAMES[i] = "RNOCR:" + OCRStats.STAGE_NAMES[i];
+        }
+    }
+
+    private final OCRStats stats;
+
+    StageTracer(OCRStats stats) {
+        this.stats = stats;
+    }
+
+    OCRStats getStats() {
+        return stats;
+    }
+
+    long begin(int stage) {
+        Trace.beginSection(SECTION_NAMES[stage]);
+        return System.nanoTime();
+    }
+
+    /** @param timings per-request accumulator, or null to record only into the rolling stats */
+    long end(int stage, long startedAt, OCRStats.Timings timings) {
+        long elapsed = System.nanoTime() - startedAt;
+        Trace.endSection();
+        record(stage, elapsed, timings);
+        return elapsed;
+    }
+
+    static final class Span {
+        final int stage;
+        final int cookie;
+        final long startedAt;
+
+        Span(int stage, int cookie, long startedAt) {
+            this.stage = stage;
+            this.cookie = cookie;
+            this.startedAt = startedAt;
+        }
+    }
+
+    Span beginAsync(int stage) {
+        int cookie = COOKIES.incrementAndGet();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(SECTION_NAMES[stage], cookie);
+        }
+        return new Span(stage, cookie, System.nanoTime());
+    }
+
+    long endAsync(Span span, OCRStats.Timings timings) {
+        long elapsed = System.nanoTime() - span.startedAt;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(SECTION_NAMES[span.stage], span.cookie);
+        }
+        record(span.stage, elapsed, timings);
+        return elapsed;
+    }
+
+    void record(int stage, long elapsed, OCRStats.Timings timings) {
+        stats.record(stage, elapsed);
+        if (timings != null) {
+            timings.add(stage, elapsed);
+        }
+    }
+}
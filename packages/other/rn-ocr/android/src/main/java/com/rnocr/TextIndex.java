@@ -0,0 +1,222 @@
+package com.rnocr;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * On-device full-text index of recognition results, one row per block.
+ *
+ * <p>Block text lives in an FTS4 table whose docid is the block's row id, so
+ * a MATCH joins straight to the block's geometry and source document. Hits
+ * come back newest block first; FTS4 can walk its doclists in descending
+ * docid order, so {@code LIMIT} stops the scan early instead of sorting every
+ * match. Two- and three-character prefix indexes keep short prefix queries
+ * from expanding over the whole vocabulary.
+ *
+ * <p>Not thread-safe for writes; callers serialize access on one executor.
+ */
+final class TextIndex extends SQLiteOpenHelper {
+
+    static final String DATABASE_NAME = "rnocr-index.db";
+    /** Page number stored for single images. */
+    static final int NO_PAGE = -1;
+    private static final int VERSION = 1;
+
+    static final class Hit {
+        final String uri;
+        final int page;
+        final String text;
+        final int left;
+        final int top;
+        final int right;
+        final int bottom;
+
+        Hit(String uri, int page, String text, int left, int top, int right, int bottom) {
+            this.uri = uri;
+            this.page = page;
+            this.text = text;
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+        }
+    }
+
+    TextIndex(Context context) {
+        super(context, DATABASE_NAME, null, VERSION);
+        // Lets searches read while a batch is still being written.
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE documents ("
+            + "id INTEGER PRIMARY KEY, "
+            + "uri TEXT NOT NULL, "
+            + "page INTEGER NOT NULL, "
+            + "indexed_at INTEGER NOT NULL, "
+            + "UNIQUE (uri, page))");
+        db.execSQL("CREATE TABLE blocks ("
+            + "id INTEGER PRIMARY KEY, "
+            + "document_id INTEGER NOT NULL, "
+            + "left INTEGER NOT NULL, "
+            + "top INTEGER NOT NULL, "
+            + "right INTEGER NOT NULL, "
+            + "bottom INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX blocks_document ON blocks (document_id)");
+        try {
+            db.execSQL("CREATE VIRTUAL TABLE block_text USING fts4 (content, tokenize=unicode61, prefix=\"2,3\")");
+        } catch (SQLiteException e) {
+            // Some vendor builds of SQLite ship without the unicode61 tokenizer.
+            db.execSQL("CREATE VIRTUAL TABLE block_text USING fts4 (content, prefix=\"2,3\")");
+        }
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // The index only holds derived data; rebuild it rather than migrate.
+        db.execSQL("DROP TABLE IF EXISTS block_text");
+        db.execSQL("DROP TABLE IF EXISTS blocks");
+        db.execSQL("DROP TABLE IF EXISTS documents");
+        onCreate(db);
+    }
+
+    /** Adds or replaces the blocks of {@code uri} (and {@code page} for PDFs). */
+    void put(String uri, int page, OCRResult result) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            delete(db, "uri = ? AND page = ?", new String[]{uri, String.valueOf(page)});
+
+            long documentId;
+            try (SQLiteStatement insert = db.compileStatement(
+                "INSERT INTO documents (uri, page, indexed_at) VALUES (?, ?, ?)")) {
+                insert.bindString(1, uri);
+                insert.bindLong(2, page);
+                insert.bindLong(3, System.currentTimeMillis());
+                documentId = insert.executeInsert();
+            }
+
+            try (SQLiteStatement insertBlock = db.compileStatement(
+                     "INSERT INTO blocks (document_id, left, top, right, bottom) VALUES (?, ?, ?, ?, ?)");
+                 SQLiteStatement insertText = db.compileStatement(
+                     "INSERT INTO block_text (docid, content) VALUES (?, ?)")) {
+                for (OCRResult.Region block : result.blocks) {
+                    if (block.text == null || block.text.isEmpty()) {
+                        continue;
+                    }
+                    insertBlock.bindLong(1, documentId);
+                    insertBlock.bindLong(2, block.left);
+                    insertBlock.bindLong(3, block.top);
+                    insertBlock.bindLong(4, block.right);
+                    insertBlock.bindLong(5, block.bottom);
+                    long blockId = insertBlock.executeInsert();
+
+                    insertText.bindLong(1, blockId);
+                    insertText.bindString(2, block.text);
+                    insertText.executeInsert();
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Runs an FTS4 MATCH query: terms, {@code prefix*}, {@code "exact phrase"},
+     * {@code OR}, {@code NOT} and {@code NEAR}.
+     *
+     * @throws SQLiteException if the query is malformed
+     */
+    List<Hit> search(String query, int limit) {
+        List<Hit> hits = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().rawQuery(
+            "SELECT d.uri, d.page, block_text.content, b.left, b.top, b.right, b.bottom "
+                + "FROM block_text "
+                + "JOIN blocks b ON b.id = block_text.docid "
+                + "JOIN documents d ON d.id = b.document_id "
+                + "WHERE block_text MATCH ? "
+                + "ORDER BY block_text.docid DESC "
+                + "LIMIT ?",
+            new String[]{query, String.valueOf(limit)})) {
+            while (cursor.moveToNext()) {
+                hits.add(new Hit(cursor.getString(0), cursor.getInt(1), cursor.getString(2),
+                    cursor.getInt(3), cursor.getInt(4), cursor.getInt(5), cursor.getInt(6)));
+            }
+        }
+        return hits;
+    }
+
+    /** Removes every page indexed for {@code uri}; returns how many were removed. */
+    int remove(String uri) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            int removed = delete(db, "uri = ?", new String[]{uri});
+            db.setTransactionSuccessful();
+            return removed;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    void clear() {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.execSQL("DELETE FROM block_text");
+            db.execSQL("DELETE FROM blocks");
+            db.execSQL("DELETE FROM documents");
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Merges the FTS segment b-trees left behind by incremental inserts into
+     * one, then rewrites the file to drop pages freed by deletes.
+     */
+    void compact() {
+        SQLiteDatabase db = getWritableDatabase();
+        db.execSQL("INSERT INTO block_text (block_text) VALUES ('optimize')");
+        db.execSQL("VACUUM");
+    }
+
+    long getDocumentCount() {
+        return count("SELECT COUNT(*) FROM documents");
+    }
+
+    long getBlockCount() {
+        return count("SELECT COUNT(*) FROM blocks");
+    }
+
+    /** Size of the database file plus its write-ahead log. */
+    long getSizeBytes() {
+        String path = getReadableDatabase().getPath();
+        return new File(path).length() + new File(path + "-wal").length();
+    }
+
+    private long count(String sql) {
+        try (SQLiteStatement statement = getReadableDatabase().compileStatement(sql)) {
+            return statement.simpleQueryForLong();
+        }
+    }
+
+    private static int delete(SQLiteDatabase db, String documentWhere, String[] args) {
+        db.execSQL("DELETE FROM block_text WHERE docid IN (SELECT id FROM blocks WHERE document_id IN "
+            + "(SELECT id FROM documents WHERE " + documentWhere + "))", args);
+        db.execSQL("DELETE FROM blocks WHERE document_id IN (SELECT id FROM documents WHERE "
+            + documentWhere + ")", args);
+        return db.delete("documents", documentWhere, args);
+    }
+}
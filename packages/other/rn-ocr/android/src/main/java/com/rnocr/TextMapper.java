@@ -0,0 +1,225 @@
+package com.rnocr;
+
+import android.graphics.Point;
+import android.graphics.Rect;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import com.google.mlkit.vision.text.Text;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts ML Kit output into {@link OCRResult} and results into bridge maps.
+ */
+final class TextMapper {
+
+    static final String[] LEVEL_NAMES = {"blocks", "lines", "elements"};
+
+    private TextMapper() {
+    }
+
+    /**
+     * Maps recognized-bitmap coordinates back to source pixels, undoing any
+     * deskew rotation before applying the decode's scale and offset.
+     */
+    static OCRResult fromText(Text text, BitmapDecoder.Decoded decoded) {
+        Transform transform = new Transform(decoded);
+        List<OCRResult.Region> blocks = new ArrayList<>(text.getTextBlocks().size());
+        for (Text.TextBlock block : text.getTextBlocks()) {
+            List<OCRResult.Region> lines = new ArrayList<>(block.getLines().size());
+            float confidenceSum = 0f;
+            for (Text.Line line : block.getLines()) {
+                List<OCRResult.Region> elements = new ArrayList<>(line.getElements().size());
+                for (Text.Element element : line.getElements()) {
+                    elements.add(region(element.getText(), element.getBoundingBox(), element.getCornerPoints(),
+                        element.getConfidence(), null, transform));
+                }
+                lines.add(region(line.getText(), line.getBoundingBox(), line.getCornerPoints(),
+                    line.getConfidence(), elements, transform));
+                confidenceSum += line.getConfidence();
+            }
+            // ML Kit has no block-level confidence; report the mean of its lines.
+            float blockConfidence = lines.isEmpty()
+                ? OCRResult.Region.UNKNOWN_CONFIDENCE
+                : confidenceSum / lines.size();
+            blocks.add(region(block.getText(), block.getBoundingBox(), block.getCornerPoints(),
+                blockConfidence, lines, transform));
+        }
+        return new OCRResult(text.getText(), blocks);
+    }
+
+    private static OCRResult.Region region(String text, Rect box, Point[] points, float confidence,
+                                           List<OCRResult.Region> children, Transform transform) {
+        if (box == null) {
+            box = new Rect();
+        }
+        int[] corners = null;
+        if (points != null && points.length == 4) {
+            corners = new int[8];
+            for (int i = 0; i < 4; i++) {
+                corners[i * 2] = transform.x(points[i].x, points[i].y);
+                corners[i * 2 + 1] = transform.y(points[i].x, points[i].y);
+            }
+        }
+        if (!transform.rotates()) {
+            return new OCRResult.Region(text, transform.x(box.left, box.top), transform.y(box.left, box.top),
+                transform.x(box.right, box.bottom), transform.y(box.right, box.bottom), corners, confidence,
+                children);
+        }
+
+        // A rotated box is no longer axis-aligned; report the bounds of its rotated corners.
+        int[] rotated = {
+            transform.x(box.left, box.top), transform.y(box.left, box.top),
+            transform.x(box.right, box.top), transform.y(box.right, box.top),
+            transform.x(box.right, box.bottom), transform.y(box.right, box.bottom),
+            transform.x(box.left, box.bottom), transform.y(box.left, box.bottom),
+        };
+        if (corners == null) {
+            corners = rotated;
+        }
+        int left = Integer.MAX_VALUE;
+        int top = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE;
+        int bottom = Integer.MIN_VALUE;
+        for (int i = 0; i < 8; i += 2) {
+            left = Math.min(left, rotated[i]);
+            right = Math.max(right, rotated[i]);
+            top = Math.min(top, rotated[i + 1]);
+            bottom = Math.max(bottom, rotated[i + 1]);
+        }
+        return new OCRResult.Region(text, left, top, right, bottom, corners, confidence, children);
+    }
+
+    /** Recognized-bitmap point to source-image point. */
+    private static final class Transform {
+        private final float scale;
+        private final int offsetX;
+        private final int offsetY;
+        private final double cos;
+        private final double sin;
+        private final double centerX;
+        private final double centerY;
+
+        Transform(BitmapDecoder.Decoded decoded) {
+            scale = decoded.scale();
+            offsetX = decoded.offsetX;
+            offsetY = decoded.offsetY;
+            double radians = Math.toRadians(decoded.skewDegrees);
+            cos = Math.cos(radians);
+            sin = Math.sin(radians);
+            // Same centre ImagePreprocessor.rotate() turned the plane about.
+            centerX = (decoded.bitmap.getWidth() - 1) / 2.0;
+            centerY = (decoded.bitmap.getHeight() - 1) / 2.0;
+        }
+
+        boolean rotates() {
+            return sin != 0;
+        }
+
+        int x(int x, int y) {
+            double rx = rotates() ? cos * (x - centerX) - sin * (y - centerY) + centerX : x;
+            return (int) Math.round(rx * scale) + offsetX;
+        }
+
+        int y(int x, int y) {
+            double ry = rotates() ? sin * (x - centerX) + cos * (y - centerY) + centerY : y;
+            return (int) Math.round(ry * scale) + offsetY;
+        }
+    }
+
+    /**
+     * @param granularity deepest level to include in a flat {@code layout}, or
+     *     -1 to return only the text and first bounding box
+     */
+    static WritableMap toMap(OCRResult result, int granularity) {
+        WritableMap resultMap = Arguments.createMap();
+        resultMap.putString("text", result.text);
+
+        if (!result.blocks.isEmpty()) {
+            OCRResult.Region firstBlock = result.blocks.get(0);
+            WritableMap boundingBox = Arguments.createMap();
+            boundingBox.putInt("x", firstBlock.left);
+            boundingBox.putInt("y", firstBlock.top);
+            boundingBox.putInt("width", firstBlock.width());
+            boundingBox.putInt("height", firstBlock.height());
+            resultMap.putMap("boundingBox", boundingBox);
+        }
+
+        if (granularity >= OCRResult.LEVEL_BLOCK) {
+            resultMap.putMap("layout", toLayoutMap(FlatLayout.encode(result, granularity)));
+        }
+
+        return resultMap;
+    }
+
+    static WritableMap toLayoutMap(FlatLayout layout) {
+        WritableMap layoutMap = Arguments.createMap();
+        layoutMap.putString("granularity", granularityName(layout.granularity));
+        layoutMap.putInt("geometryStride", FlatLayout.GEOMETRY_STRIDE);
+        for (int d = 0; d < layout.levels.length; d++) {
+            FlatLayout.Level level = layout.levels[d];
+            WritableMap levelMap = Arguments.createMap();
+            levelMap.putInt("count", level.count);
+
+            WritableArray text = Arguments.createArray();
+            for (String value : level.text) {
+                text.pushString(value);
+            }
+            levelMap.putArray("text", text);
+
+            WritableArray geometry = Arguments.createArray();
+            for (int value : level.geometry) {
+                geometry.pushInt(value);
+            }
+            levelMap.putArray("geometry", geometry);
+
+            WritableArray confidence = Arguments.createArray();
+            for (float value : level.confidence) {
+                confidence.pushDouble(value);
+            }
+            levelMap.putArray("confidence", confidence);
+
+            if (level.childOffsets != null) {
+                WritableArray offsets = Arguments.createArray();
+                for (int value : level.childOffsets) {
+                    offsets.pushInt(value);
+                }
+                levelMap.putArray("childOffsets", offsets);
+            }
+            layoutMap.putMap(LEVEL_NAMES[d], levelMap);
+        }
+        return layoutMap;
+    }
+
+    /** Parses the JS {@code granularity} option; returns -1 when absent. */
+    static int parseGranularity(String value) {
+        if (value == null) {
+            return -1;
+        }
+        switch (value) {
+            case "block":
+                return OCRResult.LEVEL_BLOCK;
+            case "line":
+                return OCRResult.LEVEL_LINE;
+            case "element":
+                return OCRResult.LEVEL_ELEMENT;
+            default:
+                return -1;
+        }
+    }
+
+    private static String granularityName(int level) {
+        switch (level) {
+            case OCRResult.LEVEL_LINE:
+                return "line";
+            case OCRResult.LEVEL_ELEMENT:
+                return "element";
+            default:
+                return "block";
+        }
+    }
+}
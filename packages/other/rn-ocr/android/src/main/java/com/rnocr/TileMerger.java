@@ -0,0 +1,128 @@
+package com.rnocr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits large pages into overlapping tiles and stitches per-tile results back
+ * into a single page-space {@link OCRResult}.
+ */
+final class TileMerger {
+
+    /** Blocks overlapping by more than this fraction of the smaller one are duplicates. */
+    private static final float DUPLICATE_OVERLAP = 0.6f;
+
+    private TileMerger() {
+    }
+
+    /**
+     * Covers {@code [left, right) x [top, bottom)} with tiles of at most
+     * {@code tileSize} pixels that overlap their neighbours by at least
+     * {@code overlap}. Tiles are spread evenly so the first and last tile of
+     * each row and column sit exactly on the edges.
+     *
+     * @return one {left, top, right, bottom} array per tile, row by row
+     */
+    static List<int[]> grid(int left, int top, int right, int bottom, int tileSize, int overlap) {
+        int[] xs = spread(left, right, tileSize, overlap);
+        int[] ys = spread(top, bottom, tileSize, overlap);
+        List<int[]> tiles = new ArrayList<>(xs.length * ys.length);
+        for (int y : ys) {
+            for (int x : xs) {
+                tiles.add(new int[]{x, y, Math.min(right, x + tileSize), Math.min(bottom, y + tileSize)});
+            }
+        }
+        return tiles;
+    }
+
+    private static int[] spread(int start, int end, int tileSize, int overlap) {
+        int span = end - start;
+        if (span <= tileSize) {
+            return new int[]{start};
+        }
+        int step = Math.max(1, tileSize - Math.max(0, overlap));
+        int count = (span - tileSize + step - 1) / step + 1;
+        int[] starts = new int[count];
+        for (int i = 0; i < count; i++) {
+            starts[i] = start + (int) Math.round((double) i * (span - tileSize) / (count - 1));
+        }
+        return starts;
+    }
+
+    /**
+     * Merges page-space tile results. A block seen by two tiles is kept once;
+     * the larger copy wins because the smaller one was usually cut by a seam.
+     */
+    static OCRResult merge(List<OCRResult> tiles) {
+        List<OCRResult.Region> kept = new ArrayList<>();
+        for (OCRResult tile : tiles) {
+            for (OCRResult.Region block : tile.blocks) {
+                int duplicate = findDuplicate(kept, block);
+                if (duplicate < 0) {
+                    kept.add(block);
+                } else if (area(block) > area(kept.get(duplicate))) {
+                    kept.set(duplicate, block);
+                }
+            }
+        }
+
+        sortInReadingOrder(kept);
+
+        StringBuilder text = new StringBuilder();
+        for (OCRResult.Region block : kept) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(block.text);
+        }
+        return new OCRResult(text.toString(), kept);
+    }
+
+    private static int findDuplicate(List<OCRResult.Region> kept, OCRResult.Region block) {
+        long blockArea = area(block);
+        for (int i = 0; i < kept.size(); i++) {
+            OCRResult.Region other = kept.get(i);
+            long overlap = intersection(block, other);
+            long smaller = Math.min(blockArea, area(other));
+            if (smaller > 0 && overlap > smaller * DUPLICATE_OVERLAP) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void sortInReadingOrder(List<OCRResult.Region> blocks) {
+        Collections.sort(blocks, (a, b) -> Integer.compare(a.top + a.bottom, b.top + b.bottom));
+
+        // Group blocks whose vertical centres sit within half a block height of the
+        // row's first block, then order each row left to right. Grouping first keeps
+        // the comparator transitive, which a tolerance-based comparator would not be.
+        int rowStart = 0;
+        while (rowStart < blocks.size()) {
+            OCRResult.Region first = blocks.get(rowStart);
+            int rowCentre = (first.top + first.bottom) / 2;
+            int rowEnd = rowStart + 1;
+            while (rowEnd < blocks.size()) {
+                OCRResult.Region next = blocks.get(rowEnd);
+                int tolerance = Math.min(first.height(), next.height()) / 2;
+                if ((next.top + next.bottom) / 2 - rowCentre > tolerance) {
+                    break;
+                }
+                rowEnd++;
+            }
+            Collections.sort(blocks.subList(rowStart, rowEnd), (a, b) -> Integer.compare(a.left, b.left));
+            rowStart = rowEnd;
+        }
+    }
+
+    private static long area(OCRResult.Region region) {
+        return (long) Math.max(0, region.width()) * Math.max(0, region.height());
+    }
+
+    private static long intersection(OCRResult.Region a, OCRResult.Region b) {
+        int width = Math.min(a.right, b.right) - Math.max(a.left, b.left);
+        int height = Math.min(a.bottom, b.bottom) - Math.max(a.top, b.top);
+        return width > 0 && height > 0 ? (long) width * height : 0;
+    }
+}
@@ -0,0 +1,343 @@
+package com.rnocr;
+
+import android.graphics.Bitmap;
+import android.media.MediaMetadataRetriever;
+import android.os.Build;
+
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.text.TextRecognizer;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Samples a video every {@code intervalMs} with {@link MediaMetadataRetriever}
+ * and recognizes only the frames that differ from the last recognized one,
+ * overlapping the extraction of the next sample with the recognition of the
+ * current frame.
+ *
+ * <p>Each extracted frame is reduced to a {@link FrameFingerprint}; frames
+ * whose fingerprint is within {@code changeThreshold} of the last recognized
+ * frame are dropped before they reach the recognizer. Comparing against the
+ * last recognized frame, rather than the previous sample, lets slow drift add
+ * up until it is recognized. At most one frame waits for the recognizer, so
+ * memory stays at two frames whatever the video length.
+ */
+final class VideoPipeline {
+
+    static final long DEFAULT_INTERVAL_MS = 1000;
+    static final float DEFAULT_CHANGE_THRESHOLD = 0.01f;
+
+    interface Listener {
+        void onFrame(long timeMs, OCRResult result, String errorCode, String errorMessage,
+                     int sampled, int skipped, int total);
+
+        void onComplete(boolean cancelled);
+    }
+
+    private static final class Frame {
+        final long timeMs;
+        final BitmapDecoder.Decoded decoded;
+
+        Frame(long timeMs, BitmapDecoder.Decoded decoded) {
+            this.timeMs = timeMs;
+            this.decoded = decoded;
+        }
+    }
+
+    private final MediaMetadataRetriever retriever;
+    private final long durationMs;
+    private final long intervalMs;
+    private final int sampleCount;
+    private final int maxDimension;
+    private final float changeThreshold;
+    private final int seekOption;
+    private final int sourceWidth;
+    private final int sourceHeight;
+    private final TextRecognizer recognizer;
+    private final Executor executor;
+    private final StageTracer tracer;
+    private final Listener listener;
+
+    // Only touched by the single extraction in flight.
+    private final FrameFingerprint fingerprint = new FrameFingerprint();
+    private int[] row = new int[0];
+
+    private int nextSample;
+    private boolean extracting;
+    private boolean recognizing;
+    private Frame pending;
+    private byte[] lastFingerprint;
+    private int sampled;
+    private int skipped;
+    private int failed;
+    private boolean cancelled;
+    private boolean finished;
+
+    /**
+     * @param retriever opened on the video; released when the pipeline completes
+     * @param maxDimension longest side frames are extracted at, or 0 for the
+     *     video's size; results are still reported in video pixels
+     * @param keyframesOnly seek to the nearest sync frame, which is much
+     *     faster to extract but may repeat a frame across samples
+     */
+    VideoPipeline(MediaMetadataRetriever retriever, long intervalMs, int maxDimension, float changeThreshold,
+                  boolean keyframesOnly, TextRecognizer recognizer, Executor executor, StageTracer tracer,
+                  Listener listener) {
+        this.retriever = retriever;
+        this.durationMs = parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION));
+        this.intervalMs = intervalMs > 0 ? intervalMs : DEFAULT_INTERVAL_MS;
+        this.sampleCount = durationMs > 0 ? (int) Math.min(Integer.MAX_VALUE, (durationMs - 1) / this.intervalMs + 1) : 0;
+        this.maxDimension = maxDimension;
+        this.changeThreshold = changeThreshold;
+        this.seekOption = keyframesOnly
+            ? MediaMetadataRetriever.OPTION_CLOSEST_SYNC
+            : MediaMetadataRetriever.OPTION_CLOSEST;
+        int width = (int) parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_VIDEO_WIDTH));
+        int height = (int) parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_VIDEO_HEIGHT));
+        int rotation = (int) parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_VIDEO_ROTATION));
+        // Extracted frames come out upright, so sideways videos swap their stored size.
+        boolean sideways = rotation == 90 || rotation == 270;
+        this.sourceWidth = sideways ? height : width;
+        this.sourceHeight = sideways ? width : height;
+        this.recognizer = recognizer;
+        this.executor = executor;
+        this.tracer = tracer;
+        this.listener = listener;
+    }
+
+    long getDurationMs() {
+        return durationMs;
+    }
+
+    int getSampleCount() {
+        return sampleCount;
+    }
+
+    synchronized int getSampled() {
+        return sampled;
+    }
+
+    synchronized int getSkipped() {
+        return skipped;
+    }
+
+    synchronized int getFailed() {
+        return failed;
+    }
+
+    void start() {
+        pump();
+    }
+
+    /**
+     * Stops sampling. A frame already handed to the recognizer finishes first,
+     * then {@link Listener#onComplete} reports the cancellation.
+     */
+    void cancel() {
+        Frame dropped;
+        synchronized (this) {
+            cancelled = true;
+            dropped = pending;
+            pending = null;
+        }
+        if (dropped != null) {
+            dropped.decoded.bitmap.recycle();
+        }
+        pump();
+    }
+
+    private void pump() {
+        int sample = -1;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            if (cancelled || nextSample >= sampleCount) {
+                if (extracting || recognizing || pending != null) {
+                    return;
+                }
+                finished = true;
+            } else if (extracting || pending != null) {
+                return;
+            } else {
+                sample = nextSample++;
+                extracting = true;
+            }
+        }
+
+        if (sample < 0) {
+            executor.execute(this::close);
+        } else {
+            int next = sample;
+            executor.execute(() -> extract(next));
+        }
+    }
+
+    private void extract(int sample) {
+        long timeMs = sample * intervalMs;
+        Bitmap bitmap = null;
+        byte[] frameFingerprint = null;
+        // Frame extraction is this pipeline's decode stage.
+        long decodeStart = tracer.begin(OCRStats.DECODE);
+        try {
+            bitmap = grab(timeMs * 1000);
+            if (bitmap != null) {
+                tracer.getStats().addBytesDecoded(bitmap.getByteCount());
+                frameFingerprint = fingerprintOf(bitmap);
+            }
+        } catch (RuntimeException e) {
+            if (bitmap != null) {
+                bitmap.recycle();
+                bitmap = null;
+            }
+        }
+        tracer.end(OCRStats.DECODE, decodeStart, null);
+
+        Frame start = null;
+        boolean drop = false;
+        synchronized (this) {
+            extracting = false;
+            sampled++;
+            if (bitmap == null) {
+                failed++;
+            } else if (cancelled) {
+                drop = true;
+            } else if (lastFingerprint != null
+                && FrameFingerprint.difference(lastFingerprint, frameFingerprint) < changeThreshold) {
+                skipped++;
+                drop = true;
+            } else {
+                lastFingerprint = frameFingerprint;
+                int width = sourceWidth > 0 ? sourceWidth : bitmap.getWidth();
+                int height = sourceHeight > 0 ? sourceHeight : bitmap.getHeight();
+                Frame frame = new Frame(timeMs, new BitmapDecoder.Decoded(bitmap, width, height));
+                if (recognizing) {
+                    pending = frame;
+                } else {
+                    recognizing = true;
+                    start = frame;
+                }
+            }
+        }
+        if (drop) {
+            bitmap.recycle();
+        }
+        if (start != null) {
+            recognize(start);
+        }
+        pump();
+    }
+
+    private Bitmap grab(long timeUs) {
+        if (maxDimension > 0 && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1
+            && Math.max(sourceWidth, sourceHeight) > maxDimension) {
+            // Decodes straight to the smaller size instead of scaling a full-size frame.
+            return retriever.getScaledFrameAtTime(timeUs, seekOption, maxDimension, maxDimension);
+        }
+        Bitmap frame = retriever.getFrameAtTime(timeUs, seekOption);
+        if (frame == null || maxDimension <= 0) {
+            return frame;
+        }
+        int longest = Math.max(frame.getWidth(), frame.getHeight());
+        if (longest <= maxDimension) {
+            return frame;
+        }
+        float fit = (float) maxDimension / longest;
+        Bitmap scaled = Bitmap.createScaledBitmap(frame,
+            Math.max(1, Math.round(frame.getWidth() * fit)),
+            Math.max(1, Math.round(frame.getHeight() * fit)),
+            true);
+        if (scaled != frame) {
+            frame.recycle();
+        }
+        return scaled;
+    }
+
+    private byte[] fingerprintOf(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        if (row.length < width) {
+            row = new int[width];
+        }
+        fingerprint.reset(width, height);
+        for (int y = 0; y < height; y++) {
+            bitmap.getPixels(row, 0, width, 0, y, width, 1);
+            fingerprint.addRow(y, row);
+        }
+        return fingerprint.finish();
+    }
+
+    private void recognize(Frame frame) {
+        try {
+            InputImage image = InputImage.fromBitmap(frame.decoded.bitmap, 0);
+            StageTracer.Span inference = tracer.beginAsync(OCRStats.INFERENCE);
+            recognizer.process(image).addOnCompleteListener(executor, task -> {
+                tracer.endAsync(inference, null);
+                OCRResult result = null;
+                if (task.isSuccessful()) {
+                    long marshal = tracer.begin(OCRStats.MARSHAL);
+                    result = TextMapper.fromText(task.getResult(), frame.decoded);
+                    tracer.end(OCRStats.MARSHAL, marshal, null);
+                }
+                frame.decoded.bitmap.recycle();
+                if (result != null) {
+                    finishFrame(frame, result, null, null);
+                } else {
+                    Exception e = task.getException();
+                    finishFrame(frame, null, "RECOGNITION_FAILED", e != null ? e.getMessage() : null);
+                }
+            });
+        } catch (Exception e) {
+            frame.decoded.bitmap.recycle();
+            finishFrame(frame, null, "UNKNOWN", e.getMessage());
+        }
+    }
+
+    private void finishFrame(Frame frame, OCRResult result, String errorCode, String errorMessage) {
+        int sampledSoFar;
+        int skippedSoFar;
+        synchronized (this) {
+            if (result == null) {
+                failed++;
+            }
+            sampledSoFar = sampled;
+            skippedSoFar = skipped;
+        }
+        listener.onFrame(frame.timeMs, result, errorCode, errorMessage, sampledSoFar, skippedSoFar, sampleCount);
+
+        // Frames are recognized one at a time so events arrive in timestamp order.
+        Frame next;
+        synchronized (this) {
+            next = pending;
+            pending = null;
+            recognizing = next != null;
+        }
+        if (next != null) {
+            recognize(next);
+        }
+        pump();
+    }
+
+    private void close() {
+        boolean wasCancelled;
+        synchronized (this) {
+            wasCancelled = cancelled;
+        }
+        try {
+            retriever.release();
+        } catch (Exception ignored) {
+        }
+        listener.onComplete(wasCancelled);
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
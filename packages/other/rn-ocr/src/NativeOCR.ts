@@ -1,5 +1,24 @@
 import { NativeModules, NativeEventEmitter } from 'react-native';
-import type { OCROptions, OCRResult } from './types';
+import type {
+  OCRBatchOptions,
+  OCRBlobData,
+  OCRCacheStats,
+  OCRCompactResult,
+  OCRIndexStats,
+  OCRMemoryStats,
+  OCRBatchResult,
+  OCROptions,
+  OCRPdfOptions,
+  OCRPdfResult,
+  OCRResult,
+  OCRScript,
+  OCRSearchOptions,
+  OCRSearchResult,
+  OCRStats,
+  OCRVideoOptions,
+  OCRVideoResult,
+  OCRWarmUpResult,
+} from './types';
 
 const LINKING_ERROR =
   `The package 'rn-ocr' doesn't seem to be linked. Make sure: \n\n` +
@@ -21,6 +40,30 @@ export const OCREmitter = new NativeEventEmitter(RNOCR);
 
 export interface NativeOCRModule {
   recognizeText(imageUri: string, options?: OCROptions): Promise<OCRResult>;
+  recognizeBlob(blob: OCRBlobData, options?: OCROptions): Promise<OCRResult>;
+  recognizeTextBatch(
+    imageUris: string[],
+    options?: OCRBatchOptions
+  ): Promise<OCRBatchResult>;
+  recognizePdf(pdfUri: string, options?: OCRPdfOptions): Promise<OCRPdfResult>;
+  recognizeVideo(
+    videoUri: string,
+    options?: OCRVideoOptions
+  ): Promise<OCRVideoResult>;
+  cancelRecognition(requestId: string): Promise<boolean>;
+  cancelAll(): Promise<number>;
+  cancelPdfRecognition(jobId: string): Promise<boolean>;
+  warmUp(scripts: OCRScript[]): Promise<OCRWarmUpResult>;
+  clearOCRCache(): Promise<void>;
+  getOCRCacheStats(): Promise<OCRCacheStats>;
+  getOCRStats(): Promise<OCRStats>;
+  getMemoryStats(): Promise<OCRMemoryStats>;
+  searchText(query: string, options?: OCRSearchOptions): Promise<OCRSearchResult>;
+  removeFromIndex(uri: string): Promise<number>;
+  clearIndex(): Promise<void>;
+  compactIndex(): Promise<OCRCompactResult>;
+  getIndexStats(): Promise<OCRIndexStats>;
+  resetOCRStats(): Promise<void>;
   requestPermissions(): Promise<boolean>;
   checkPermissions(): Promise<boolean>;
 }
@@ -5,9 +5,26 @@ import type {
   OCRResult,
   OCRError,
   OCREvents,
+  OCRBatchOptions,
+  OCRBatchResult,
+  OCRBlobData,
+  OCRCacheStats,
+  OCRCompactResult,
+  OCRIndexStats,
+  OCRMemoryStats,
+  OCRPdfOptions,
+  OCRPdfResult,
+  OCRScript,
+  OCRSearchOptions,
+  OCRSearchResult,
+  OCRStats,
+  OCRVideoOptions,
+  OCRVideoResult,
+  OCRWarmUpResult,
 } from './types';
 
 export * from './types';
+export { expandLayout } from './layout';
 
 class OCR {
   private listeners: EmitterSubscription[] = [];
@@ -26,6 +43,121 @@ class OCR {
     return NativeOCR.recognizeText(imageUri, defaultOptions);
   }
 
+  /**
+   * Recognizes a `Blob` held by React Native's native blob store (from
+   * `fetch(...).blob()`, for example) without converting it to base64.
+   */
+  async recognizeBlob(blob: Blob, options: OCROptions = {}): Promise<OCRResult> {
+    const { blobId, offset, size } = (blob as unknown as { data: OCRBlobData }).data;
+    const defaultOptions: OCROptions = {
+      language: 'en',
+      scanMode: 'text',
+      confidenceThreshold: 0.5,
+      ...options,
+    };
+
+    return NativeOCR.recognizeBlob({ blobId, offset, size }, defaultOptions);
+  }
+
+  async recognizeTextBatch(
+    imageUris: string[],
+    options: OCRBatchOptions = {}
+  ): Promise<OCRBatchResult> {
+    const defaultOptions: OCRBatchOptions = {
+      language: 'en',
+      scanMode: 'text',
+      confidenceThreshold: 0.5,
+      ...options,
+    };
+
+    return NativeOCR.recognizeTextBatch(imageUris, defaultOptions);
+  }
+
+  async recognizePdf(
+    pdfUri: string,
+    options: OCRPdfOptions = {}
+  ): Promise<OCRPdfResult> {
+    const defaultOptions: OCRPdfOptions = {
+      language: 'en',
+      scanMode: 'text',
+      confidenceThreshold: 0.5,
+      ...options,
+    };
+
+    return NativeOCR.recognizePdf(pdfUri, defaultOptions);
+  }
+
+  async recognizeVideo(
+    videoUri: string,
+    options: OCRVideoOptions = {}
+  ): Promise<OCRVideoResult> {
+    const defaultOptions: OCRVideoOptions = {
+      language: 'en',
+      scanMode: 'text',
+      confidenceThreshold: 0.5,
+      ...options,
+    };
+
+    return NativeOCR.recognizeVideo(videoUri, defaultOptions);
+  }
+
+  async cancelRecognition(requestId: string): Promise<boolean> {
+    return NativeOCR.cancelRecognition(requestId);
+  }
+
+  async cancelAll(): Promise<number> {
+    return NativeOCR.cancelAll();
+  }
+
+  /** @deprecated Use `cancelRecognition(jobId)`. */
+  async cancelPdfRecognition(jobId: string): Promise<boolean> {
+    return NativeOCR.cancelPdfRecognition(jobId);
+  }
+
+  async warmUp(scripts: OCRScript[] = ['latin']): Promise<OCRWarmUpResult> {
+    return NativeOCR.warmUp(scripts);
+  }
+
+  async clearOCRCache(): Promise<void> {
+    return NativeOCR.clearOCRCache();
+  }
+
+  async getOCRCacheStats(): Promise<OCRCacheStats> {
+    return NativeOCR.getOCRCacheStats();
+  }
+
+  async getOCRStats(): Promise<OCRStats> {
+    return NativeOCR.getOCRStats();
+  }
+
+  async resetOCRStats(): Promise<void> {
+    return NativeOCR.resetOCRStats();
+  }
+
+  async getMemoryStats(): Promise<OCRMemoryStats> {
+    return NativeOCR.getMemoryStats();
+  }
+
+  async searchText(query: string, options?: OCRSearchOptions): Promise<OCRSearchResult> {
+    return NativeOCR.searchText(query, options);
+  }
+
+  async removeFromIndex(uri: string): Promise<number> {
+    return NativeOCR.removeFromIndex(uri);
+  }
+
+  async clearIndex(): Promise<void> {
+    return NativeOCR.clearIndex();
+  }
+
+  async compactIndex(): Promise<OCRCompactResult> {
+    return NativeOCR.compactIndex();
+  }
+
+  async getIndexStats(): Promise<OCRIndexStats> {
+    return NativeOCR.getIndexStats();
+  }
+
   async requestPermissions(): Promise<boolean> {
     return NativeOCR.requestPermissions();
   }
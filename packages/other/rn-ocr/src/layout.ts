@@ -0,0 +1,56 @@
+import type { OCRLayout, OCRLayoutLevel, OCRRegion } from './types';
+
+const LEVELS = ['blocks', 'lines', 'elements'] as const;
+
+/**
+ * Expands a flat `layout` into nested region objects. Only call this for the
+ * regions you actually render; the packed arrays are cheaper to keep around.
+ */
+export function expandLayout(layout: OCRLayout): OCRRegion[] {
+  const levels = LEVELS.map((name) => layout[name]).filter(
+    (level): level is OCRLayoutLevel => level !== undefined
+  );
+  if (levels.length === 0) {
+    return [];
+  }
+  return expandRange(levels, layout.geometryStride, 0, 0, levels[0].count);
+}
+
+function expandRange(
+  levels: OCRLayoutLevel[],
+  stride: number,
+  depth: number,
+  start: number,
+  end: number
+): OCRRegion[] {
+  const level = levels[depth];
+  const regions: OCRRegion[] = [];
+  for (let i = start; i < end; i++) {
+    const g = i * stride;
+    const cornerPoints: OCRRegion['cornerPoints'] = [];
+    for (let c = 0; c < 4; c++) {
+      cornerPoints.push({
+        x: level.geometry[g + 4 + c * 2],
+        y: level.geometry[g + 5 + c * 2],
+      });
+    }
+    const confidence = level.confidence[i];
+    const offsets = level.childOffsets;
+    regions.push({
+      text: level.text[i],
+      boundingBox: {
+        x: level.geometry[g],
+        y: level.geometry[g + 1],
+        width: level.geometry[g + 2],
+        height: level.geometry[g + 3],
+      },
+      cornerPoints,
+      confidence: confidence >= 0 ? confidence : undefined,
+      children:
+        offsets && depth + 1 < levels.length
+          ? expandRange(levels, stride, depth + 1, offsets[i], offsets[i + 1])
+          : [],
+    });
+  }
+  return regions;
+}
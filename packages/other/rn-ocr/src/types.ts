@@ -1,7 +1,227 @@
 export interface OCROptions {
   language?: string;
+  /**
+   * Recognizer model to use. Derived from `language` when omitted (`zh`,
+   * `ja`, `ko`, `hi`/`mr`/`ne`/`sa`), otherwise Latin. Android only.
+   */
+  script?: OCRScript;
   scanMode?: 'text' | 'document' | 'barcode';
   confidenceThreshold?: number;
+  /**
+   * Longest side, in pixels, the image is downsampled to before recognition.
+   * Bounding boxes are still reported in source image pixels. `0` disables
+   * downsampling. Android only; defaults to 2048.
+   */
+  maxDimension?: number;
+  /**
+   * Reuse results for byte-identical images recognized with the same options.
+   * Android only; defaults to true.
+   */
+  cache?: boolean;
+  /**
+   * When set, the result carries a flat `layout` with every region down to
+   * this level. Android only.
+   */
+  granularity?: OCRGranularity;
+  /**
+   * Only recognize this rectangle, in source image pixels. Bounding boxes are
+   * still reported in full-image coordinates. Android only.
+   */
+  region?: OCRRect;
+  /**
+   * Split the image (or `region`) into tiles of at most this many source
+   * pixels per side, recognize each at full resolution and merge the results.
+   * Use for posters, blueprints and scans whose text is too small once the
+   * whole page is downsampled. `0` disables tiling. Android only.
+   */
+  tileSize?: number;
+  /** Overlap between neighbouring tiles in source pixels. Defaults to 128. */
+  tileOverlap?: number;
+  /**
+   * Native cleanup applied after decoding and before recognition. Helps with
+   * low-contrast or slightly rotated photos. Android only.
+   */
+  preprocess?: OCRPreprocessOptions;
+  /**
+   * Identifier for `cancelRecognition`. Generated when omitted and echoed
+   * back as `requestId` on the result. Android only.
+   */
+  requestId?: string;
+  /**
+   * Add the result's blocks to the on-device full-text index so they can be
+   * found with `searchText`. Android only; defaults to false.
+   */
+  index?: boolean;
+}
+
+export interface OCRPreprocessOptions {
+  /** Convert to grayscale. Implied by every other step. */
+  grayscale?: boolean;
+  /** Stretch the 1st..99th luminance percentiles to full range. */
+  contrast?: boolean;
+  /** Adaptive (local mean) black/white threshold; copes with shadows. */
+  binarize?: boolean;
+  /** Detect and undo up to 8 degrees of rotation. */
+  deskew?: boolean;
+}
+
+/** Per-step preprocessing cost reported by `recognizeText`. */
+export interface OCRPreprocessTimings {
+  grayscaleMs: number;
+  contrastMs: number;
+  deskewMs: number;
+  binarizeMs: number;
+  /** Copying the processed pixels back into the bitmap. */
+  writeBackMs: number;
+  totalMs: number;
+  /** Rotation that was corrected, in degrees; 0 when none. */
+  skewDegrees: number;
+}
+
+/** Wall-clock time spent in each stage of one call, in milliseconds. */
+export interface OCRTimings {
+  resolveMs: number;
+  cacheMs: number;
+  decodeMs: number;
+  preprocessMs: number;
+  inferenceMs: number;
+  marshalMs: number;
+  totalMs: number;
+}
+
+export type OCRStage = 'resolve' | 'cache' | 'decode' | 'preprocess' | 'inference' | 'marshal' | 'total';
+
+/** Latency percentiles of one stage over the last 256 samples. */
+export interface OCRStageStats {
+  count: number;
+  p50Ms: number;
+  p95Ms: number;
+  p99Ms: number;
+  maxMs: number;
+}
+
+export interface OCRStats {
+  /** Images recognized, counting each batch item and PDF page. */
+  calls: number;
+  failures: number;
+  /** Calls that ended with `CANCELLED`. */
+  cancelled: number;
+  bytesDecoded: number;
+  stages: Record<OCRStage, OCRStageStats>;
+}
+
+/** Memory held by the native module between calls. Android only. */
+export interface OCRMemoryStats {
+  /** Decoded bitmaps kept for reuse. */
+  bitmapPoolBytes: number;
+  /** In-memory tier of the result cache. */
+  resultCacheBytes: number;
+  /** Pixel buffers of pooled preprocessors. */
+  preprocessorBytes: number;
+  openRecognizers: number;
+  javaHeapBytes: number;
+  javaHeapMaxBytes: number;
+  nativeHeapBytes: number;
+  /** Last `ComponentCallbacks2` trim level received, 0 if none. */
+  lastTrimLevel: number;
+}
+
+/** The native handle React Native keeps in `blob.data`. */
+export interface OCRBlobData {
+  blobId: string;
+  offset?: number;
+  size: number;
+}
+
+export interface OCRSearchOptions {
+  /** Maximum number of matching blocks. Defaults to 100. */
+  limit?: number;
+}
+
+export interface OCRSearchBlock {
+  text: string;
+  boundingBox: OCRRect;
+}
+
+export interface OCRSearchDocument {
+  uri: string;
+  /** Zero-based page for PDF results. */
+  page?: number;
+  blocks: OCRSearchBlock[];
+}
+
+export interface OCRSearchResult {
+  query: string;
+  blockCount: number;
+  /** Sources with matching blocks, most recently indexed first. */
+  documents: OCRSearchDocument[];
+  durationMs: number;
+}
+
+export interface OCRIndexStats {
+  /** Indexed images and PDF pages. */
+  documents: number;
+  blocks: number;
+  sizeBytes: number;
+}
+
+export interface OCRCompactResult {
+  bytesBefore: number;
+  bytesAfter: number;
+  durationMs: number;
+}
+
+export interface OCRRect {
+  x: number;
+  y: number;
+  width: number;
+  height: number;
+}
+
+export type OCRScript = 'latin' | 'chinese' | 'devanagari' | 'japanese' | 'korean';
+
+export interface OCRWarmUpResult {
+  /** Recognizers currently loaded. */
+  scripts: OCRScript[];
+  durationMs: number;
+}
+
+export type OCRGranularity = 'block' | 'line' | 'element';
+
+/**
+ * Regions of one level packed into parallel arrays. Region `i` owns
+ * `geometry[i * stride .. (i + 1) * stride)`: x, y, width, height followed by
+ * four corner points (x0, y0 .. x3, y3, clockwise from top-left). Its
+ * children in the next level are `[childOffsets[i], childOffsets[i + 1])`.
+ */
+export interface OCRLayoutLevel {
+  count: number;
+  text: string[];
+  geometry: number[];
+  /** Recognizer confidence in [0, 1], or -1 when unknown. */
+  confidence: number[];
+  childOffsets?: number[];
+}
+
+export interface OCRLayout {
+  granularity: OCRGranularity;
+  geometryStride: number;
+  blocks: OCRLayoutLevel;
+  lines?: OCRLayoutLevel;
+  elements?: OCRLayoutLevel;
+}
+
+export interface OCRRegion {
+  text: string;
+  boundingBox: {
+    x: number;
+    y: number;
+    width: number;
+    height: number;
+  };
+  cornerPoints: { x: number; y: number }[];
+  confidence?: number;
+  children: OCRRegion[];
 }
 
 export interface OCRResult {
@@ -13,6 +233,13 @@ export interface OCRResult {
     width: number;
     height: number;
   };
+  layout?: OCRLayout;
+  /** Present when `preprocess` steps ran. Android only. */
+  preprocessing?: OCRPreprocessTimings;
+  /** Per-stage cost of this call. Android only. */
+  timings?: OCRTimings;
+  /** The call's `requestId`. Android only. */
+  requestId?: string;
 }
 
 export interface OCRError {
@@ -20,9 +247,146 @@ export interface OCRError {
   message: string;
 }
 
+export interface OCRBatchOptions extends OCROptions {
+  /** Maximum number of images being recognized at once. Defaults to 2. Android only. */
+  concurrency?: number;
+  /**
+   * Identifier echoed back in progress events and accepted by
+   * `cancelRecognition`. Falls back to `requestId`, generated when both are omitted.
+   */
+  batchId?: string;
+  /**
+   * Whether the resolved aggregate carries every item. Turn off for very
+   * large batches and consume `onBatchProgress` events instead. Defaults to true.
+   */
+  includeResults?: boolean;
+}
+
+export interface OCRBatchItem extends Partial<OCRResult> {
+  index: number;
+  uri: string;
+  error?: OCRError;
+}
+
+export interface OCRBatchResult {
+  batchId: string;
+  total: number;
+  succeeded: number;
+  failed: number;
+  durationMs: number;
+  results: OCRBatchItem[];
+}
+
+export interface OCRBatchProgress {
+  batchId: string;
+  completed: number;
+  total: number;
+  item: OCRBatchItem;
+}
+
+export interface OCRPdfOptions extends OCROptions {
+  /** Resolution pages are rendered at. Defaults to 200. */
+  dpi?: number;
+  /**
+   * Identifier used in `onPdfPage` events and by `cancelRecognition`. Falls
+   * back to `requestId`, generated when both are omitted.
+   */
+  jobId?: string;
+  /** Whether the resolved aggregate carries every page. Defaults to true. */
+  includeResults?: boolean;
+}
+
+/** Page result; bounding boxes are in pixels at the requested `dpi`. */
+export interface OCRPdfPage extends Partial<OCRResult> {
+  /** Zero-based page index. */
+  page: number;
+  error?: OCRError;
+}
+
+export interface OCRPdfResult {
+  jobId: string;
+  pageCount: number;
+  succeeded: number;
+  failed: number;
+  durationMs: number;
+  results: OCRPdfPage[];
+}
+
+export interface OCRPdfProgress {
+  jobId: string;
+  completed: number;
+  total: number;
+  item: OCRPdfPage;
+}
+
+export interface OCRVideoOptions extends OCROptions {
+  /** Time between sampled frames. Defaults to 1000. */
+  intervalMs?: number;
+  /**
+   * Fraction of the frame (0-1) that must change since the last recognized
+   * frame for a sample to be recognized. Defaults to 0.01.
+   */
+  changeThreshold?: number;
+  /**
+   * Sample the nearest keyframe instead of the exact time. Much faster to
+   * extract, at the cost of coarser timestamps. Defaults to false.
+   */
+  keyframesOnly?: boolean;
+  /**
+   * Identifier used in `onVideoFrame` events and by `cancelRecognition`.
+   * Falls back to `requestId`, generated when both are omitted.
+   */
+  jobId?: string;
+  /** Whether the resolved aggregate carries every recognized frame. Defaults to true. */
+  includeResults?: boolean;
+}
+
+/** Recognized frame; bounding boxes are in video pixels. */
+export interface OCRVideoFrame extends Partial<OCRResult> {
+  /** Position of the frame in the video. */
+  timeMs: number;
+  error?: OCRError;
+}
+
+export interface OCRVideoResult {
+  jobId: string;
+  videoDurationMs: number;
+  /** Frames extracted from the video. */
+  sampled: number;
+  /** Frames that changed enough to be recognized. */
+  recognized: number;
+  /** Frames dropped as unchanged. */
+  skipped: number;
+  failed: number;
+  durationMs: number;
+  results: OCRVideoFrame[];
+}
+
+export interface OCRVideoProgress {
+  jobId: string;
+  sampled: number;
+  skipped: number;
+  /** Frames that will be sampled in total. */
+  total: number;
+  item: OCRVideoFrame;
+}
+
+export interface OCRCacheStats {
+  hits: number;
+  memoryHits: number;
+  diskHits: number;
+  misses: number;
+  memoryEntries: number;
+  memoryBytes: number;
+  diskBytes: number;
+}
+
 export type OCREvents = {
   onResult: (result: OCRResult) => void;
   onError: (error: OCRError) => void;
+  onBatchProgress: (progress: OCRBatchProgress) => void;
+  onPdfPage: (progress: OCRPdfProgress) => void;
+  onVideoFrame: (progress: OCRVideoProgress) => void;
 };
 
 export enum ErrorCode {
@@ -30,5 +394,9 @@ export enum ErrorCode {
   NO_IMAGE = 'NO_IMAGE',
   RECOGNITION_FAILED = 'RECOGNITION_FAILED',
   NOT_AVAILABLE = 'NOT_AVAILABLE',
+  INVALID_PDF = 'INVALID_PDF',
+  INVALID_VIDEO = 'INVALID_VIDEO',
+  CANCELLED = 'CANCELLED',
+  INVALID_QUERY = 'INVALID_QUERY',
   UNKNOWN = 'UNKNOWN',
 }
@@ -0,0 +1,144 @@
+// Native half of PackedChannel.kt: hands packed live results to JS as
+// ArrayBuffers over native memory, with no copy and no bridge.
+//
+// Kotlin packs each result straight into a slot obtained here, through a
+// direct ByteBuffer. Publishing makes it the latest result; the JS thread
+// then wraps that same memory in an ArrayBuffer and calls
+// `global.__rnotrOnPackedResult`. A slot is reused only once JS has dropped
+// its ArrayBuffer, so a buffer JS holds never changes under it.
+
+#include <jni.h>
+#include <jsi/jsi.h>
+#include <android/log.h>
+
+#include <algorithm>
+#include <cstdint>
+#include <memory>
+#include <mutex>
+#include <vector>
+
+namespace jsi = facebook::jsi;
+
+namespace {
+
+constexpr const char* kTag = "RNOTR";
+constexpr const char* kListener = "__rnotrOnPackedResult";
+// Enough for a few results in flight; more than that are allocated and freed as they go.
+constexpr size_t kMaxPooledSlots = 4;
+constexpr size_t kMinSlotCapacity = 16 * 1024;
+
+class Slot : public jsi::MutableBuffer {
+ public:
+  explicit Slot(size_t capacity) : bytes_(capacity) {}
+
+  size_t size() const override { return size_; }
+  uint8_t* data() override { return bytes_.data(); }
+
+  size_t capacity() const { return bytes_.size(); }
+  void setSize(size_t size) { size_ = std::min(size, bytes_.size()); }
+
+ private:
+  std::vector<uint8_t> bytes_;
+  size_t size_ = 0;
+};
+
+struct Channel {
+  explicit Channel(jsi::Runtime* runtime) : runtime(runtime) {}
+
+  jsi::Runtime* const runtime;
+  std::mutex mutex;
+  std::vector<std::shared_ptr<Slot>> pool;
+  // Being packed on the analyzer thread.
+  std::shared_ptr<Slot> writing;
+  // Published and not yet delivered; a newer result replaces it.
+  std::shared_ptr<Slot> latest;
+};
+
+// A pooled slot is free when the pool holds its only reference: not being
+// written, not waiting for delivery, and not held by a JS ArrayBuffer.
+// Must hold channel.mutex.
+std::shared_ptr<Slot> takeSlot(Channel& channel, size_t capacity) {
+  for (auto& slot : channel.pool) {
+    if (slot.use_count() == 1) {
+      if (slot->capacity() < capacity) {
+        slot = std::make_shared<Slot>(std::max(capacity, slot->capacity() * 2));
+      }
+      return slot;
+    }
+  }
+  auto slot = std::make_shared<Slot>(std::max(capacity, kMinSlotCapacity));
+  if (channel.pool.size() < kMaxPooledSlots) {
+    channel.pool.push_back(slot);
+  }
+  return slot;
+}
+
+} // namespace
+
+extern "C" JNIEXPORT jlong JNICALL
+Java_com_rnotr_PackedChannel_nativeInstall(JNIEnv*, jclass, jlong runtimePtr) {
+  auto* runtime = reinterpret_cast<jsi::Runtime*>(runtimePtr);
+  if (runtime == nullptr) {
+    return 0;
+  }
+  // Engines without external ArrayBuffers (JSC) throw here; the caller then keeps maps.
+  try {
+    jsi::ArrayBuffer probe(*runtime, std::make_shared<Slot>(0));
+  } catch (const std::exception& e) {
+    __android_log_print(ANDROID_LOG_WARN, kTag, "Packed results unavailable: %s", e.what());
+    return 0;
+  }
+  return reinterpret_cast<jlong>(new Channel(runtime));
+}
+
+extern "C" JNIEXPORT jobject JNICALL
+Java_com_rnotr_PackedChannel_nativeObtain(JNIEnv* env, jclass, jlong handle, jint capacity) {
+  auto* channel = reinterpret_cast<Channel*>(handle);
+  std::lock_guard<std::mutex> lock(channel->mutex);
+  channel->writing = takeSlot(*channel, static_cast<size_t>(capacity));
+  return env->NewDirectByteBuffer(channel->writing->data(), static_cast<jlong>(channel->writing->capacity()));
+}
+
+extern "C" JNIEXPORT jboolean JNICALL
+Java_com_rnotr_PackedChannel_nativePublish(JNIEnv*, jclass, jlong handle, jint size) {
+  auto* channel = reinterpret_cast<Channel*>(handle);
+  std::lock_guard<std::mutex> lock(channel->mutex);
+  if (!channel->writing) {
+    return JNI_FALSE;
+  }
+  channel->writing->setSize(static_cast<size_t>(size));
+  // A delivery is already scheduled when a result is waiting; it will take this one instead.
+  bool schedule = !channel->latest;
+  channel->latest = std::move(channel->writing);
+  return schedule ? JNI_TRUE : JNI_FALSE;
+}
+
+extern "C" JNIEXPORT void JNICALL
+Java_com_rnotr_PackedChannel_nativeDeliver(JNIEnv*, jclass, jlong handle) {
+  auto* channel = reinterpret_cast<Channel*>(handle);
+  std::shared_ptr<Slot> slot;
+  {
+    std::lock_guard<std::mutex> lock(channel->mutex);
+    slot = std::move(channel->latest);
+  }
+  if (!slot) {
+    return;
+  }
+  jsi::Runtime& runtime = *channel->runtime;
+  try {
+    jsi::Value listener = runtime.global().getProperty(runtime, kListener);
+    if (!listener.isObject() || !listener.getObject(runtime).isFunction(runtime)) {
+      return;
+    }
+    jsi::ArrayBuffer buffer(runtime, std::move(slot));
+    listener.getObject(runtime).getFunction(runtime).call(runtime, std::move(buffer));
+  } catch (const std::exception& e) {
+    __android_log_print(ANDROID_LOG_ERROR, kTag, "Packed result listener failed: %s", e.what());
+  }
+}
+
+extern "C" JNIEXPORT void JNICALL
+Java_com_rnotr_PackedChannel_nativeDestroy(JNIEnv*, jclass, jlong handle) {
+  // Slots held by JS ArrayBuffers are freed when those are collected.
+  delete reinterpret_cast<Channel*>(handle);
+}
@@ -0,0 +1,149 @@
+package com.rnotr
+
+import android.graphics.Point
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.ReadableMap
+import com.facebook.react.bridge.ReadableType
+import com.facebook.react.bridge.WritableArray
+import com.facebook.react.bridge.WritableMap
+import com.google.android.gms.tasks.Task
+import com.google.mlkit.vision.barcode.BarcodeScanner
+import com.google.mlkit.vision.barcode.BarcodeScannerOptions
+import com.google.mlkit.vision.barcode.BarcodeScanning
+import com.google.mlkit.vision.barcode.common.Barcode
+import com.google.mlkit.vision.common.InputImage
+
+/**
+ * Barcode scanning that runs on the same live frames as text recognition,
+ * on its own interval. Limiting [formats] makes ML Kit's scan noticeably
+ * cheaper than looking for every symbology.
+ */
+internal class BarcodeDetector(private val intervalMs: Long, formats: List<Int>) {
+
+  private val scanner: BarcodeScanner = if (formats.isEmpty()) {
+    BarcodeScanning.getClient()
+  } else {
+    BarcodeScanning.getClient(
+      BarcodeScannerOptions.Builder()
+        .setBarcodeFormats(formats[0], *formats.subList(1, formats.size).toIntArray())
+        .build()
+    )
+  }
+
+  private var lastStartedAt = -1L
+  private var reportedAny = false
+
+  /** True when a scan should run on a frame arriving at [now]. Analyzer thread only. */
+  fun isDue(now: Long): Boolean = lastStartedAt < 0 || now - lastStartedAt >= intervalMs
+
+  fun process(image: InputImage, now: Long): Task<List<Barcode>> {
+    lastStartedAt = now
+    return scanner.process(image)
+  }
+
+  /**
+   * True when a scan that found [count] barcodes should be reported: when it
+   * found any, or when it is the first empty scan after one that did.
+   */
+  fun shouldReport(count: Int): Boolean {
+    val report = count > 0 || reportedAny
+    reportedAny = count > 0
+    return report
+  }
+
+  fun close() {
+    scanner.close()
+  }
+
+  companion object {
+    private val FORMATS = mapOf(
+      "aztec" to Barcode.FORMAT_AZTEC,
+      "codabar" to Barcode.FORMAT_CODABAR,
+      "code_39" to Barcode.FORMAT_CODE_39,
+      "code_93" to Barcode.FORMAT_CODE_93,
+      "code_128" to Barcode.FORMAT_CODE_128,
+      "data_matrix" to Barcode.FORMAT_DATA_MATRIX,
+      "ean_8" to Barcode.FORMAT_EAN_8,
+      "ean_13" to Barcode.FORMAT_EAN_13,
+      "itf" to Barcode.FORMAT_ITF,
+      "pdf417" to Barcode.FORMAT_PDF417,
+      "qr_code" to Barcode.FORMAT_QR_CODE,
+      "upc_a" to Barcode.FORMAT_UPC_A,
+      "upc_e" to Barcode.FORMAT_UPC_E
+    )
+
+    private val VALUE_TYPES = mapOf(
+      Barcode.TYPE_CONTACT_INFO to "contact",
+      Barcode.TYPE_EMAIL to "email",
+      Barcode.TYPE_ISBN to "isbn",
+      Barcode.TYPE_PHONE to "phone",
+      Barcode.TYPE_PRODUCT to "product",
+      Barcode.TYPE_SMS to "sms",
+      Barcode.TYPE_TEXT to "text",
+      Barcode.TYPE_URL to "url",
+      Barcode.TYPE_WIFI to "wifi",
+      Barcode.TYPE_GEO to "geo",
+      Barcode.TYPE_CALENDAR_EVENT to "calendar",
+      Barcode.TYPE_DRIVER_LICENSE to "driver_license"
+    )
+
+    /**
+     * Reads `barcodes` (true, or `{intervalMs, formats}`) from live options.
+     * Returns null when barcode scanning is off.
+     */
+    fun from(options: ReadableMap?): BarcodeDetector? {
+      if (options == null || !options.hasKey("barcodes")) {
+        return null
+      }
+      val settings: ReadableMap? = when (options.getType("barcodes")) {
+        ReadableType.Boolean -> if (options.getBoolean("barcodes")) null else return null
+        ReadableType.Map -> options.getMap("barcodes")
+        else -> return null
+      }
+      val intervalMs = if (settings != null && settings.hasKey("intervalMs")) settings.getDouble("intervalMs").toLong() else 0L
+      val formats = ArrayList<Int>()
+      val names = if (settings != null && settings.hasKey("formats")) settings.getArray("formats") else null
+      if (names != null) {
+        for (i in 0 until names.size()) {
+          FORMATS[names.getString(i)]?.let { formats.add(it) }
+        }
+      }
+      return BarcodeDetector(Math.max(0L, intervalMs), formats)
+    }
+
+    /** Barcodes as JS objects, with geometry shifted by [offsetX]/[offsetY] into full-frame coordinates. */
+    fun toArray(barcodes: List<Barcode>, offsetX: Int, offsetY: Int): WritableArray {
+      val array = Arguments.createArray()
+      for (barcode in barcodes) {
+        val map = Arguments.createMap()
+        map.putString("value", barcode.rawValue)
+        map.putString("displayValue", barcode.displayValue)
+        map.putString("format", FORMATS.entries.firstOrNull { it.value == barcode.format }?.key ?: "unknown")
+        map.putString("type", VALUE_TYPES[barcode.valueType] ?: "unknown")
+        val rect = barcode.boundingBox
+        if (rect != null) {
+          val box = Arguments.createMap()
+          box.putInt("x", rect.left + offsetX)
+          box.putInt("y", rect.top + offsetY)
+          box.putInt("width", rect.width())
+          box.putInt("height", rect.height())
+          map.putMap("boundingBox", box)
+        }
+        barcode.cornerPoints?.let { map.putArray("cornerPoints", points(it, offsetX, offsetY)) }
+        array.pushMap(map)
+      }
+      return array
+    }
+
+    private fun points(corners: Array<Point>, offsetX: Int, offsetY: Int): WritableArray {
+      val array = Arguments.createArray()
+      for (corner in corners) {
+        val point: WritableMap = Arguments.createMap()
+        point.putInt("x", corner.x + offsetX)
+        point.putInt("y", corner.y + offsetY)
+        array.pushMap(point)
+      }
+      return array
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package com.rnotr
+
+import android.util.Size
+import com.facebook.react.bridge.ReadableMap
+
+/** Camera options from JS, resolved to concrete CameraX settings. */
+internal class CameraConfig(
+  val facing: String,
+  val resolution: String,
+  /** Frame interval from `fps`, or null to keep the live-recognition default. */
+  val frameIntervalMs: Long?,
+  /** Fraction of the frame's width and height analyzed around its center; 1 analyzes it all. */
+  val centerCrop: Float
+) {
+
+  /**
+   * Analysis size for [resolution] in landscape (sensor) orientation. Text
+   * recognition gains little above 720p, while inference time grows with
+   * pixel count.
+   */
+  fun targetSize(portrait: Boolean): Size {
+    val size = when (resolution) {
+      "low" -> Size(640, 480)
+      "high" -> Size(1920, 1080)
+      else -> Size(1280, 720)
+    }
+    // CameraX expects the size in the coordinate frame of the target rotation.
+    return if (portrait) Size(size.height, size.width) else size
+  }
+
+  companion object {
+    fun from(options: ReadableMap?): CameraConfig {
+      val facing = if (options != null && options.hasKey("facing")) options.getString("facing") else null
+      val resolution = if (options != null && options.hasKey("resolution")) options.getString("resolution") else null
+      val fps = if (options != null && options.hasKey("fps")) options.getDouble("fps") else 0.0
+      val crop = if (options != null && options.hasKey("centerCrop")) options.getDouble("centerCrop").toFloat() else 1f
+      return CameraConfig(
+        facing ?: "back",
+        resolution ?: "medium",
+        if (fps > 0) (1000 / fps).toLong() else null,
+        crop.coerceIn(0.1f, 1f)
+      )
+    }
+  }
+}
@@ -0,0 +1,301 @@
+package com.rnotr
+
+import android.content.res.Configuration
+import android.util.Log
+import androidx.camera.core.Camera
+import androidx.camera.core.CameraSelector
+import androidx.camera.core.ImageAnalysis
+import androidx.camera.core.ImageCapture
+import androidx.camera.lifecycle.ProcessCameraProvider
+import androidx.core.content.ContextCompat
+import androidx.lifecycle.LifecycleOwner
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.ReactApplicationContext
+import com.facebook.react.bridge.WritableMap
+import java.util.concurrent.CancellationException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * The camera behind [RNOTRModule]: which use cases are bound, and when.
+ *
+ * ImageCapture stays bound from [start] to [stop]. ImageAnalysis is bound
+ * only while analysis is wanted and the host is resumed, so no frames are
+ * delivered or converted while recognition is off or the app is paused.
+ * One analysis thread serves every start, and the ProcessCameraProvider is
+ * fetched once, so turning analysis back on only rebinds a use case.
+ *
+ * Public methods may be called from any thread; binding happens on the main
+ * thread, in call order.
+ */
+internal class CameraSession(
+  private val context: ReactApplicationContext,
+  private val analyzer: ImageAnalysis.Analyzer
+) {
+
+  enum class State(val jsName: String) {
+    IDLE("idle"),
+    STARTING("starting"),
+    /** Capture is bound; analysis is off. */
+    READY("ready"),
+    ANALYZING("analyzing"),
+    /** The host is paused; analysis is unbound until it resumes. */
+    PAUSED("paused")
+  }
+
+  /** Runs the analyzer and capture callbacks for the session's lifetime. */
+  val executor: ExecutorService = Executors.newSingleThreadExecutor()
+
+  @Volatile
+  var state = State.IDLE
+    private set
+  @Volatile
+  var camera: Camera? = null
+    private set
+  @Volatile
+  var imageCapture: ImageCapture? = null
+    private set
+
+  private val mainExecutor = ContextCompat.getMainExecutor(context)
+  @Volatile
+  private var provider: ProcessCameraProvider? = null
+  private var owner: LifecycleOwner? = null
+  private var selector = CameraSelector.DEFAULT_BACK_CAMERA
+  private var analysis: ImageAnalysis? = null
+  private var analysisBound = false
+  private var analysisWanted = false
+  private var hostPaused = false
+  /** Bumped by [start] and [stop], so a start that is overtaken while fetching the provider gives up. */
+  private var generation = 0
+
+  /** When the start being timed was requested (System.nanoTime), or -1. */
+  @Volatile
+  private var pendingStartAt = -1L
+  @Volatile
+  private var pendingCold = false
+  @Volatile
+  private var coldStartMs = -1.0
+  @Volatile
+  private var warmStartMs = -1.0
+  @Volatile
+  private var coldStarts = 0
+  @Volatile
+  private var warmStarts = 0
+
+  /**
+   * Binds capture, and analysis when it is wanted, for [config]. Fetches the
+   * camera provider on the first start only. [done] runs on the main thread.
+   */
+  fun start(owner: LifecycleOwner, config: CameraConfig, done: (Exception?) -> Unit) {
+    val requestedAt = System.nanoTime()
+    mainExecutor.execute {
+      val started = ++generation
+      state = State.STARTING
+      val cached = provider
+      if (cached != null) {
+        bind(cached, owner, config, requestedAt, false, done)
+        return@execute
+      }
+      val future = ProcessCameraProvider.getInstance(context)
+      future.addListener({
+        if (started != generation) {
+          done(CancellationException("Camera was stopped while starting"))
+          return@addListener
+        }
+        try {
+          val fetched = future.get()
+          provider = fetched
+          bind(fetched, owner, config, requestedAt, true, done)
+        } catch (e: Exception) {
+          state = State.IDLE
+          done(e)
+        }
+      }, mainExecutor)
+    }
+  }
+
+  /** Unbinds every use case. The provider and the analysis thread are kept for the next start. */
+  fun stop(done: () -> Unit) {
+    mainExecutor.execute {
+      generation++
+      try {
+        provider?.unbindAll()
+      } finally {
+        release()
+        done()
+      }
+    }
+  }
+
+  /** Binds or unbinds analysis, leaving capture as it is. */
+  fun setAnalysisEnabled(enabled: Boolean) {
+    mainExecutor.execute {
+      analysisWanted = enabled
+      applyAnalysis()
+    }
+  }
+
+  fun onHostResume() {
+    mainExecutor.execute {
+      hostPaused = false
+      applyAnalysis()
+    }
+  }
+
+  fun onHostPause() {
+    mainExecutor.execute {
+      hostPaused = true
+      applyAnalysis()
+    }
+  }
+
+  /** Called by the analyzer for every frame; times the start that delivered the first one. */
+  fun onFrame() {
+    val requestedAt = pendingStartAt
+    if (requestedAt >= 0) {
+      pendingStartAt = -1L
+      recordStart(requestedAt, pendingCold)
+    }
+  }
+
+  /** Stops the camera and the analysis thread for good. */
+  fun close() {
+    stop { executor.shutdown() }
+  }
+
+  /**
+   * State and start times for JS. A start is timed from the request to the
+   * first analyzed frame, or to the bind when analysis is off; cold starts
+   * include fetching the camera provider.
+   */
+  fun toMap(): WritableMap {
+    val map = Arguments.createMap()
+    map.putString("state", state.jsName)
+    map.putBoolean("providerCached", provider != null)
+    putMs(map, "coldStartMs", coldStartMs)
+    putMs(map, "warmStartMs", warmStartMs)
+    map.putInt("coldStarts", coldStarts)
+    map.putInt("warmStarts", warmStarts)
+    return map
+  }
+
+  private fun bind(
+    provider: ProcessCameraProvider,
+    owner: LifecycleOwner,
+    config: CameraConfig,
+    requestedAt: Long,
+    cold: Boolean,
+    done: (Exception?) -> Unit
+  ) {
+    try {
+      provider.unbindAll()
+      selector = if (config.facing == "front") {
+        CameraSelector.DEFAULT_FRONT_CAMERA
+      } else {
+        CameraSelector.DEFAULT_BACK_CAMERA
+      }
+
+      // Without a target size CameraX may deliver frames far larger than text recognition needs.
+      val portrait = context.resources.configuration.orientation == Configuration.ORIENTATION_PORTRAIT
+      val analysis = ImageAnalysis.Builder()
+        .setTargetResolution(config.targetSize(portrait))
+        .setOutputImageFormat(ImageAnalysis.OUTPUT_IMAGE_FORMAT_YUV_420_888)
+        .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+        .build()
+      analysis.setAnalyzer(executor, analyzer)
+
+      // Stills for captureAndRecognize come at the camera's full resolution, independent of analysis.
+      val capture = ImageCapture.Builder()
+        .setCaptureMode(ImageCapture.CAPTURE_MODE_MINIMIZE_LATENCY)
+        .build()
+
+      this.owner = owner
+      this.analysis = analysis
+      imageCapture = capture
+      analysisBound = analysisWanted && !hostPaused
+      // No Preview here, only capture and, when wanted, analysis.
+      camera = if (analysisBound) {
+        provider.bindToLifecycle(owner, selector, analysis, capture)
+      } else {
+        provider.bindToLifecycle(owner, selector, capture)
+      }
+      markStarted(requestedAt, cold)
+      updateState()
+      done(null)
+    } catch (e: Exception) {
+      release()
+      done(e)
+    }
+  }
+
+  /** Brings the analysis binding in line with what is wanted. Main thread only. */
+  private fun applyAnalysis() {
+    val provider = provider
+    val analysis = analysis
+    val owner = owner
+    if (provider == null || analysis == null || owner == null) {
+      return
+    }
+    val wanted = analysisWanted && !hostPaused
+    try {
+      if (wanted && !analysisBound) {
+        val requestedAt = System.nanoTime()
+        camera = provider.bindToLifecycle(owner, selector, analysis)
+        analysisBound = true
+        markStarted(requestedAt, false)
+      } else if (!wanted && analysisBound) {
+        provider.unbind(analysis)
+        analysisBound = false
+        pendingStartAt = -1L
+      }
+    } catch (e: Exception) {
+      Log.e("RNOTR", "Failed to rebind analysis", e)
+    }
+    updateState()
+  }
+
+  private fun markStarted(requestedAt: Long, cold: Boolean) {
+    if (analysisBound) {
+      // Finished by onFrame once the camera delivers.
+      pendingCold = cold
+      pendingStartAt = requestedAt
+    } else {
+      pendingStartAt = -1L
+      recordStart(requestedAt, cold)
+    }
+  }
+
+  private fun recordStart(requestedAt: Long, cold: Boolean) {
+    val elapsedMs = (System.nanoTime() - requestedAt) / 1e6
+    if (cold) {
+      coldStartMs = elapsedMs
+      coldStarts++
+    } else {
+      warmStartMs = elapsedMs
+      warmStarts++
+    }
+  }
+
+  private fun release() {
+    camera = null
+    imageCapture = null
+    analysis = null
+    analysisBound = false
+    owner = null
+    pendingStartAt = -1L
+    updateState()
+  }
+
+  private fun updateState() {
+    state = when {
+      owner == null -> State.IDLE
+      hostPaused -> State.PAUSED
+      analysisBound -> State.ANALYZING
+      else -> State.READY
+    }
+  }
+
+  private fun putMs(map: WritableMap, key: String, value: Double) {
+    if (value < 0) map.putNull(key) else map.putDouble(key, value)
+  }
+}
@@ -0,0 +1,95 @@
+package com.rnotr
+
+import com.google.mlkit.vision.common.InputImage
+
+/**
+ * Copies the central part of a YUV_420_888 frame into an NV21 buffer so ML
+ * Kit only runs on the region the user is aiming at. The buffer and row
+ * scratch are reused between frames; call from the analyzer thread only.
+ * Reuse is safe because the analyzer gets its next frame only after the
+ * previous one is closed, which happens once its recognition completes.
+ */
+internal class CenterCrop(private val fraction: Float) {
+
+  /** Crop of the last frame, in upright (rotated) image coordinates. */
+  var offsetX = 0
+    private set
+  var offsetY = 0
+    private set
+
+  private var nv21 = ByteArray(0)
+  private var vRow = ByteArray(0)
+  private var uRow = ByteArray(0)
+
+  fun crop(frame: YuvFrame): InputImage {
+    val width = frame.width
+    val height = frame.height
+    val rotationDegrees = frame.rotationDegrees
+    // NV21 subsamples chroma 2x2, so the crop has to start and end on even pixels.
+    val cropWidth = even(Math.max(2, Math.round(width * fraction)))
+    val cropHeight = even(Math.max(2, Math.round(height * fraction)))
+    val left = even((width - cropWidth) / 2)
+    val top = even((height - cropHeight) / 2)
+
+    val size = cropWidth * cropHeight * 3 / 2
+    if (nv21.size < size) {
+      nv21 = ByteArray(size)
+    }
+    copyLuma(frame, left, top, cropWidth, cropHeight)
+    copyChroma(frame, left / 2, top / 2, cropWidth / 2, cropHeight / 2, cropWidth * cropHeight)
+
+    when (rotationDegrees) {
+      90 -> { offsetX = height - top - cropHeight; offsetY = left }
+      180 -> { offsetX = width - left - cropWidth; offsetY = height - top - cropHeight }
+      270 -> { offsetX = top; offsetY = width - left - cropWidth }
+      else -> { offsetX = left; offsetY = top }
+    }
+    return InputImage.fromByteArray(nv21, cropWidth, cropHeight, rotationDegrees, InputImage.IMAGE_FORMAT_NV21)
+  }
+
+  private fun copyLuma(frame: YuvFrame, left: Int, top: Int, width: Int, height: Int) {
+    val buffer = frame.y
+    val rowStride = frame.yRowStride
+    for (row in 0 until height) {
+      buffer.position((top + row) * rowStride + left)
+      buffer.get(nv21, row * width, width)
+    }
+  }
+
+  /** Interleaves V and U (NV21 order) for a [width] x [height] chroma window. */
+  private fun copyChroma(
+    frame: YuvFrame,
+    left: Int,
+    top: Int,
+    width: Int,
+    height: Int,
+    outOffset: Int
+  ) {
+    val pixelStride = frame.uvPixelStride
+    val rowStride = frame.uvRowStride
+    val span = (width - 1) * pixelStride + 1
+    if (vRow.size < span) {
+      vRow = ByteArray(span)
+      uRow = ByteArray(span)
+    }
+    val uBuffer = frame.u
+    val vBuffer = frame.v
+    var out = outOffset
+    for (row in 0 until height) {
+      // One bulk read per row instead of an indexed get per pixel.
+      val start = (top + row) * rowStride + left * pixelStride
+      vBuffer.position(start)
+      vBuffer.get(vRow, 0, span)
+      uBuffer.position(start)
+      uBuffer.get(uRow, 0, span)
+      var i = 0
+      for (x in 0 until width) {
+        nv21[out++] = vRow[i]
+        nv21[out++] = uRow[i]
+        i += pixelStride
+      }
+    }
+  }
+
+  private fun even(value: Int) = value and 1.inv()
+}
@@ -0,0 +1,212 @@
+package com.rnotr
+
+import android.content.Context
+import android.os.Build
+import android.os.PowerManager
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.ReadableMap
+import com.facebook.react.bridge.ReadableType
+import com.facebook.react.bridge.WritableMap
+
+/**
+ * Adapts the live analysis interval to what the device can sustain.
+ *
+ * Once per [WINDOW_MS] it looks at the smoothed recognition latency and at how
+ * many analyzed frames started late. Frames start late because the previous
+ * recognition still held the analyzer, and CameraX dropped the frames
+ * in between. The interval backs off quickly when recognition cannot keep up
+ * and creeps back towards [minIntervalMs] while there is headroom. The
+ * device's thermal status (API 29+) stretches it further, so a hot device
+ * analyzes less often instead of being throttled by the system.
+ *
+ * [onFrameStarted] runs on the analyzer thread and [onFrameFinished] on ML
+ * Kit's callback thread, so state is guarded by this object's monitor.
+ */
+internal class FrameRateController(
+  private val minIntervalMs: Long,
+  private val maxIntervalMs: Long
+) {
+
+  /** What the last window measured, sent to JS as `onFrameRateChanged`. */
+  class Sample(
+    val fps: Double,
+    val intervalMs: Long,
+    val inferenceMs: Double,
+    val dropRate: Double,
+    val thermalStatus: Int
+  )
+
+  /** Interval the analyzer should currently wait between frames. */
+  @Volatile
+  var intervalMs = minIntervalMs
+    private set
+
+  private var baseIntervalMs = minIntervalMs
+  private var latencyMs = 0.0
+  private var thermalStatus = THERMAL_UNKNOWN
+  private var lastStartedAt = -1L
+  private var windowStartedAt = -1L
+  private var started = 0
+  private var late = 0
+  private var finished = 0
+  private var reported: Sample? = null
+
+  private var powerManager: PowerManager? = null
+  private var thermalListener: PowerManager.OnThermalStatusChangedListener? = null
+
+  /** Starts following the device's thermal status; a no-op before API 29. */
+  fun attach(context: Context) {
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+      return
+    }
+    val manager = context.getSystemService(Context.POWER_SERVICE) as? PowerManager ?: return
+    val listener = PowerManager.OnThermalStatusChangedListener { status -> onThermalStatus(status) }
+    onThermalStatus(manager.currentThermalStatus)
+    manager.addThermalStatusListener(listener)
+    powerManager = manager
+    thermalListener = listener
+  }
+
+  fun detach() {
+    val listener = thermalListener
+    if (listener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+      powerManager?.removeThermalStatusListener(listener)
+    }
+    powerManager = null
+    thermalListener = null
+  }
+
+  @Synchronized
+  fun onFrameStarted(now: Long) {
+    if (windowStartedAt < 0) {
+      windowStartedAt = now
+    }
+    // Camera frames arrive on their own clock, so allow one frame period of slack.
+    if (lastStartedAt >= 0 && now - lastStartedAt > intervalMs * 3 / 2 + FRAME_SLACK_MS) {
+      late++
+    }
+    lastStartedAt = now
+    started++
+  }
+
+  /**
+   * Notes a due frame that was skipped on purpose (for example as blurry), so
+   * the wait it causes is not mistaken for recognition falling behind.
+   */
+  @Synchronized
+  fun onFrameSkipped(now: Long) {
+    if (lastStartedAt >= 0) {
+      lastStartedAt = now
+    }
+  }
+
+  /**
+   * Records a finished recognition that took [elapsedMs]. Returns a sample
+   * when a window closed and the rate or thermal status changed, or null.
+   */
+  @Synchronized
+  fun onFrameFinished(elapsedMs: Double, now: Long): Sample? {
+    latencyMs = if (latencyMs == 0.0) elapsedMs else latencyMs + LATENCY_SMOOTHING * (elapsedMs - latencyMs)
+    finished++
+    val window = now - windowStartedAt
+    if (windowStartedAt < 0 || window < WINDOW_MS) {
+      return null
+    }
+
+    val dropRate = if (started > 0) late.toDouble() / started else 0.0
+    if (dropRate > MAX_DROP_RATE || latencyMs > baseIntervalMs * 0.9) {
+      baseIntervalMs = Math.max((baseIntervalMs * 5) / 4, (latencyMs * 1.2).toLong())
+    } else if (late == 0 && latencyMs < baseIntervalMs * 0.5) {
+      baseIntervalMs = baseIntervalMs * 7 / 8
+    }
+    baseIntervalMs = baseIntervalMs.coerceIn(minIntervalMs, maxIntervalMs)
+    intervalMs = (baseIntervalMs * thermalFactor(thermalStatus)).toLong().coerceIn(minIntervalMs, maxIntervalMs)
+
+    val sample = Sample(finished * 1000.0 / window, intervalMs, latencyMs, dropRate, thermalStatus)
+    windowStartedAt = now
+    started = 0
+    late = 0
+    finished = 0
+
+    val previous = reported
+    if (previous != null &&
+      previous.intervalMs == sample.intervalMs &&
+      previous.thermalStatus == sample.thermalStatus &&
+      Math.abs(previous.fps - sample.fps) < previous.fps * 0.1
+    ) {
+      return null
+    }
+    reported = sample
+    return sample
+  }
+
+  @Synchronized
+  private fun onThermalStatus(status: Int) {
+    thermalStatus = status
+    intervalMs = (baseIntervalMs * thermalFactor(status)).toLong().coerceIn(minIntervalMs, maxIntervalMs)
+  }
+
+  companion object {
+    private const val WINDOW_MS = 1000L
+    private const val FRAME_SLACK_MS = 34L
+    private const val MAX_DROP_RATE = 0.2
+    private const val LATENCY_SMOOTHING = 0.2
+    private const val THERMAL_UNKNOWN = -1
+
+    private const val DEFAULT_MIN_FPS = 2.0
+    private const val DEFAULT_MAX_FPS = 15.0
+
+    /**
+     * Reads `adaptiveFps` (true, or `{minFps, maxFps}`) from live options.
+     * An explicit `fps` becomes the ceiling. Returns null when not adaptive.
+     */
+    fun from(options: ReadableMap?): FrameRateController? {
+      if (options == null || !options.hasKey("adaptiveFps")) {
+        return null
+      }
+      val settings: ReadableMap? = when (options.getType("adaptiveFps")) {
+        ReadableType.Boolean -> if (options.getBoolean("adaptiveFps")) null else return null
+        ReadableType.Map -> options.getMap("adaptiveFps")
+        else -> return null
+      }
+      val fps = if (options.hasKey("fps")) options.getDouble("fps") else 0.0
+      fun number(key: String, fallback: Double) =
+        if (settings != null && settings.hasKey(key)) settings.getDouble(key) else fallback
+      val maxFps = number("maxFps", if (fps > 0) fps else DEFAULT_MAX_FPS).coerceAtLeast(0.1)
+      val minFps = number("minFps", DEFAULT_MIN_FPS).coerceIn(0.1, maxFps)
+      return FrameRateController((1000 / maxFps).toLong(), (1000 / minFps).toLong())
+    }
+
+    fun toMap(sample: Sample): WritableMap {
+      val map = Arguments.createMap()
+      map.putDouble("fps", sample.fps)
+      map.putDouble("targetFps", 1000.0 / sample.intervalMs)
+      map.putDouble("intervalMs", sample.intervalMs.toDouble())
+      map.putDouble("inferenceMs", sample.inferenceMs)
+      map.putDouble("dropRate", sample.dropRate)
+      map.putString("thermalStatus", thermalName(sample.thermalStatus))
+      return map
+    }
+
+    /** How much to stretch the interval at each thermal status. */
+    private fun thermalFactor(status: Int): Double = when (status) {
+      PowerManager.THERMAL_STATUS_MODERATE -> 1.5
+      PowerManager.THERMAL_STATUS_SEVERE -> 2.0
+      PowerManager.THERMAL_STATUS_CRITICAL,
+      PowerManager.THERMAL_STATUS_EMERGENCY,
+      PowerManager.THERMAL_STATUS_SHUTDOWN -> 4.0
+      else -> 1.0
+    }
+
+    private fun thermalName(status: Int): String = when (status) {
+      PowerManager.THERMAL_STATUS_NONE -> "none"
+      PowerManager.THERMAL_STATUS_LIGHT -> "light"
+      PowerManager.THERMAL_STATUS_MODERATE -> "moderate"
+      PowerManager.THERMAL_STATUS_SEVERE -> "severe"
+      PowerManager.THERMAL_STATUS_CRITICAL -> "critical"
+      PowerManager.THERMAL_STATUS_EMERGENCY -> "emergency"
+      PowerManager.THERMAL_STATUS_SHUTDOWN -> "shutdown"
+      else -> "unknown"
+    }
+  }
+}
@@ -0,0 +1,299 @@
+package com.rnotr
+
+import android.graphics.Rect
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.ReadableMap
+import com.facebook.react.bridge.ReadableType
+import com.facebook.react.bridge.WritableArray
+import com.facebook.react.bridge.WritableMap
+import com.google.mlkit.vision.text.Text
+
+/**
+ * Turns per-frame results into change events for live recognition.
+ *
+ * Keeps the blocks last sent to JS, each with a stable id, and matches every
+ * frame's blocks against them: the same text (within [changeThreshold])
+ * anywhere is the same block, and otherwise a block covering the same place
+ * is the same block with new text. Each change is debounced on its own. A new block is added, and a
+ * changed or moved block is updated, only after the change has held for
+ * [debounceMs]. A block is removed only after it has been missing for
+ * [historySize] frames and [debounceMs]. Recognition noise within
+ * [changeThreshold] and jitter below [moveThreshold] block heights never
+ * count as changes. Not thread-safe; feed it from one thread.
+ */
+internal class LiveStabilizer(
+  private val debounceMs: Long,
+  /** Fraction of a block's characters that must change for it to count as updated. */
+  private val changeThreshold: Float,
+  /** Center displacement, in block heights, that counts as a move. */
+  private val moveThreshold: Float,
+  private val historySize: Int
+) {
+
+  class Block(var text: String, var box: Rect, val firstSeenAt: Long) {
+    /** Assigned when the block is first emitted. */
+    var id = 0
+    var lastSeenFrame = 0L
+    var lastSeenAt = 0L
+    /** When the current unemitted text change or move was first seen, or -1. */
+    var changeSince = -1L
+    var pendingText: String? = null
+    var pendingBox: Rect? = null
+  }
+
+  class Delta(
+    val added: List<Block>,
+    val updated: List<Block>,
+    val moved: List<Block>,
+    val removed: List<Int>,
+    val text: String
+  )
+
+  private val emitted = ArrayList<Block>()
+  /** Blocks seen but not emitted yet. */
+  private val candidates = ArrayList<Block>()
+  private var nextId = 1
+  private var frame = 0L
+
+  fun reset() {
+    emitted.clear()
+    candidates.clear()
+    frame = 0
+  }
+
+  /**
+   * Matches [blocks] against the tracked state and returns the changes that
+   * have settled, or null if there are none. [offsetX]/[offsetY] shift boxes
+   * into full-frame coordinates.
+   */
+  fun update(blocks: List<Text.TextBlock>, offsetX: Int, offsetY: Int, now: Long): Delta? {
+    frame++
+    for (block in blocks) {
+      val rect = block.boundingBox ?: continue
+      val box = Rect(rect.left + offsetX, rect.top + offsetY, rect.right + offsetX, rect.bottom + offsetY)
+      val text = block.text
+
+      val known = match(emitted, text, box)
+      if (known != null) {
+        seen(known, now)
+        val textChanged = known.text != text && changed(known.text, text)
+        if (textChanged || displacement(known.box, box) > moveThreshold * Math.max(1, known.box.height())) {
+          if (known.changeSince < 0) {
+            known.changeSince = now
+          }
+          known.pendingText = if (textChanged) text else null
+          known.pendingBox = box
+        } else {
+          known.changeSince = -1
+          known.pendingText = null
+          known.pendingBox = null
+        }
+        continue
+      }
+
+      val candidate = match(candidates, text, box)
+      if (candidate != null) {
+        candidate.text = text
+        candidate.box = box
+        seen(candidate, now)
+      } else {
+        val fresh = Block(text, box, now)
+        seen(fresh, now)
+        candidates.add(fresh)
+      }
+    }
+    return settle(now)
+  }
+
+  private fun settle(now: Long): Delta? {
+    val added = ArrayList<Block>()
+    val updated = ArrayList<Block>()
+    val moved = ArrayList<Block>()
+    val removed = ArrayList<Int>()
+
+    val emittedIterator = emitted.iterator()
+    while (emittedIterator.hasNext()) {
+      val block = emittedIterator.next()
+      if (block.lastSeenFrame != frame) {
+        // Recognizers drop blocks for a frame or two; only remove what stays gone.
+        if (frame - block.lastSeenFrame >= historySize && now - block.lastSeenAt >= debounceMs) {
+          removed.add(block.id)
+          emittedIterator.remove()
+        }
+      } else if (block.changeSince >= 0 && now - block.changeSince >= debounceMs) {
+        val text = block.pendingText
+        if (text != null) {
+          block.text = text
+          updated.add(block)
+        } else {
+          moved.add(block)
+        }
+        block.box = block.pendingBox ?: block.box
+        block.changeSince = -1
+        block.pendingText = null
+        block.pendingBox = null
+      }
+    }
+
+    val candidateIterator = candidates.iterator()
+    while (candidateIterator.hasNext()) {
+      val block = candidateIterator.next()
+      if (block.lastSeenFrame == frame && now - block.firstSeenAt >= debounceMs) {
+        block.id = nextId++
+        emitted.add(block)
+        added.add(block)
+        candidateIterator.remove()
+      } else if (frame - block.lastSeenFrame >= historySize) {
+        candidateIterator.remove()
+      }
+    }
+
+    if (added.isEmpty() && updated.isEmpty() && moved.isEmpty() && removed.isEmpty()) {
+      return null
+    }
+    return Delta(added, updated, moved, removed, readingOrderText())
+  }
+
+  private fun seen(block: Block, now: Long) {
+    block.lastSeenFrame = frame
+    block.lastSeenAt = now
+  }
+
+  /** The block in [blocks] that [text] at [box] continues, or null for a new block. */
+  private fun match(blocks: List<Block>, text: String, box: Rect): Block? {
+    // Blocks already matched in this frame are taken.
+    var best: Block? = null
+    var bestDistance = Long.MAX_VALUE
+    for (block in blocks) {
+      if (block.lastSeenFrame != frame && !changed(block.text, text)) {
+        val distance = displacement(block.box, box)
+        if (distance < bestDistance) {
+          best = block
+          bestDistance = distance
+        }
+      }
+    }
+    if (best != null) {
+      return best
+    }
+    var bestOverlap = MIN_OVERLAP
+    for (block in blocks) {
+      if (block.lastSeenFrame != frame) {
+        val overlap = overlap(block.box, box)
+        if (overlap >= bestOverlap) {
+          best = block
+          bestOverlap = overlap
+        }
+      }
+    }
+    return best
+  }
+
+  private fun changed(before: String, after: String): Boolean {
+    val length = Math.max(before.length, after.length)
+    return length > 0 && editDistance(before, after) > changeThreshold * length
+  }
+
+  private fun readingOrderText(): String {
+    return emitted.sortedWith(compareBy<Block>({ it.box.top }, { it.box.left })).joinToString("\n") { it.text }
+  }
+
+  companion object {
+    private const val MIN_OVERLAP = 0.5f
+
+    fun from(options: ReadableMap?): LiveStabilizer? {
+      if (options == null || !options.hasKey("stabilize")) {
+        return null
+      }
+      val settings: ReadableMap? = when (options.getType("stabilize")) {
+        ReadableType.Boolean -> if (options.getBoolean("stabilize")) null else return null
+        ReadableType.Map -> options.getMap("stabilize")
+        else -> return null
+      }
+      fun number(key: String, fallback: Double) =
+        if (settings != null && settings.hasKey(key)) settings.getDouble(key) else fallback
+      return LiveStabilizer(
+        number("debounceMs", 250.0).toLong(),
+        number("changeThreshold", 0.1).toFloat(),
+        number("moveThreshold", 0.5).toFloat(),
+        Math.max(1, number("historySize", 3.0).toInt())
+      )
+    }
+
+    fun toMap(delta: Delta): WritableMap {
+      val map = Arguments.createMap()
+      map.putArray("added", blocksArray(delta.added))
+      map.putArray("updated", blocksArray(delta.updated))
+      val moved = Arguments.createArray()
+      for (block in delta.moved) {
+        val entry = Arguments.createMap()
+        entry.putInt("id", block.id)
+        entry.putMap("boundingBox", boxMap(block.box))
+        moved.pushMap(entry)
+      }
+      map.putArray("moved", moved)
+      val removed = Arguments.createArray()
+      for (id in delta.removed) {
+        removed.pushInt(id)
+      }
+      map.putArray("removed", removed)
+      map.putString("text", delta.text)
+      return map
+    }
+
+    private fun blocksArray(blocks: List<Block>): WritableArray {
+      val array = Arguments.createArray()
+      for (block in blocks) {
+        val entry = Arguments.createMap()
+        entry.putInt("id", block.id)
+        entry.putString("text", block.text)
+        entry.putMap("boundingBox", boxMap(block.box))
+        array.pushMap(entry)
+      }
+      return array
+    }
+
+    private fun boxMap(rect: Rect): WritableMap {
+      val box = Arguments.createMap()
+      box.putInt("x", rect.left)
+      box.putInt("y", rect.top)
+      box.putInt("width", rect.width())
+      box.putInt("height", rect.height())
+      return box
+    }
+
+    /** Manhattan distance between box centers, in pixels. */
+    private fun displacement(a: Rect, b: Rect): Long {
+      val dx = (a.left + a.right) / 2 - (b.left + b.right) / 2
+      val dy = (a.top + a.bottom) / 2 - (b.top + b.bottom) / 2
+      return (Math.abs(dx) + Math.abs(dy)).toLong()
+    }
+
+    /** Intersection over the smaller box's area. */
+    fun overlap(a: Rect, b: Rect): Float {
+      val width = Math.min(a.right, b.right) - Math.max(a.left, b.left)
+      val height = Math.min(a.bottom, b.bottom) - Math.max(a.top, b.top)
+      if (width <= 0 || height <= 0) {
+        return 0f
+      }
+      val smaller = Math.min(a.width().toLong() * a.height(), b.width().toLong() * b.height())
+      return if (smaller > 0) width.toLong() * height / smaller.toFloat() else 0f
+    }
+
+    private fun editDistance(a: String, b: String): Int {
+      var previous = IntArray(b.length + 1) { it }
+      var current = IntArray(b.length + 1)
+      for (i in 1..a.length) {
+        current[0] = i
+        for (j in 1..b.length) {
+          val cost = if (a[i - 1] == b[j - 1]) 0 else 1
+          current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost)
+        }
+        val swap = previous
+        previous = current
+        current = swap
+      }
+      return previous[b.length]
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package com.rnotr
+
+import android.os.Build
+import android.os.Trace
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.WritableMap
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Rolling per-stage latency windows and call counters. Stages are timed with
+ * [System.nanoTime] and mirrored as `RNOTR:<stage>` trace sections.
+ */
+internal class OTRStats {
+
+  /** Stage durations of a single recognition, in nanoseconds. */
+  class Timings {
+    private val nanos = LongArray(STAGE_NAMES.size)
+
+    @Synchronized
+    fun add(stage: Int, elapsed: Long) {
+      nanos[stage] += elapsed
+    }
+
+    @Synchronized
+    fun millis(stage: Int): Double = nanos[stage] / 1e6
+
+    @Synchronized
+    fun toMap(): WritableMap {
+      val map = Arguments.createMap()
+      for (stage in STAGE_NAMES.indices) {
+        map.putDouble(STAGE_NAMES[stage] + "Ms", nanos[stage] / 1e6)
+      }
+      return map
+    }
+  }
+
+  class Span(val stage: Int, val cookie: Int, val startedAt: Long)
+
+  private val windows = Array(STAGE_NAMES.size) { LongArray(WINDOW) }
+  private val sizes = IntArray(STAGE_NAMES.size)
+  private val cursors = IntArray(STAGE_NAMES.size)
+  private var calls = 0L
+  private var failures = 0L
+  private var bytesDecoded = 0L
+  private var framesChecked = 0L
+  private var framesBlurry = 0L
+
+  fun begin(stage: Int): Long {
+    Trace.beginSection(SECTION_NAMES[stage])
+    return System.nanoTime()
+  }
+
+  fun end(stage: Int, startedAt: Long, timings: Timings) {
+    val elapsed = System.nanoTime() - startedAt
+    Trace.endSection()
+    record(stage, elapsed, timings)
+  }
+
+  /** For stages that finish on another thread, such as ML Kit inference. */
+  fun beginAsync(stage: Int): Span {
+    val cookie = COOKIES.incrementAndGet()
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+      Trace.beginAsyncSection(SECTION_NAMES[stage], cookie)
+    }
+    return Span(stage, cookie, System.nanoTime())
+  }
+
+  fun endAsync(span: Span, timings: Timings) {
+    val elapsed = System.nanoTime() - span.startedAt
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+      Trace.endAsyncSection(SECTION_NAMES[span.stage], span.cookie)
+    }
+    record(span.stage, elapsed, timings)
+  }
+
+  fun record(stage: Int, elapsed: Long, timings: Timings) {
+    timings.add(stage, elapsed)
+    synchronized(this) {
+      windows[stage][cursors[stage]] = elapsed
+      cursors[stage] = (cursors[stage] + 1) % WINDOW
+      if (sizes[stage] < WINDOW) {
+        sizes[stage]++
+      }
+    }
+  }
+
+  @Synchronized
+  fun recordCall(succeeded: Boolean) {
+    calls++
+    if (!succeeded) {
+      failures++
+    }
+  }
+
+  @Synchronized
+  fun addBytesDecoded(bytes: Long) {
+    bytesDecoded += bytes
+  }
+
+  /** Counts a live frame scored by the sharpness gate. */
+  @Synchronized
+  fun recordSharpness(accepted: Boolean) {
+    framesChecked++
+    if (!accepted) {
+      framesBlurry++
+    }
+  }
+
+  @Synchronized
+  fun toMap(): WritableMap {
+    val result = Arguments.createMap()
+    result.putDouble("calls", calls.toDouble())
+    result.putDouble("failures", failures.toDouble())
+    result.putDouble("bytesDecoded", bytesDecoded.toDouble())
+    result.putDouble("framesChecked", framesChecked.toDouble())
+    result.putDouble("framesBlurry", framesBlurry.toDouble())
+
+    val stages = Arguments.createMap()
+    for (stage in STAGE_NAMES.indices) {
+      val size = sizes[stage]
+      val sorted = windows[stage].copyOf(size)
+      sorted.sort()
+      val stageMap = Arguments.createMap()
+      stageMap.putInt("count", size)
+      stageMap.putDouble("p50Ms", percentile(sorted, 50) / 1e6)
+      stageMap.putDouble("p95Ms", percentile(sorted, 95) / 1e6)
+      stageMap.putDouble("p99Ms", percentile(sorted, 99) / 1e6)
+      stageMap.putDouble("maxMs", (if (size == 0) 0L else sorted[size - 1]) / 1e6)
+      stages.putMap(STAGE_NAMES[stage], stageMap)
+    }
+    result.putMap("stages", stages)
+    return result
+  }
+
+  @Synchronized
+  fun reset() {
+    sizes.fill(0)
+    cursors.fill(0)
+    calls = 0
+    failures = 0
+    bytesDecoded = 0
+    framesChecked = 0
+    framesBlurry = 0
+  }
+
+  companion object {
+    const val RESOLVE = 0
+    const val DECODE = 1
+    const val INFERENCE = 2
+    const val MARSHAL = 3
+    const val TOTAL = 4
+    val STAGE_NAMES = arrayOf("resolve", "decode", "inference", "marshal", "total")
+
+    private const val WINDOW = 256
+    private val SECTION_NAMES = Array(STAGE_NAMES.size) { "RNOTR:" + STAGE_NAMES[it] }
+    private val COOKIES = AtomicInteger()
+
+    /** Nearest-rank percentile of an ascending array; 0 when empty. */
+    fun percentile(sorted: LongArray, percent: Int): Long {
+      if (sorted.isEmpty()) {
+        return 0L
+      }
+      val rank = Math.ceil(percent / 100.0 * sorted.size).toInt()
+      return sorted[(rank - 1).coerceIn(0, sorted.size - 1)]
+    }
+  }
+}
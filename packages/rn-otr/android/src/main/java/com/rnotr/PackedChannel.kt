@@ -0,0 +1,104 @@
+package com.rnotr
+
+import android.util.Log
+import com.facebook.react.bridge.ReactApplicationContext
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+
+/**
+ * Hands packed live results to JS through JSI, as ArrayBuffers over the
+ * native memory they were packed into. Nothing is copied or serialized on
+ * the way, and nothing crosses the bridge.
+ *
+ * [PackedResult] packs each result into a buffer from [obtain] and calls
+ * [publish]. The JS thread then passes the newest published result to
+ * `global.__rnotrOnPackedResult`; results published while JS is busy are
+ * dropped in favour of the newest. Memory is reused only once JS has let
+ * go of the ArrayBuffer over it.
+ *
+ * [obtain] and [publish] are called from one thread at a time. Delivery
+ * and [close] run on the JS thread, which keeps them in order.
+ */
+internal class PackedChannel private constructor(
+  private val context: ReactApplicationContext,
+  @Volatile private var handle: Long
+) {
+
+  /** A little-endian buffer of at least [capacity] bytes for the next result, or null once closed. */
+  @Synchronized
+  fun obtain(capacity: Int): ByteBuffer? {
+    if (handle == 0L) {
+      return null
+    }
+    return nativeObtain(handle, capacity).order(ByteOrder.LITTLE_ENDIAN)
+  }
+
+  /** Publishes the first [size] bytes of the last obtained buffer. */
+  fun publish(size: Int) {
+    val schedule = synchronized(this) { handle != 0L && nativePublish(handle, size) }
+    if (schedule) {
+      context.runOnJSQueueThread { deliver() }
+    }
+  }
+
+  fun close() {
+    context.runOnJSQueueThread {
+      synchronized(this) {
+        if (handle != 0L) {
+          nativeDestroy(handle)
+          handle = 0L
+        }
+      }
+    }
+  }
+
+  private fun deliver() {
+    // Not under the lock: the JS listener may run for a while, and packing must not wait on it.
+    val current = handle
+    if (current != 0L) {
+      nativeDeliver(current)
+    }
+  }
+
+  companion object {
+    private val loaded: Boolean = try {
+      System.loadLibrary("rnotr")
+      true
+    } catch (e: UnsatisfiedLinkError) {
+      Log.w("RNOTR", "Packed results unavailable: native library not loaded", e)
+      false
+    }
+
+    /**
+     * Installs the channel in the JS runtime. Must run on the JS thread.
+     * Returns null when there is no JSI runtime (remote debugging) or it
+     * cannot wrap native memory, in which case results stay maps.
+     */
+    fun install(context: ReactApplicationContext): PackedChannel? {
+      if (!loaded) {
+        return null
+      }
+      val runtime = context.javaScriptContextHolder?.get() ?: 0L
+      if (runtime == 0L) {
+        return null
+      }
+      val handle = nativeInstall(runtime)
+      return if (handle != 0L) PackedChannel(context, handle) else null
+    }
+
+    @JvmStatic
+    private external fun nativeInstall(runtimePtr: Long): Long
+
+    @JvmStatic
+    private external fun nativeObtain(handle: Long, capacity: Int): ByteBuffer
+
+    @JvmStatic
+    private external fun nativePublish(handle: Long, size: Int): Boolean
+
+    @JvmStatic
+    private external fun nativeDeliver(handle: Long)
+
+    @JvmStatic
+    private external fun nativeDestroy(handle: Long)
+  }
+}
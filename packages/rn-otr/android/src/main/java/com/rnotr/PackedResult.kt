@@ -0,0 +1,174 @@
+package com.rnotr
+
+import android.graphics.Point
+import android.graphics.Rect
+import com.google.mlkit.vision.text.Text
+import java.nio.ByteBuffer
+
+/**
+ * Packs a live result into one little-endian buffer from [PackedChannel],
+ * which JS receives as an ArrayBuffer over the same memory.
+ * `decodeOCRBuffer` in `src/packed.ts` reads it back. Regions are the
+ * blocks, then all lines, then all elements, R in total. Layout, 4-byte
+ * aligned so JS can view each section as a typed array without copying:
+ *
+ *     0   u8       version (2), then 3 reserved bytes
+ *     4   u32      block count B
+ *     8   u32      line count L
+ *     12  u32      element count E
+ *     16  f32[5]   stage timings in ms (resolve, decode, inference, marshal, total)
+ *     36  f32[4R]  boxes: x, y, width, height, in full-frame coordinates
+ *     ..  f32[8R]  corner points: 4 x (x, y), zeros when unknown
+ *     ..  f32[2R]  confidence and angle (0 for blocks)
+ *     ..  u32[B]   end of each block's lines, as an index into the lines
+ *     ..  u32[L]   end of each line's elements, as an index into the elements
+ *     ..  u32[R+1] end of the full text, then of each region's text, in UTF-16 units
+ *     ..  u16[]    the text pool: the full text, then each region's text
+ *
+ * One result is packed at a time, on ML Kit's callback thread.
+ */
+internal class PackedResult(private val channel: PackedChannel) {
+
+  private var buffer: ByteBuffer? = null
+  private var size = 0
+  private var boxes = 0
+  private var corners = 0
+  private var scores = 0
+  private var lineEnds = 0
+  private var elementEnds = 0
+  private var textEnds = 0
+  private var chars = 0
+  private var charCount = 0
+
+  /** Packs [visionText] with zeroed timings; [publish] fills them in and hands it to JS. */
+  fun pack(visionText: Text, offsetX: Int, offsetY: Int) {
+    val blocks = visionText.textBlocks
+    var lineCount = 0
+    var elementCount = 0
+    var textLength = visionText.text.length
+    for (block in blocks) {
+      textLength += block.text.length
+      for (line in block.lines) {
+        lineCount++
+        textLength += line.text.length
+        for (element in line.elements) {
+          elementCount++
+          textLength += element.text.length
+        }
+      }
+    }
+    val regions = blocks.size + lineCount + elementCount
+    boxes = HEADER_SIZE
+    corners = boxes + regions * 16
+    scores = corners + regions * 32
+    lineEnds = scores + regions * 8
+    elementEnds = lineEnds + blocks.size * 4
+    textEnds = elementEnds + lineCount * 4
+    chars = textEnds + (regions + 1) * 4
+    val needed = chars + textLength * 2
+
+    val out = channel.obtain(needed)
+    buffer = out
+    if (out == null) {
+      return
+    }
+    // Little-endian, so the version lands in byte 0 and the reserved bytes are cleared.
+    out.putInt(0, VERSION)
+    out.putInt(4, blocks.size)
+    out.putInt(8, lineCount)
+    out.putInt(12, elementCount)
+    for (stage in 0 until STAGES) {
+      out.putFloat(TIMINGS_OFFSET + stage * 4, 0f)
+    }
+
+    charCount = 0
+    putText(out, 0, visionText.text)
+    var region = 0
+    var line = 0
+    for ((i, block) in blocks.withIndex()) {
+      putRegion(out, region++, block.text, block.boundingBox, block.cornerPoints, 0f, 0f, offsetX, offsetY)
+      line += block.lines.size
+      out.putInt(lineEnds + i * 4, line)
+    }
+    var element = 0
+    line = 0
+    for (block in blocks) {
+      for (textLine in block.lines) {
+        putRegion(
+          out, region++, textLine.text, textLine.boundingBox, textLine.cornerPoints,
+          textLine.confidence, textLine.angle, offsetX, offsetY
+        )
+        element += textLine.elements.size
+        out.putInt(elementEnds + line++ * 4, element)
+      }
+    }
+    for (block in blocks) {
+      for (textLine in block.lines) {
+        for (textElement in textLine.elements) {
+          putRegion(
+            out, region++, textElement.text, textElement.boundingBox, textElement.cornerPoints,
+            textElement.confidence, textElement.angle, offsetX, offsetY
+          )
+        }
+      }
+    }
+    size = needed
+  }
+
+  /** Writes [timings] into the packed result and publishes it to JS. */
+  fun publish(timings: OTRStats.Timings) {
+    val out = buffer ?: return
+    for (stage in 0 until STAGES) {
+      out.putFloat(TIMINGS_OFFSET + stage * 4, timings.millis(stage).toFloat())
+    }
+    buffer = null
+    channel.publish(size)
+  }
+
+  private fun putRegion(
+    out: ByteBuffer,
+    index: Int,
+    text: String,
+    box: Rect?,
+    points: Array<Point>?,
+    confidence: Float,
+    angle: Float,
+    offsetX: Int,
+    offsetY: Int
+  ) {
+    val boxAt = boxes + index * 16
+    if (box == null) {
+      out.putFloat(boxAt, 0f).putFloat(boxAt + 4, 0f).putFloat(boxAt + 8, 0f).putFloat(boxAt + 12, 0f)
+    } else {
+      out.putFloat(boxAt, (box.left + offsetX).toFloat())
+      out.putFloat(boxAt + 4, (box.top + offsetY).toFloat())
+      out.putFloat(boxAt + 8, box.width().toFloat())
+      out.putFloat(boxAt + 12, box.height().toFloat())
+    }
+    val cornersAt = corners + index * 32
+    for (p in 0 until 4) {
+      val point = points?.getOrNull(p)
+      out.putFloat(cornersAt + p * 8, if (point != null) (point.x + offsetX).toFloat() else 0f)
+      out.putFloat(cornersAt + p * 8 + 4, if (point != null) (point.y + offsetY).toFloat() else 0f)
+    }
+    out.putFloat(scores + index * 8, confidence)
+    out.putFloat(scores + index * 8 + 4, angle)
+    putText(out, index + 1, text)
+  }
+
+  /** Appends [text] to the pool and records its end as text [index]. */
+  private fun putText(out: ByteBuffer, index: Int, text: String) {
+    for (i in text.indices) {
+      out.putChar(chars + (charCount + i) * 2, text[i])
+    }
+    charCount += text.length
+    out.putInt(textEnds + index * 4, charCount)
+  }
+
+  companion object {
+    private const val VERSION = 2
+    private const val STAGES = 5
+    private const val TIMINGS_OFFSET = 16
+    private const val HEADER_SIZE = TIMINGS_OFFSET + STAGES * 4
+  }
+}
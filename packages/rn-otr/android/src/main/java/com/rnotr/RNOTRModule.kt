@@ -1,43 +1,106 @@
 package com.rnotr
 
+import android.graphics.Point
+import android.graphics.Rect
 import android.net.Uri
+import android.os.SystemClock
 import android.util.Log
-import androidx.camera.core.Camera
-import androidx.camera.core.CameraSelector
-import androidx.camera.core.ImageAnalysis
+import androidx.camera.core.ImageCapture
+import androidx.camera.core.ImageCaptureException
 import androidx.camera.core.ImageProxy
-import androidx.camera.lifecycle.ProcessCameraProvider
-import androidx.core.content.ContextCompat
 import androidx.lifecycle.LifecycleOwner
 import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.LifecycleEventListener
 import com.facebook.react.bridge.Promise
 import com.facebook.react.bridge.ReactApplicationContext
 import com.facebook.react.bridge.ReactContextBaseJavaModule
 import com.facebook.react.bridge.ReactMethod
 import com.facebook.react.bridge.ReadableMap
+import com.facebook.react.bridge.WritableArray
 import com.facebook.react.bridge.WritableMap
 import com.facebook.react.modules.core.DeviceEventManagerModule
+import com.google.android.gms.tasks.Task
 import com.google.mlkit.vision.common.InputImage
+import com.google.mlkit.vision.text.Text
 import com.google.mlkit.vision.text.TextRecognition
 import com.google.mlkit.vision.text.latin.TextRecognizerOptions
-import java.util.concurrent.ExecutorService
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.CountDownLatch
 import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
-class RNOTRModule(reactContext: ReactApplicationContext) : ReactContextBaseJavaModule(reactContext) {
+class RNOTRModule(reactContext: ReactApplicationContext) :
+  ReactContextBaseJavaModule(reactContext), LifecycleEventListener {
 
   private val recognizer = TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS)
+  private val stats = OTRStats()
 
-  private var cameraProvider: ProcessCameraProvider? = null
-  private var camera: Camera? = null
-  private var imageAnalysis: ImageAnalysis? = null
-  private var cameraExecutor: ExecutorService? = null
+  private val session = CameraSession(reactContext) { imageProxy -> processImageProxy(imageProxy) }
+  private var cameraConfig = CameraConfig.from(null)
+  private var centerCrop: CenterCrop? = null
 
   private var liveRecognitionEnabled: Boolean = false
+  @Volatile
+  private var liveTextEnabled = true
+  @Volatile
+  private var barcodeDetector: BarcodeDetector? = null
+  @Volatile
+  private var recorder: SessionRecorder? = null
+  /** Recognized text per recorded frame while a session replays, else null. */
+  @Volatile
+  private var replayTexts: HashMap<Int, String>? = null
+  @Volatile
+  private var replayEvents: HashMap<String, Int>? = null
+  private val cameraFrame = YuvFrame()
+  private val replayFrame = YuvFrame()
+  /** Set while captureAndRecognize runs; live frames are dropped meanwhile. */
+  @Volatile
+  private var capturing = false
+  @Volatile
+  private var liveStabilizer: LiveStabilizer? = null
+  @Volatile
+  private var consensus: TextConsensus? = null
+  @Volatile
+  private var frameRate: FrameRateController? = null
+  @Volatile
+  private var sharpnessGate: SharpnessGate? = null
+  /** Installed by [installPackedResults]; null until then, or when JSI is unavailable. */
+  @Volatile
+  private var packedChannel: PackedChannel? = null
+  /** Set when live results go to JS as one packed buffer instead of maps. */
+  @Volatile
+  private var packedResult: PackedResult? = null
   private var targetFrameIntervalMs: Long = 100L // default ~10 FPS
   private var lastAnalyzedTimestamp: Long = 0L
 
+  init {
+    reactContext.addLifecycleEventListener(this)
+  }
+
   override fun getName(): String = "RNOTR"
 
+  override fun onHostResume() {
+    session.onHostResume()
+  }
+
+  override fun onHostPause() {
+    session.onHostPause()
+  }
+
+  override fun onHostDestroy() {
+    session.stop {}
+  }
+
+  override fun invalidate() {
+    reactApplicationContext.removeLifecycleEventListener(this)
+    session.close()
+    packedChannel?.close()
+    packedChannel = null
+    super.invalidate()
+  }
+
   @ReactMethod
   fun checkCameraPermission(promise: Promise) {
     // For now, assume caller handled runtime permissions at JS level.
@@ -52,94 +115,451 @@ class RNOTRModule(reactContext: ReactApplicationContext) : ReactContextBaseJavaM
 
   @ReactMethod
   fun startCamera(options: ReadableMap?, promise: Promise) {
-    setupCamera(options, promise)
+    cameraConfig = CameraConfig.from(options)
+    cameraConfig.frameIntervalMs?.let { targetFrameIntervalMs = it }
+    setupCamera(promise)
   }
 
   @ReactMethod
   fun stopCamera(promise: Promise) {
     try {
-      cameraProvider?.unbindAll()
-      imageAnalysis = null
-      camera = null
-      cameraExecutor?.shutdown()
-      cameraExecutor = null
-      promise.resolve(null)
+      session.stop { promise.resolve(null) }
     } catch (e: Exception) {
       promise.reject("E_STOP_CAMERA", e)
     }
   }
 
+  /** The camera session's state and its cold and warm start times. */
+  @ReactMethod
+  fun getCameraSessionState(promise: Promise) {
+    promise.resolve(session.toMap())
+  }
+
+  /**
+   * Installs the JSI channel for `packed` live results. Runs on the JS
+   * thread, as JSI requires. Returns false when the runtime cannot take
+   * them, in which case `packed` results are sent as maps.
+   */
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  fun installPackedResults(): Boolean {
+    if (packedChannel == null) {
+      packedChannel = PackedChannel.install(reactApplicationContext)
+    }
+    return packedChannel != null
+  }
+
   @ReactMethod
   fun startLiveTextRecognition(options: ReadableMap?, promise: Promise) {
+    configureLive(options)
     liveRecognitionEnabled = true
-
-    val fps = if (options != null && options.hasKey("fps")) options.getDouble("fps").toInt() else 10
-    targetFrameIntervalMs = if (fps > 0) 1000L / fps else 100L
+    session.setAnalysisEnabled(true)
 
     // languageHints can be wired into ML Kit model selection later if needed
 
-    setupCamera(options, promise)
+    // Keep the analysis size and crop chosen in startCamera rather than rebinding with defaults.
+    if (session.state != CameraSession.State.IDLE) {
+      promise.resolve(null)
+    } else {
+      setupCamera(promise)
+    }
+  }
+
+  /** Applies live options; shared by live recognition and session replay. */
+  private fun configureLive(options: ReadableMap?) {
+    liveTextEnabled = options == null || !options.hasKey("text") || options.getBoolean("text")
+    liveStabilizer = LiveStabilizer.from(options)
+    consensus = TextConsensus.from(options)
+    barcodeDetector?.close()
+    barcodeDetector = BarcodeDetector.from(options)
+
+    val fps = if (options != null && options.hasKey("fps")) options.getDouble("fps").toInt() else 0
+    targetFrameIntervalMs = if (fps > 0) 1000L / fps else cameraConfig.frameIntervalMs ?: 100L
+
+    frameRate?.detach()
+    frameRate = FrameRateController.from(options)?.also { it.attach(reactApplicationContext) }
+
+    val blurThreshold = if (options != null && options.hasKey("blurThreshold")) options.getDouble("blurThreshold") else 0.0
+    sharpnessGate = if (blurThreshold > 0) SharpnessGate(blurThreshold) else null
+    val packed = options != null && options.hasKey("packed") && options.getBoolean("packed")
+    packedResult = if (packed) packedChannel?.let { PackedResult(it) } else null
+    lastAnalyzedTimestamp = 0L
   }
 
   @ReactMethod
   fun stopLiveTextRecognition(promise: Promise) {
-    liveRecognitionEnabled = false
+    stopLive()
     promise.resolve(null)
   }
 
+  private fun stopLive() {
+    liveRecognitionEnabled = false
+    session.setAnalysisEnabled(false)
+    liveStabilizer = null
+    consensus = null
+    frameRate?.detach()
+    frameRate = null
+    sharpnessGate = null
+    packedResult = null
+    barcodeDetector?.close()
+    barcodeDetector = null
+  }
+
+  /**
+   * Appends the live frames and their results to a session file at [path],
+   * for [replaySession]. Options: `subsample` (default 2), `fps` (cap on
+   * recorded frames; default every frame) and `compress` (default true).
+   */
+  @ReactMethod
+  fun startRecording(path: String, options: ReadableMap?, promise: Promise) {
+    if (recorder != null) {
+      promise.reject("E_RECORDING", "A recording is already in progress")
+      return
+    }
+    try {
+      recorder = SessionRecorder.from(path, options)
+      promise.resolve(null)
+    } catch (e: IOException) {
+      promise.reject("E_RECORDING", e)
+    }
+  }
+
+  @ReactMethod
+  fun stopRecording(promise: Promise) {
+    val active = recorder
+    if (active == null) {
+      promise.reject("E_RECORDING", "No recording in progress")
+      return
+    }
+    recorder = null
+    active.close { summary, error ->
+      if (error != null) promise.reject("E_RECORDING", error) else promise.resolve(summary)
+    }
+  }
+
+  /**
+   * Feeds a recorded session through the live path (throttling, blur gate,
+   * crop, detectors and events) without a camera. [options] takes the live
+   * options plus `centerCrop`. Time follows the recording: frames that
+   * arrive while recognition is still busy are dropped as CameraX would,
+   * keeping only the latest. Resolves with latency percentiles, event
+   * counts and how many replayed results match the recorded ones.
+   */
+  @ReactMethod
+  fun replaySession(path: String, options: ReadableMap?, promise: Promise) {
+    if (session.state != CameraSession.State.IDLE || liveRecognitionEnabled || recorder != null || replayTexts != null) {
+      promise.reject("E_BUSY", "Stop the camera, live recognition and recording before replaying a session")
+      return
+    }
+    val file = File(if (path.startsWith("file://")) path.substring(7) else path)
+    val texts = HashMap<Int, String>()
+    replayTexts = texts
+    val executor = Executors.newSingleThreadExecutor()
+    executor.execute {
+      val previousConfig = cameraConfig
+      val previousCrop = centerCrop
+      val events = HashMap<String, Int>()
+      replayEvents = events
+      try {
+        SessionReader(file).use { reader ->
+          cameraConfig = CameraConfig.from(options)
+          centerCrop = if (cameraConfig.centerCrop < 1f) CenterCrop(cameraConfig.centerCrop) else null
+          configureLive(options)
+          liveRecognitionEnabled = true
+          val replay = SessionReplay(reader) { frame, now, sequence ->
+            val done = CountDownLatch(1)
+            val analyzed = analyzeFrame(
+              replayFrame.setNv21(frame.nv21, frame.width, frame.height, frame.rotationDegrees),
+              now,
+              sequence,
+              { InputImage.fromByteArray(frame.nv21, frame.width, frame.height, frame.rotationDegrees, InputImage.IMAGE_FORMAT_NV21) },
+              { done.countDown() }
+            )
+            if (!done.await(REPLAY_FRAME_TIMEOUT_S, TimeUnit.SECONDS)) {
+              throw IOException("Frame $sequence did not finish within $REPLAY_FRAME_TIMEOUT_S s")
+            }
+            analyzed
+          }
+          replay.run()
+          val report = replay.toMap(texts)
+          val eventCounts = Arguments.createMap()
+          synchronized(events) {
+            for ((name, count) in events) {
+              eventCounts.putInt(name, count)
+            }
+          }
+          report.putMap("events", eventCounts)
+          promise.resolve(report)
+        }
+      } catch (e: Exception) {
+        promise.reject("E_REPLAY", e)
+      } finally {
+        stopLive()
+        cameraConfig = previousConfig
+        centerCrop = previousCrop
+        replayEvents = null
+        replayTexts = null
+        executor.shutdown()
+      }
+    }
+  }
+
+  /**
+   * Takes a full-resolution still with the ImageCapture bound next to the
+   * analyzer and recognizes it straight from memory. Live analysis skips
+   * frames until the still has been recognized, then carries on.
+   */
   @ReactMethod
   fun captureAndRecognize(promise: Promise) {
-    // One-shot capture + recognize should be implemented via CameraX
-    promise.reject("E_NOT_IMPLEMENTED", "captureAndRecognize not yet implemented")
+    val capture = session.imageCapture
+    if (capture == null) {
+      promise.reject("E_CAMERA_NOT_STARTED", "Call startCamera before captureAndRecognize")
+      return
+    }
+    if (capturing) {
+      promise.reject("E_CAPTURE_IN_PROGRESS", "A capture is already in progress")
+      return
+    }
+    capturing = true
+
+    val timings = OTRStats.Timings()
+    val totalStart = System.nanoTime()
+    capture.takePicture(session.executor, object : ImageCapture.OnImageCapturedCallback() {
+      override fun onCaptureSuccess(imageProxy: ImageProxy) {
+        // Time from the request to the still being in memory.
+        stats.record(OTRStats.RESOLVE, System.nanoTime() - totalStart, timings)
+        recognizeCapture(imageProxy, timings, totalStart, promise)
+      }
+
+      override fun onError(e: ImageCaptureException) {
+        capturing = false
+        finishCall(timings, totalStart, false)
+        promise.reject("E_CAPTURE_FAILED", e)
+      }
+    })
   }
 
   @ReactMethod
   fun recognizeFromImage(imagePathOrBase64: String, promise: Promise) {
+    val timings = OTRStats.Timings()
+    val totalStart = System.nanoTime()
     try {
+      var stage = stats.begin(OTRStats.RESOLVE)
       val uri = Uri.parse(imagePathOrBase64)
-      val context = reactApplicationContext
-      val image = InputImage.fromFilePath(context, uri)
+      stats.end(OTRStats.RESOLVE, stage, timings)
+
+      stage = stats.begin(OTRStats.DECODE)
+      val image = InputImage.fromFilePath(reactApplicationContext, uri)
+      stats.end(OTRStats.DECODE, stage, timings)
+      stats.addBytesDecoded(image.width.toLong() * image.height * 4)
 
+      val inference = stats.beginAsync(OTRStats.INFERENCE)
       recognizer.process(image)
         .addOnSuccessListener { visionText ->
-          val blocksArray = Arguments.createArray()
-          val fullText = visionText.text
-
-          for (block in visionText.textBlocks) {
-            val blockMap = Arguments.createMap()
-            blockMap.putString("text", block.text)
-            val rect = block.boundingBox
-            val bbox = Arguments.createMap()
-            if (rect != null) {
-              bbox.putInt("x", rect.left)
-              bbox.putInt("y", rect.top)
-              bbox.putInt("width", rect.width())
-              bbox.putInt("height", rect.height())
-            }
-            blockMap.putMap("boundingBox", bbox)
-            blocksArray.pushMap(blockMap)
-          }
+          stats.endAsync(inference, timings)
+          promise.resolve(buildResult(visionText, timings, totalStart))
+        }
+        .addOnFailureListener { e ->
+          stats.endAsync(inference, timings)
+          finishCall(timings, totalStart, false)
+          promise.reject("E_OCR_FAILED", e)
+        }
+    } catch (e: Exception) {
+      finishCall(timings, totalStart, false)
+      promise.reject("E_INPUT_IMAGE", e)
+    }
+  }
 
-          val result = Arguments.createMap()
-          result.putString("text", fullText)
-          result.putArray("blocks", blocksArray)
-          promise.resolve(result)
+  private fun recognizeCapture(imageProxy: ImageProxy, timings: OTRStats.Timings, totalStart: Long, promise: Promise) {
+    try {
+      val mediaImage = imageProxy.image ?: throw IllegalStateException("Capture returned no image")
+      val stage = stats.begin(OTRStats.DECODE)
+      // The still is a JPEG in memory; ML Kit takes it as is, nothing is written to disk.
+      val image = InputImage.fromMediaImage(mediaImage, imageProxy.imageInfo.rotationDegrees)
+      stats.end(OTRStats.DECODE, stage, timings)
+      stats.addBytesDecoded(imageProxy.width.toLong() * imageProxy.height * 4)
+
+      val inference = stats.beginAsync(OTRStats.INFERENCE)
+      recognizer.process(image)
+        .addOnSuccessListener { visionText ->
+          stats.endAsync(inference, timings)
+          promise.resolve(buildResult(visionText, timings, totalStart, geometry = true))
         }
         .addOnFailureListener { e ->
+          stats.endAsync(inference, timings)
+          finishCall(timings, totalStart, false)
           promise.reject("E_OCR_FAILED", e)
         }
+        .addOnCompleteListener {
+          imageProxy.close()
+          capturing = false
+        }
     } catch (e: Exception) {
+      imageProxy.close()
+      capturing = false
+      finishCall(timings, totalStart, false)
       promise.reject("E_INPUT_IMAGE", e)
     }
   }
 
+  @ReactMethod
+  fun getOCRStats(promise: Promise) {
+    promise.resolve(stats.toMap())
+  }
+
+  @ReactMethod
+  fun resetOCRStats(promise: Promise) {
+    stats.reset()
+    promise.resolve(null)
+  }
+
+  private fun buildResult(
+    visionText: Text,
+    timings: OTRStats.Timings,
+    totalStart: Long,
+    offsetX: Int = 0,
+    offsetY: Int = 0,
+    /** Also include corner points, lines and elements of every block. */
+    geometry: Boolean = false
+  ): WritableMap {
+    val stage = stats.begin(OTRStats.MARSHAL)
+    val blocksArray = Arguments.createArray()
+    for (block in visionText.textBlocks) {
+      val blockMap = Arguments.createMap()
+      blockMap.putString("text", block.text)
+      blockMap.putMap("boundingBox", boxMap(block.boundingBox, offsetX, offsetY))
+      if (geometry) {
+        blockMap.putArray("cornerPoints", pointsArray(block.cornerPoints, offsetX, offsetY))
+        val lines = Arguments.createArray()
+        for (line in block.lines) {
+          val lineMap = Arguments.createMap()
+          lineMap.putString("text", line.text)
+          lineMap.putMap("boundingBox", boxMap(line.boundingBox, offsetX, offsetY))
+          lineMap.putArray("cornerPoints", pointsArray(line.cornerPoints, offsetX, offsetY))
+          lineMap.putDouble("confidence", line.confidence.toDouble())
+          lineMap.putDouble("angle", line.angle.toDouble())
+          val elements = Arguments.createArray()
+          for (element in line.elements) {
+            val elementMap = Arguments.createMap()
+            elementMap.putString("text", element.text)
+            elementMap.putMap("boundingBox", boxMap(element.boundingBox, offsetX, offsetY))
+            elementMap.putArray("cornerPoints", pointsArray(element.cornerPoints, offsetX, offsetY))
+            elementMap.putDouble("confidence", element.confidence.toDouble())
+            elementMap.putDouble("angle", element.angle.toDouble())
+            elements.pushMap(elementMap)
+          }
+          lineMap.putArray("elements", elements)
+          lines.pushMap(lineMap)
+        }
+        blockMap.putArray("lines", lines)
+      }
+      blocksArray.pushMap(blockMap)
+    }
+
+    val result = Arguments.createMap()
+    result.putString("text", visionText.text)
+    result.putArray("blocks", blocksArray)
+    stats.end(OTRStats.MARSHAL, stage, timings)
+    finishCall(timings, totalStart, true)
+    result.putMap("timings", timings.toMap())
+    return result
+  }
+
+  /** The reading fused by [TextConsensus] over its window, including this frame. */
+  private fun buildConsensus(
+    fuser: TextConsensus,
+    visionText: Text,
+    timings: OTRStats.Timings,
+    totalStart: Long,
+    offsetX: Int,
+    offsetY: Int
+  ): WritableMap {
+    val stage = stats.begin(OTRStats.MARSHAL)
+    val result = TextConsensus.toMap(fuser.update(visionText.textBlocks, offsetX, offsetY))
+    stats.end(OTRStats.MARSHAL, stage, timings)
+    finishCall(timings, totalStart, true)
+    result.putMap("timings", timings.toMap())
+    return result
+  }
+
+  /** Packs a live result in the layout described by [PackedResult] and hands it to JS through JSI. */
+  private fun sendPacked(
+    packer: PackedResult,
+    visionText: Text,
+    timings: OTRStats.Timings,
+    totalStart: Long,
+    offsetX: Int,
+    offsetY: Int
+  ) {
+    val stage = stats.begin(OTRStats.MARSHAL)
+    packer.pack(visionText, offsetX, offsetY)
+    stats.end(OTRStats.MARSHAL, stage, timings)
+    finishCall(timings, totalStart, true)
+    packer.publish(timings)
+    countEvent("onPackedResult")
+  }
+
+  private fun boxMap(rect: Rect?, offsetX: Int = 0, offsetY: Int = 0): WritableMap {
+    val bbox = Arguments.createMap()
+    if (rect != null) {
+      bbox.putInt("x", rect.left + offsetX)
+      bbox.putInt("y", rect.top + offsetY)
+      bbox.putInt("width", rect.width())
+      bbox.putInt("height", rect.height())
+    }
+    return bbox
+  }
+
+  private fun pointsArray(points: Array<Point>?, offsetX: Int, offsetY: Int): WritableArray {
+    val array = Arguments.createArray()
+    for (point in points ?: emptyArray()) {
+      val map = Arguments.createMap()
+      map.putInt("x", point.x + offsetX)
+      map.putInt("y", point.y + offsetY)
+      array.pushMap(map)
+    }
+    return array
+  }
+
+  /** The `onTextChanged` delta for a live frame, or null while the recognized text is unchanged. */
+  private fun buildChanges(
+    stabilizer: LiveStabilizer,
+    visionText: Text,
+    timings: OTRStats.Timings,
+    totalStart: Long,
+    offsetX: Int,
+    offsetY: Int
+  ): WritableMap? {
+    val stage = stats.begin(OTRStats.MARSHAL)
+    val delta = stabilizer.update(visionText.textBlocks, offsetX, offsetY, SystemClock.elapsedRealtime())
+    val event = delta?.let { LiveStabilizer.toMap(it) }
+    stats.end(OTRStats.MARSHAL, stage, timings)
+    finishCall(timings, totalStart, true)
+    event?.putMap("timings", timings.toMap())
+    return event
+  }
+
+  private fun finishCall(timings: OTRStats.Timings, totalStart: Long, succeeded: Boolean) {
+    stats.record(OTRStats.TOTAL, System.nanoTime() - totalStart, timings)
+    stats.recordCall(succeeded)
+  }
+
   private fun sendEvent(eventName: String, params: WritableMap) {
+    countEvent(eventName)
     reactApplicationContext
       .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter::class.java)
       .emit(eventName, params)
   }
 
-  private fun setupCamera(options: ReadableMap?, promise: Promise) {
+  /** Counts events sent during a replay, for its report. */
+  private fun countEvent(eventName: String) {
+    replayEvents?.let { events ->
+      synchronized(events) {
+        events[eventName] = (events[eventName] ?: 0) + 1
+      }
+    }
+  }
+
+  private fun setupCamera(promise: Promise) {
     try {
       val currentActivity = currentActivity
       if (currentActivity == null || currentActivity !is LifecycleOwner) {
@@ -147,104 +567,182 @@ class RNOTRModule(reactContext: ReactApplicationContext) : ReactContextBaseJavaM
         return
       }
 
-      if (cameraExecutor == null) {
-        cameraExecutor = Executors.newSingleThreadExecutor()
-      }
-
-      val providerFuture = ProcessCameraProvider.getInstance(reactApplicationContext)
-      providerFuture.addListener({
-        try {
-          val provider = providerFuture.get()
-          cameraProvider = provider
-
-          // Unbind any previous use cases
-          provider.unbindAll()
-
-          // Camera selector based on facing option
-          val facing = options?.getString("facing") ?: "back"
-          val cameraSelector = if (facing == "front") {
-            CameraSelector.DEFAULT_FRONT_CAMERA
-          } else {
-            CameraSelector.DEFAULT_BACK_CAMERA
-          }
-
-          // ImageAnalysis use case for OCR
-          val analysis = ImageAnalysis.Builder()
-            .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
-            .build()
-
-          analysis.setAnalyzer(cameraExecutor!!) { imageProxy ->
-            processImageProxy(imageProxy)
-          }
-
-          imageAnalysis = analysis
-
-          // Bind to lifecycle; we don't create a Preview here, only analysis
-          camera = provider.bindToLifecycle(currentActivity, cameraSelector, analysis)
-
+      val config = cameraConfig
+      centerCrop = if (config.centerCrop < 1f) CenterCrop(config.centerCrop) else null
+      session.start(currentActivity, config) { error ->
+        if (error == null) {
           promise.resolve(null)
-        } catch (e: Exception) {
-          Log.e("RNOTR", "Failed to bind camera", e)
-          promise.reject("E_START_CAMERA", e)
+        } else {
+          Log.e("RNOTR", "Failed to bind camera", error)
+          promise.reject("E_START_CAMERA", error)
         }
-      }, ContextCompat.getMainExecutor(reactApplicationContext))
+      }
     } catch (e: Exception) {
       promise.reject("E_START_CAMERA", e)
     }
   }
 
   private fun processImageProxy(imageProxy: ImageProxy) {
+    session.onFrame()
     try {
       val mediaImage = imageProxy.image
-      if (mediaImage == null) {
+      if (mediaImage == null || !liveRecognitionEnabled || capturing) {
         imageProxy.close()
         return
       }
 
       val now = System.currentTimeMillis()
-      if (!liveRecognitionEnabled || now - lastAnalyzedTimestamp < targetFrameIntervalMs) {
-        imageProxy.close()
-        return
+      val frame = cameraFrame.set(imageProxy)
+      val sequence = recorder?.recordFrame(frame, now) ?: -1
+      analyzeFrame(
+        frame,
+        now,
+        sequence,
+        { InputImage.fromMediaImage(mediaImage, frame.rotationDegrees) },
+        { imageProxy.close() }
+      )
+    } catch (e: Exception) {
+      Log.e("RNOTR", "Error processing image", e)
+      imageProxy.close()
+    }
+  }
+
+  /**
+   * Runs the detectors that are due on [frame] at time [now] and calls
+   * [release] once they all finish, or right away when none are due.
+   * [fullImage] builds the uncropped InputImage. Returns whether any
+   * detector ran.
+   */
+  private fun analyzeFrame(
+    frame: YuvFrame,
+    now: Long,
+    sequence: Int,
+    fullImage: () -> InputImage,
+    release: () -> Unit
+  ): Boolean {
+    val controller = frameRate
+    val interval = controller?.intervalMs ?: targetFrameIntervalMs
+    var textDue = liveTextEnabled && now - lastAnalyzedTimestamp >= interval
+    val barcodes = barcodeDetector
+    val barcodesDue = barcodes != null && barcodes.isDue(now)
+
+    // Skip blurry frames without waiting another interval; the next frame is only ~33 ms away.
+    val gate = sharpnessGate
+    if (textDue && gate != null) {
+      val sharp = gate.accept(frame, cameraConfig.centerCrop)
+      stats.recordSharpness(sharp)
+      if (!sharp) {
+        controller?.onFrameSkipped(now)
+        textDue = false
       }
+    }
+    if (!textDue && !barcodesDue) {
+      release()
+      return false
+    }
+    if (textDue) {
       lastAnalyzedTimestamp = now
+      controller?.onFrameStarted(now)
+    }
 
-      val image = InputImage.fromMediaImage(mediaImage, imageProxy.imageInfo.rotationDegrees)
-
-      recognizer.process(image)
-        .addOnSuccessListener { visionText ->
-          val blocksArray = Arguments.createArray()
-          val fullText = visionText.text
-
-          for (block in visionText.textBlocks) {
-            val blockMap = Arguments.createMap()
-            blockMap.putString("text", block.text)
-            val rect = block.boundingBox
-            val bbox = Arguments.createMap()
-            if (rect != null) {
-              bbox.putInt("x", rect.left)
-              bbox.putInt("y", rect.top)
-              bbox.putInt("width", rect.width())
-              bbox.putInt("height", rect.height())
-            }
-            blockMap.putMap("boundingBox", bbox)
-            blocksArray.pushMap(blockMap)
+    // One InputImage per frame, shared by every detector that is due.
+    val timings = OTRStats.Timings()
+    val totalStart = System.nanoTime()
+    val stage = stats.begin(OTRStats.DECODE)
+    val crop = centerCrop
+    val image = crop?.crop(frame) ?: fullImage()
+    stats.end(OTRStats.DECODE, stage, timings)
+    stats.addBytesDecoded(image.width.toLong() * image.height * 3 / 2)
+    // Boxes are reported in full-frame coordinates even when only the center was analyzed.
+    val offsetX = crop?.offsetX ?: 0
+    val offsetY = crop?.offsetY ?: 0
+
+    // With barcodes on, everything found in a frame goes to JS as one onFrameAnalyzed event.
+    val merged = if (barcodes != null) Arguments.createMap() else null
+    val remaining = AtomicInteger(if (textDue && barcodesDue) 2 else 1)
+    val done = {
+      if (remaining.decrementAndGet() == 0) {
+        release()
+        if (textDue && controller != null) {
+          val elapsedMs = (System.nanoTime() - totalStart) / 1e6
+          val sample = controller.onFrameFinished(elapsedMs, now + elapsedMs.toLong())
+          if (sample != null) {
+            sendEvent("onFrameRateChanged", FrameRateController.toMap(sample))
           }
-
-          val result = Arguments.createMap()
-          result.putString("text", fullText)
-          result.putArray("blocks", blocksArray)
-
-          sendEvent("onTextRecognized", result)
         }
-        .addOnFailureListener { e ->
-          Log.e("RNOTR", "ML Kit OCR failed", e)
+        if (merged != null && (merged.hasKey("text") || merged.hasKey("textChanges") || merged.hasKey("barcodes"))) {
+          sendEvent("onFrameAnalyzed", merged)
         }
-        .addOnCompleteListener {
-          imageProxy.close()
+      }
+    }
+
+    if (textDue) {
+      recognizeLiveText(image, timings, totalStart, offsetX, offsetY, merged, sequence, now)
+        .addOnCompleteListener { done() }
+    }
+    if (barcodesDue) {
+      barcodes!!.process(image, now)
+        .addOnSuccessListener { found ->
+          if (barcodes.shouldReport(found.size)) {
+            merged!!.putArray("barcodes", BarcodeDetector.toArray(found, offsetX, offsetY))
+          }
         }
-    } catch (e: Exception) {
-      Log.e("RNOTR", "Error processing image", e)
-      imageProxy.close()
+        .addOnFailureListener { e -> Log.e("RNOTR", "ML Kit barcode scanning failed", e) }
+        .addOnCompleteListener { done() }
     }
+    return true
+  }
+
+  /**
+   * Recognizes one live frame and reports it: as its own event, or into
+   * [merged] when other detectors share the frame.
+   */
+  private fun recognizeLiveText(
+    image: InputImage,
+    timings: OTRStats.Timings,
+    totalStart: Long,
+    offsetX: Int,
+    offsetY: Int,
+    merged: WritableMap?,
+    sequence: Int,
+    now: Long
+  ): Task<Text> {
+    val inference = stats.beginAsync(OTRStats.INFERENCE)
+    return recognizer.process(image)
+      .addOnSuccessListener { visionText ->
+        stats.endAsync(inference, timings)
+        if (sequence >= 0) {
+          recorder?.recordResult(sequence, now, visionText, offsetX, offsetY, (System.nanoTime() - totalStart) / 1e6)
+          replayTexts?.let { texts -> synchronized(texts) { texts[sequence] = visionText.text } }
+        }
+        val stabilizer = liveStabilizer
+        val fuser = consensus
+        val packer = packedResult
+        if (stabilizer == null && fuser == null && packer != null) {
+          // Packed results bypass events, including onFrameAnalyzed.
+          sendPacked(packer, visionText, timings, totalStart, offsetX, offsetY)
+        } else if (stabilizer == null) {
+          val result = if (fuser != null) {
+            buildConsensus(fuser, visionText, timings, totalStart, offsetX, offsetY)
+          } else {
+            buildResult(visionText, timings, totalStart, offsetX, offsetY)
+          }
+          if (merged == null) sendEvent("onTextRecognized", result) else merged.putMap("text", result)
+        } else {
+          val changes = buildChanges(stabilizer, visionText, timings, totalStart, offsetX, offsetY)
+          if (changes != null) {
+            if (merged == null) sendEvent("onTextChanged", changes) else merged.putMap("textChanges", changes)
+          }
+        }
+      }
+      .addOnFailureListener { e ->
+        stats.endAsync(inference, timings)
+        finishCall(timings, totalStart, false)
+        Log.e("RNOTR", "ML Kit OCR failed", e)
+      }
+  }
+
+  companion object {
+    private const val REPLAY_FRAME_TIMEOUT_S = 30L
   }
 }
@@ -0,0 +1,111 @@
+package com.rnotr
+
+import java.io.BufferedInputStream
+import java.io.ByteArrayInputStream
+import java.io.Closeable
+import java.io.DataInputStream
+import java.io.EOFException
+import java.io.File
+import java.io.FileInputStream
+import java.io.IOException
+import java.util.zip.DataFormatException
+import java.util.zip.Inflater
+
+/** Reads a session written by [SessionRecorder], one record at a time. */
+internal class SessionReader(file: File) : Closeable {
+
+  class Frame(val sequence: Int, val timestampMs: Long, val width: Int, val height: Int, val rotationDegrees: Int, val nv21: ByteArray)
+
+  class Result(val sequence: Int, val timestampMs: Long, val totalMs: Double, val text: String)
+
+  private val input = DataInputStream(BufferedInputStream(FileInputStream(file)))
+  private val inflater = Inflater()
+
+  init {
+    val magic = ByteArray(SessionRecorder.MAGIC.size)
+    try {
+      input.readFully(magic)
+      val version = input.readInt()
+      if (!magic.contentEquals(SessionRecorder.MAGIC) || version != SessionRecorder.VERSION) {
+        throw IOException("Not a session recording, or one from an unsupported version")
+      }
+    } catch (e: EOFException) {
+      input.close()
+      throw IOException("Session recording is empty", e)
+    } catch (e: IOException) {
+      input.close()
+      throw e
+    }
+  }
+
+  /** The next [Frame] or [Result], or null at the end. Unknown record types are skipped. */
+  fun next(): Any? {
+    while (true) {
+      val payload: ByteArray
+      val type: Int
+      val timestampMs: Long
+      try {
+        type = input.readUnsignedByte()
+        timestampMs = input.readLong()
+        val length = input.readInt()
+        if (length < 0) {
+          return null
+        }
+        payload = ByteArray(length)
+        input.readFully(payload)
+      } catch (e: EOFException) {
+        // End of file, or a record cut short while it was written.
+        return null
+      }
+      val data = DataInputStream(ByteArrayInputStream(payload))
+      when (type) {
+        SessionRecorder.FRAME -> return readFrame(data, timestampMs)
+        SessionRecorder.RESULT -> {
+          val sequence = data.readInt()
+          val totalMs = data.readDouble()
+          return Result(sequence, timestampMs, totalMs, readString(data))
+        }
+      }
+    }
+  }
+
+  private fun readString(data: DataInputStream): String {
+    val length = data.readInt()
+    if (length < 0 || length > data.available()) {
+      throw IOException("Corrupt result text length $length")
+    }
+    val utf8 = ByteArray(length)
+    data.readFully(utf8)
+    return String(utf8, Charsets.UTF_8)
+  }
+
+  private fun readFrame(data: DataInputStream, timestampMs: Long): Frame {
+    val sequence = data.readInt()
+    val width = data.readInt()
+    val height = data.readInt()
+    val rotation = data.readInt()
+    val compressed = data.readBoolean()
+    val nv21 = ByteArray(width * height * 3 / 2)
+    if (compressed) {
+      val packed = ByteArray(data.readInt())
+      data.readFully(packed)
+      inflater.reset()
+      inflater.setInput(packed)
+      try {
+        if (inflater.inflate(nv21) != nv21.size) {
+          throw IOException("Truncated frame $sequence")
+        }
+      } catch (e: DataFormatException) {
+        throw IOException("Corrupt frame $sequence", e)
+      }
+    } else {
+      data.readFully(nv21)
+    }
+    return Frame(sequence, timestampMs, width, height, rotation, nv21)
+  }
+
+  override fun close() {
+    inflater.end()
+    input.close()
+  }
+}
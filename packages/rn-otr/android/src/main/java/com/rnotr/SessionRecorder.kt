@@ -0,0 +1,325 @@
+package com.rnotr
+
+import android.util.Log
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.ReadableMap
+import com.facebook.react.bridge.WritableMap
+import com.google.mlkit.vision.text.Text
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.zip.Deflater
+
+/**
+ * Appends live frames and their recognition results to a session file for
+ * [SessionReader] to replay without a camera.
+ *
+ * Frames are subsampled by [subsample] in each direction, stored as NV21,
+ * and optionally deflated. Copies go into a small pool of buffers, and a
+ * background thread compresses and writes them, so the analyzer never
+ * waits on storage. When the pool is empty the frame is left out of the
+ * recording and counted in [dropped].
+ *
+ * File layout: [MAGIC], a version int, then records of
+ * `type:byte, timestampMs:long, length:int, payload`. Each record is
+ * written whole, so a file cut short by a crash ends in at most one
+ * partial record, and the reader ignores it.
+ */
+internal class SessionRecorder(
+  val file: File,
+  private val subsample: Int,
+  private val minIntervalMs: Long,
+  private val compress: Boolean
+) {
+
+  private val writer: ExecutorService = Executors.newSingleThreadExecutor()
+  private val output = FileOutputStream(file, true)
+  private val free = ArrayBlockingQueue<ByteArray>(POOL_SIZE)
+  private var pooled = 0
+  private var rowBytes = ByteArray(0)
+  private val deflater = Deflater(Deflater.BEST_SPEED)
+  private val deflated = ByteArray(64 * 1024)
+  private var lastFrameAt = -1L
+  private var nextSequence = 0
+  private val frames = AtomicInteger()
+  private val results = AtomicInteger()
+  private val dropped = AtomicInteger()
+  @Volatile
+  private var bytesWritten = 0L
+  @Volatile
+  private var failure: IOException? = null
+  @Volatile
+  private var closed = false
+
+  init {
+    if (file.length() == 0L) {
+      val header = DataOutputStream(output)
+      header.write(MAGIC)
+      header.writeInt(VERSION)
+      header.flush()
+    }
+  }
+
+  /**
+   * Queues a subsampled copy of [frame]. Returns the frame's sequence number
+   * for [recordResult], or -1 when it was not recorded. Analyzer thread only.
+   */
+  fun recordFrame(frame: YuvFrame, timestampMs: Long): Int {
+    if (closed || lastFrameAt >= 0 && timestampMs - lastFrameAt < minIntervalMs) {
+      return -1
+    }
+    // NV21 needs even dimensions.
+    val width = (frame.width / subsample) and 1.inv()
+    val height = (frame.height / subsample) and 1.inv()
+    val size = width * height * 3 / 2
+    val buffer = takeBuffer(size)
+    if (buffer == null) {
+      dropped.incrementAndGet()
+      return -1
+    }
+    lastFrameAt = timestampMs
+    copyLuma(frame, buffer, width, height)
+    copyChroma(frame, buffer, width, height)
+
+    val sequence = nextSequence
+    val rotation = frame.rotationDegrees
+    val queued = enqueue {
+      try {
+        val payload = ByteArrayOutputStream(size / 2 + 32)
+        val data = DataOutputStream(payload)
+        data.writeInt(sequence)
+        data.writeInt(width)
+        data.writeInt(height)
+        data.writeInt(rotation)
+        data.writeBoolean(compress)
+        if (compress) {
+          deflate(buffer, size, data)
+        } else {
+          data.write(buffer, 0, size)
+        }
+        writeRecord(FRAME, timestampMs, payload)
+        frames.incrementAndGet()
+      } catch (e: IOException) {
+        fail(e)
+      } finally {
+        free.offer(buffer)
+      }
+    }
+    if (!queued) {
+      free.offer(buffer)
+      return -1
+    }
+    nextSequence++
+    return sequence
+  }
+
+  /** Records what recognition returned for frame [sequence], in full-frame coordinates. */
+  fun recordResult(sequence: Int, timestampMs: Long, visionText: Text, offsetX: Int, offsetY: Int, totalMs: Double) {
+    if (closed) {
+      return
+    }
+    val payload = ByteArrayOutputStream()
+    val data = DataOutputStream(payload)
+    data.writeInt(sequence)
+    data.writeDouble(totalMs)
+    writeString(data, visionText.text)
+    val blocks = visionText.textBlocks
+    data.writeInt(blocks.size)
+    for (block in blocks) {
+      val box = block.boundingBox
+      writeString(data, block.text)
+      data.writeInt((box?.left ?: 0) + offsetX)
+      data.writeInt((box?.top ?: 0) + offsetY)
+      data.writeInt(box?.width() ?: 0)
+      data.writeInt(box?.height() ?: 0)
+    }
+    enqueue {
+      try {
+        writeRecord(RESULT, timestampMs, payload)
+        results.incrementAndGet()
+      } catch (e: IOException) {
+        fail(e)
+      }
+    }
+  }
+
+  /**
+   * Flushes pending records, closes the file and calls [onClosed] with a
+   * summary, off the caller's thread. Records offered after this are dropped.
+   */
+  fun close(onClosed: (WritableMap?, IOException?) -> Unit) {
+    synchronized(this) {
+      if (closed) {
+        onClosed(null, IOException("Recording already closed"))
+        return
+      }
+      closed = true
+      writer.execute { finish(onClosed) }
+      writer.shutdown()
+    }
+  }
+
+  private fun finish(onClosed: (WritableMap?, IOException?) -> Unit) {
+    try {
+      output.close()
+    } catch (e: IOException) {
+      fail(e)
+    }
+    val error = failure
+    if (error != null) {
+      onClosed(null, error)
+    } else {
+      val summary = Arguments.createMap()
+      summary.putString("path", file.absolutePath)
+      summary.putInt("frames", frames.get())
+      summary.putInt("results", results.get())
+      summary.putInt("dropped", dropped.get())
+      summary.putDouble("bytes", bytesWritten.toDouble())
+      onClosed(summary, null)
+    }
+  }
+
+  /**
+   * Queues [task] on the writer unless the recording is closed. The check and
+   * the enqueue are atomic with [close], so nothing is queued behind the task
+   * that closes the file. Returns whether [task] was queued.
+   */
+  private fun enqueue(task: () -> Unit): Boolean {
+    synchronized(this) {
+      if (closed) {
+        return false
+      }
+      try {
+        writer.execute(task)
+      } catch (e: RejectedExecutionException) {
+        return false
+      }
+      return true
+    }
+  }
+
+  private fun takeBuffer(size: Int): ByteArray? {
+    var buffer = free.poll()
+    if (buffer == null && pooled < POOL_SIZE) {
+      pooled++
+      buffer = ByteArray(size)
+    }
+    // Frames keep their size while the camera runs; resize on the rare change.
+    return if (buffer != null && buffer.size != size) ByteArray(size) else buffer
+  }
+
+  private fun copyLuma(frame: YuvFrame, out: ByteArray, width: Int, height: Int) {
+    val span = (width - 1) * subsample + 1
+    ensureRow(span)
+    val buffer = frame.y
+    var offset = 0
+    for (row in 0 until height) {
+      buffer.position(row * subsample * frame.yRowStride)
+      buffer.get(rowBytes, 0, span)
+      var i = 0
+      for (x in 0 until width) {
+        out[offset++] = rowBytes[i]
+        i += subsample
+      }
+    }
+    buffer.rewind()
+  }
+
+  private fun copyChroma(frame: YuvFrame, out: ByteArray, width: Int, height: Int) {
+    val pixelStride = frame.uvPixelStride
+    val step = subsample * pixelStride
+    val span = (width / 2 - 1) * step + 1
+    ensureRow(span)
+    var offset = width * height
+    for (row in 0 until height / 2) {
+      val start = row * subsample * frame.uvRowStride
+      // V then U, interleaved as NV21 expects.
+      frame.v.position(start)
+      frame.v.get(rowBytes, 0, span)
+      var i = 0
+      for (x in 0 until width / 2) {
+        out[offset + 2 * x] = rowBytes[i]
+        i += step
+      }
+      frame.u.position(start)
+      frame.u.get(rowBytes, 0, span)
+      i = 0
+      for (x in 0 until width / 2) {
+        out[offset + 2 * x + 1] = rowBytes[i]
+        i += step
+      }
+      offset += width
+    }
+    frame.u.rewind()
+    frame.v.rewind()
+  }
+
+  private fun ensureRow(span: Int) {
+    if (rowBytes.size < span) {
+      rowBytes = ByteArray(span)
+    }
+  }
+
+  /** Writes `length:int` and the deflated bytes. Writer thread only. */
+  private fun deflate(input: ByteArray, size: Int, out: DataOutputStream) {
+    val compressed = ByteArrayOutputStream(size / 2)
+    deflater.reset()
+    deflater.setInput(input, 0, size)
+    deflater.finish()
+    while (!deflater.finished()) {
+      val count = deflater.deflate(deflated)
+      compressed.write(deflated, 0, count)
+    }
+    out.writeInt(compressed.size())
+    compressed.writeTo(out)
+  }
+
+  /** Length-prefixed UTF-8, with no limit on length unlike writeUTF. */
+  private fun writeString(out: DataOutputStream, value: String) {
+    val utf8 = value.toByteArray(Charsets.UTF_8)
+    out.writeInt(utf8.size)
+    out.write(utf8)
+  }
+
+  private fun writeRecord(type: Int, timestampMs: Long, payload: ByteArrayOutputStream) {
+    val record = ByteArrayOutputStream(payload.size() + 13)
+    val data = DataOutputStream(record)
+    data.writeByte(type)
+    data.writeLong(timestampMs)
+    data.writeInt(payload.size())
+    payload.writeTo(data)
+    record.writeTo(output)
+    bytesWritten += record.size()
+  }
+
+  private fun fail(e: IOException) {
+    Log.e("RNOTR", "Session recording failed", e)
+    if (failure == null) {
+      failure = e
+    }
+  }
+
+  companion object {
+    val MAGIC = "RNOTRSES".toByteArray(Charsets.US_ASCII)
+    const val VERSION = 2
+    const val FRAME = 1
+    const val RESULT = 2
+    private const val POOL_SIZE = 3
+
+    fun from(path: String, options: ReadableMap?): SessionRecorder {
+      val subsample = if (options != null && options.hasKey("subsample")) options.getInt("subsample") else 2
+      val fps = if (options != null && options.hasKey("fps")) options.getDouble("fps") else 0.0
+      val compress = options == null || !options.hasKey("compress") || options.getBoolean("compress")
+      val file = File(if (path.startsWith("file://")) path.substring(7) else path)
+      file.parentFile?.mkdirs()
+      return SessionRecorder(file, subsample.coerceIn(1, 8), if (fps > 0) (1000 / fps).toLong() else 0L, compress)
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package com.rnotr
+
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.WritableMap
+
+/**
+ * Plays a recorded session into [analyze] on the recording's own clock.
+ *
+ * [analyze] gets a frame, the time it is delivered at and its sequence
+ * number. It returns whether any detector ran, and it must not return
+ * before the frame is released. While a frame is being analyzed, later
+ * frames pile up as they would behind a busy CameraX analyzer with
+ * STRATEGY_KEEP_ONLY_LATEST. Only the newest is delivered, when the
+ * analyzer frees up; the others count as dropped.
+ */
+internal class SessionReplay(
+  private val reader: SessionReader,
+  private val analyze: (SessionReader.Frame, Long, Int) -> Boolean
+) {
+
+  private val recorded = HashMap<Int, String>()
+  private val latencies = ArrayList<Long>()
+  private var frames = 0
+  private var delivered = 0
+  private var dropped = 0
+  private var firstAt = -1L
+  private var busyUntil = Long.MIN_VALUE
+  private var held: SessionReader.Frame? = null
+  private var durationNanos = 0L
+
+  fun run() {
+    val started = System.nanoTime()
+    while (true) {
+      when (val record = reader.next() ?: break) {
+        is SessionReader.Result -> recorded[record.sequence] = record.text
+        is SessionReader.Frame -> offer(record)
+      }
+    }
+    held?.let { deliver(it, busyUntil) }
+    held = null
+    durationNanos = System.nanoTime() - started
+  }
+
+  private fun offer(frame: SessionReader.Frame) {
+    frames++
+    if (firstAt < 0) {
+      firstAt = frame.timestampMs
+    }
+    if (frame.timestampMs < busyUntil) {
+      if (held != null) {
+        dropped++
+      }
+      held = frame
+      return
+    }
+    val waiting = held
+    if (waiting != null) {
+      held = null
+      deliver(waiting, busyUntil)
+      if (frame.timestampMs < busyUntil) {
+        held = frame
+        return
+      }
+    }
+    deliver(frame, frame.timestampMs)
+  }
+
+  private fun deliver(frame: SessionReader.Frame, now: Long) {
+    delivered++
+    val start = System.nanoTime()
+    if (analyze(frame, now, frame.sequence)) {
+      val elapsed = System.nanoTime() - start
+      latencies.add(elapsed)
+      busyUntil = now + elapsed / 1_000_000
+    } else {
+      busyUntil = now
+    }
+  }
+
+  /** The report, comparing [replayed] text per frame with what was recorded. */
+  fun toMap(replayed: Map<Int, String>): WritableMap {
+    val sorted = latencies.toLongArray()
+    sorted.sort()
+    val latency = Arguments.createMap()
+    latency.putInt("count", sorted.size)
+    latency.putDouble("p50Ms", OTRStats.percentile(sorted, 50) / 1e6)
+    latency.putDouble("p95Ms", OTRStats.percentile(sorted, 95) / 1e6)
+    latency.putDouble("p99Ms", OTRStats.percentile(sorted, 99) / 1e6)
+    latency.putDouble("maxMs", (if (sorted.isEmpty()) 0L else sorted[sorted.size - 1]) / 1e6)
+
+    var compared = 0
+    var matching = 0
+    synchronized(replayed) {
+      for ((sequence, text) in replayed) {
+        val original = recorded[sequence] ?: continue
+        compared++
+        if (original == text) {
+          matching++
+        }
+      }
+    }
+    val results = Arguments.createMap()
+    results.putInt("recorded", recorded.size)
+    results.putInt("replayed", replayed.size)
+    results.putInt("compared", compared)
+    results.putInt("matching", matching)
+
+    // Session time, stretched where recognition ran past the last frame.
+    val timelineMs = if (firstAt < 0) 0L else Math.max(busyUntil - firstAt, 0L)
+    val report = Arguments.createMap()
+    report.putInt("frames", frames)
+    report.putInt("delivered", delivered)
+    report.putInt("analyzed", sorted.size)
+    report.putInt("dropped", dropped)
+    report.putDouble("sessionMs", timelineMs.toDouble())
+    report.putDouble("durationMs", durationNanos / 1e6)
+    report.putDouble("fps", if (timelineMs > 0) sorted.size * 1000.0 / timelineMs else 0.0)
+    report.putMap("latency", latency)
+    report.putMap("results", results)
+    return report
+  }
+}
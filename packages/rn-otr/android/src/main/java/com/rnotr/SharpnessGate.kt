@@ -0,0 +1,80 @@
+package com.rnotr
+
+/**
+ * Rejects blurry live frames before they reach ML Kit.
+ *
+ * Scores a frame by the variance of the Laplacian over its luma plane,
+ * sampled on a grid about [SAMPLE_WIDTH] points wide. Motion blur and
+ * defocus smear edges and the variance collapses, while text keeps it high.
+ * Only the region that will be analyzed (the centered `fraction` of the
+ * frame) is scored. Row buffers are reused between frames; call from the
+ * analyzer thread only.
+ */
+internal class SharpnessGate(private val threshold: Double) {
+
+  private var rowBytes = ByteArray(0)
+  private var rows = Array(3) { IntArray(0) }
+
+  /** True when the centered [fraction] of [frame] is sharp enough to recognize. */
+  fun accept(frame: YuvFrame, fraction: Float): Boolean {
+    return score(frame, fraction) >= threshold
+  }
+
+  private fun score(frame: YuvFrame, fraction: Float): Double {
+    val width = Math.round(frame.width * fraction)
+    val height = Math.round(frame.height * fraction)
+    val left = (frame.width - width) / 2
+    val top = (frame.height - height) / 2
+    val step = Math.max(1, width / SAMPLE_WIDTH)
+    val columns = width / step
+    val sampledRows = height / step
+    if (columns < 3 || sampledRows < 3) {
+      return Double.MAX_VALUE
+    }
+
+    // The Y plane of YUV_420_888 always has a pixel stride of 1.
+    val span = (columns - 1) * step + 1
+    if (rowBytes.size < span) {
+      rowBytes = ByteArray(span)
+    }
+    if (rows[0].size < columns) {
+      rows = Array(3) { IntArray(columns) }
+    }
+    val buffer = frame.y
+    val rowStride = frame.yRowStride
+
+    var sum = 0.0
+    var sumOfSquares = 0.0
+    var count = 0
+    for (r in 0 until sampledRows) {
+      buffer.position((top + r * step) * rowStride + left)
+      buffer.get(rowBytes, 0, span)
+      val row = rows[r % 3]
+      var i = 0
+      for (c in 0 until columns) {
+        row[c] = rowBytes[i].toInt() and 0xFF
+        i += step
+      }
+      if (r < 2) {
+        continue
+      }
+      val above = rows[(r - 2) % 3]
+      val center = rows[(r - 1) % 3]
+      for (c in 1 until columns - 1) {
+        val laplacian = 4 * center[c] - center[c - 1] - center[c + 1] - above[c] - row[c]
+        sum += laplacian
+        sumOfSquares += laplacian.toDouble() * laplacian
+        count++
+      }
+    }
+    // Leave the plane as ML Kit expects to find it.
+    buffer.rewind()
+
+    val mean = sum / count
+    return sumOfSquares / count - mean * mean
+  }
+
+  companion object {
+    private const val SAMPLE_WIDTH = 320
+  }
+}
@@ -0,0 +1,227 @@
+package com.rnotr
+
+import android.graphics.Rect
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.ReadableMap
+import com.facebook.react.bridge.ReadableType
+import com.facebook.react.bridge.WritableMap
+import com.google.mlkit.vision.text.Text
+
+/**
+ * Fuses the last [frames] live results into one reading, so a low analysis
+ * rate still gives steady text.
+ *
+ * Blocks are tracked across frames by box overlap, and so are the lines
+ * within each block. Every line keeps the text it was read as in each
+ * frame of the window. The fused line takes the most common reading, with
+ * the most recent winning ties. Its stability is the share of the window's
+ * frames that agree with it, and lines below [minStability] are left out.
+ * A line or block missing for the whole window is forgotten. Not
+ * thread-safe; feed it from one thread.
+ */
+internal class TextConsensus(
+  private val frames: Int,
+  private val minStability: Float
+) {
+
+  private class Line(var box: Rect, frames: Int) {
+    /** What the line read in each slot of the window, valid where [seenIn] is recent. */
+    val texts = arrayOfNulls<String>(frames)
+    val seenIn = LongArray(frames) { -1L }
+    var lastSeenFrame = 0L
+  }
+
+  private class Block(var box: Rect) {
+    val lines = ArrayList<Line>()
+    var lastSeenFrame = 0L
+  }
+
+  class FusedLine(val text: String, val box: Rect, val stability: Float)
+
+  class FusedBlock(val text: String, val box: Rect, val stability: Float, val lines: List<FusedLine>)
+
+  class Fused(val text: String, val blocks: List<FusedBlock>, val frames: Int)
+
+  private val blocks = ArrayList<Block>()
+  private var frame = 0L
+
+  /**
+   * Adds a frame's [textBlocks] and returns the fused reading of the window.
+   * [offsetX]/[offsetY] shift boxes into full-frame coordinates.
+   */
+  fun update(textBlocks: List<Text.TextBlock>, offsetX: Int, offsetY: Int): Fused {
+    frame++
+    val slot = (frame % frames).toInt()
+    for (textBlock in textBlocks) {
+      val blockBox = shifted(textBlock.boundingBox ?: continue, offsetX, offsetY)
+      val block = matchBlock(blockBox) ?: Block(blockBox).also { blocks.add(it) }
+      block.box = blockBox
+      block.lastSeenFrame = frame
+      for (textLine in textBlock.lines) {
+        val lineBox = shifted(textLine.boundingBox ?: continue, offsetX, offsetY)
+        val line = matchLine(block, lineBox) ?: Line(lineBox, frames).also { block.lines.add(it) }
+        line.box = lineBox
+        line.lastSeenFrame = frame
+        line.texts[slot] = textLine.text
+        line.seenIn[slot] = frame
+      }
+    }
+    return fuse()
+  }
+
+  private fun fuse(): Fused {
+    val window = Math.min(frames.toLong(), frame).toInt()
+    val fusedBlocks = ArrayList<FusedBlock>()
+    val blockIterator = blocks.iterator()
+    while (blockIterator.hasNext()) {
+      val block = blockIterator.next()
+      if (frame - block.lastSeenFrame >= frames) {
+        blockIterator.remove()
+        continue
+      }
+      val fusedLines = ArrayList<FusedLine>()
+      val lineIterator = block.lines.iterator()
+      while (lineIterator.hasNext()) {
+        val line = lineIterator.next()
+        if (frame - line.lastSeenFrame >= frames) {
+          lineIterator.remove()
+          continue
+        }
+        vote(line, window)?.let { fusedLines.add(it) }
+      }
+      if (fusedLines.isEmpty()) {
+        continue
+      }
+      fusedLines.sortWith(compareBy<FusedLine>({ it.box.top }, { it.box.left }))
+      var stability = 0f
+      for (line in fusedLines) {
+        stability += line.stability
+      }
+      fusedBlocks.add(
+        FusedBlock(fusedLines.joinToString("\n") { it.text }, block.box, stability / fusedLines.size, fusedLines)
+      )
+    }
+    fusedBlocks.sortWith(compareBy<FusedBlock>({ it.box.top }, { it.box.left }))
+    return Fused(fusedBlocks.joinToString("\n") { it.text }, fusedBlocks, window)
+  }
+
+  /** The line's most common reading in the window, or null when too few frames agree on it. */
+  private fun vote(line: Line, window: Int): FusedLine? {
+    var winner: String? = null
+    var winnerVotes = 0
+    var winnerSeen = -1L
+    for (i in 0 until frames) {
+      val text = line.texts[i]
+      if (text == null || line.seenIn[i] <= frame - frames) {
+        continue
+      }
+      var votes = 0
+      var latest = -1L
+      for (j in 0 until frames) {
+        if (line.seenIn[j] > frame - frames && line.texts[j] == text) {
+          votes++
+          latest = Math.max(latest, line.seenIn[j])
+        }
+      }
+      if (votes > winnerVotes || votes == winnerVotes && latest > winnerSeen) {
+        winner = text
+        winnerVotes = votes
+        winnerSeen = latest
+      }
+    }
+    val stability = winnerVotes.toFloat() / window
+    return if (winner != null && stability >= minStability) FusedLine(winner, line.box, stability) else null
+  }
+
+  private fun matchBlock(box: Rect): Block? {
+    var best: Block? = null
+    var bestOverlap = MIN_OVERLAP
+    for (block in blocks) {
+      if (block.lastSeenFrame != frame) {
+        val overlap = LiveStabilizer.overlap(block.box, box)
+        if (overlap >= bestOverlap) {
+          best = block
+          bestOverlap = overlap
+        }
+      }
+    }
+    return best
+  }
+
+  private fun matchLine(block: Block, box: Rect): Line? {
+    var best: Line? = null
+    var bestOverlap = MIN_OVERLAP
+    for (line in block.lines) {
+      if (line.lastSeenFrame != frame) {
+        val overlap = LiveStabilizer.overlap(line.box, box)
+        if (overlap >= bestOverlap) {
+          best = line
+          bestOverlap = overlap
+        }
+      }
+    }
+    return best
+  }
+
+  private fun shifted(rect: Rect, offsetX: Int, offsetY: Int): Rect =
+    Rect(rect.left + offsetX, rect.top + offsetY, rect.right + offsetX, rect.bottom + offsetY)
+
+  companion object {
+    private const val MIN_OVERLAP = 0.5f
+
+    /**
+     * Reads `consensus` (true, or `{frames, minStability}`) from live options.
+     * Returns null when consensus is off.
+     */
+    fun from(options: ReadableMap?): TextConsensus? {
+      if (options == null || !options.hasKey("consensus")) {
+        return null
+      }
+      val settings: ReadableMap? = when (options.getType("consensus")) {
+        ReadableType.Boolean -> if (options.getBoolean("consensus")) null else return null
+        ReadableType.Map -> options.getMap("consensus")
+        else -> return null
+      }
+      fun number(key: String, fallback: Double) =
+        if (settings != null && settings.hasKey(key)) settings.getDouble(key) else fallback
+      return TextConsensus(
+        number("frames", 5.0).toInt().coerceIn(1, 30),
+        number("minStability", 0.4).toFloat()
+      )
+    }
+
+    fun toMap(fused: Fused): WritableMap {
+      val blocks = Arguments.createArray()
+      for (block in fused.blocks) {
+        val lines = Arguments.createArray()
+        for (line in block.lines) {
+          val lineMap = Arguments.createMap()
+          lineMap.putString("text", line.text)
+          lineMap.putMap("boundingBox", boxMap(line.box))
+          lineMap.putDouble("stability", line.stability.toDouble())
+          lines.pushMap(lineMap)
+        }
+        val blockMap = Arguments.createMap()
+        blockMap.putString("text", block.text)
+        blockMap.putMap("boundingBox", boxMap(block.box))
+        blockMap.putDouble("stability", block.stability.toDouble())
+        blockMap.putArray("lines", lines)
+        blocks.pushMap(blockMap)
+      }
+      val map = Arguments.createMap()
+      map.putString("text", fused.text)
+      map.putArray("blocks", blocks)
+      map.putInt("frames", fused.frames)
+      return map
+    }
+
+    private fun boxMap(rect: Rect): WritableMap {
+      val box = Arguments.createMap()
+      box.putInt("x", rect.left)
+      box.putInt("y", rect.top)
+      box.putInt("width", rect.width())
+      box.putInt("height", rect.height())
+      return box
+    }
+  }
+}
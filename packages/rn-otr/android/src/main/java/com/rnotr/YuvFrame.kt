@@ -0,0 +1,60 @@
+package com.rnotr
+
+import androidx.camera.core.ImageProxy
+import java.nio.ByteBuffer
+
+/**
+ * The planes of a YUV_420_888 frame, from the camera or from a recorded
+ * session, so cropping, gating and recording work on either. Reused for
+ * every camera frame; fill it with [set] on the analyzer thread.
+ */
+internal class YuvFrame {
+  var width = 0
+    private set
+  var height = 0
+    private set
+  var rotationDegrees = 0
+    private set
+  lateinit var y: ByteBuffer
+    private set
+  var yRowStride = 0
+    private set
+  lateinit var u: ByteBuffer
+    private set
+  lateinit var v: ByteBuffer
+    private set
+  /** Shared by both chroma planes, as YUV_420_888 guarantees. */
+  var uvRowStride = 0
+    private set
+  var uvPixelStride = 0
+    private set
+
+  fun set(imageProxy: ImageProxy): YuvFrame {
+    val planes = imageProxy.planes
+    width = imageProxy.width
+    height = imageProxy.height
+    rotationDegrees = imageProxy.imageInfo.rotationDegrees
+    y = planes[0].buffer
+    yRowStride = planes[0].rowStride
+    u = planes[1].buffer
+    v = planes[2].buffer
+    uvRowStride = planes[2].rowStride
+    uvPixelStride = planes[2].pixelStride
+    return this
+  }
+
+  /** Views an NV21 buffer (interleaved V/U after the luma) as planes. */
+  fun setNv21(nv21: ByteArray, width: Int, height: Int, rotationDegrees: Int): YuvFrame {
+    val lumaSize = width * height
+    this.width = width
+    this.height = height
+    this.rotationDegrees = rotationDegrees
+    y = ByteBuffer.wrap(nv21, 0, lumaSize).slice()
+    yRowStride = width
+    v = ByteBuffer.wrap(nv21, lumaSize, lumaSize / 2).slice()
+    u = ByteBuffer.wrap(nv21, lumaSize + 1, lumaSize / 2 - 1).slice()
+    uvRowStride = width
+    uvPixelStride = 2
+    return this
+  }
+}
@@ -1,9 +1,22 @@
 import { NativeEventEmitter, NativeModules } from 'react-native';
 import type {
+  AdaptiveFpsOptions,
+  BarcodeOptions,
   CameraOptions,
+  CameraSessionState,
+  ConsensusOptions,
+  FrameRateInfo,
+  OCRConsensusResult,
+  OCRFrameResult,
   LiveRecognitionOptions,
   OCRResult,
+  OCRStats,
+  OCRTextDelta,
   PermissionStatus,
+  RecordingOptions,
+  RecordingSummary,
+  ReplayReport,
+  StabilizeOptions,
 } from './types';
 
 const LINKING_ERROR =
@@ -29,17 +42,35 @@ export interface NativeOTRModule {
   requestCameraPermission(): Promise<boolean>;
   startCamera(options?: CameraOptions): Promise<void>;
   stopCamera(): Promise<void>;
+  getCameraSessionState(): Promise<CameraSessionState>;
   startLiveTextRecognition(options?: {
     fps?: number;
     languageHints?: string[];
+    stabilize?: boolean | StabilizeOptions;
+    consensus?: boolean | ConsensusOptions;
+    adaptiveFps?: boolean | AdaptiveFpsOptions;
+    blurThreshold?: number;
+    text?: boolean;
+    barcodes?: boolean | BarcodeOptions;
+    packed?: boolean;
   }): Promise<void>;
   stopLiveTextRecognition(): Promise<void>;
+  /** Synchronous; false when the runtime cannot take packed results. Android only. */
+  installPackedResults?(): boolean;
+  startRecording(path: string, options?: RecordingOptions): Promise<void>;
+  stopRecording(): Promise<RecordingSummary>;
+  replaySession(path: string, options?: object): Promise<ReplayReport>;
   captureAndRecognize(): Promise<OCRResult>;
   recognizeFromImage(imagePathOrBase64: string): Promise<OCRResult>;
+  getOCRStats(): Promise<OCRStats>;
+  resetOCRStats(): Promise<void>;
 }
 
 export type NativeOTREvents = {
-  onTextRecognized: (result: OCRResult) => void;
+  onTextRecognized: (result: OCRResult | OCRConsensusResult) => void;
+  onTextChanged: (delta: OCRTextDelta) => void;
+  onFrameRateChanged: (info: FrameRateInfo) => void;
+  onFrameAnalyzed: (frame: OCRFrameResult) => void;
 };
 
 export default RNOTR as NativeOTRModule;
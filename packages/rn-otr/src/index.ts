@@ -1,16 +1,77 @@
 import { EmitterSubscription } from 'react-native';
 import NativeOTR, { OTREmitter } from './NativeOTR';
+import { decodeOCRBuffer, setPackedResultListener } from './packed';
 import type {
   CameraOptions,
+  CameraSessionState,
   LiveRecognitionOptions,
+  OCRConsensusResult,
+  OCRFrameResult,
   OCRResult,
+  OCRStats,
+  OCRTextDelta,
+  OCRTrackedBlock,
   PermissionStatus,
+  RecordingOptions,
+  RecordingSummary,
+  ReplayOptions,
+  ReplayReport,
 } from './types';
 
 export * from './types';
+export { decodeOCRBuffer } from './packed';
+
+/**
+ * Handles stabilized deltas. Native sends only changes, so the tracked
+ * blocks are kept here and onTextRecognized still sees the whole picture.
+ */
+function trackChanges(
+  options: LiveRecognitionOptions
+): (delta: OCRTextDelta) => void {
+  const blocks = new Map<number, OCRTrackedBlock>();
+  return (delta) => {
+    for (const id of delta.removed) {
+      blocks.delete(id);
+    }
+    for (const block of delta.added) {
+      blocks.set(block.id, block);
+    }
+    for (const block of delta.updated) {
+      blocks.set(block.id, block);
+    }
+    for (const { id, boundingBox } of delta.moved) {
+      const block = blocks.get(id);
+      if (block) {
+        blocks.set(id, { ...block, boundingBox });
+      }
+    }
+    options.onTextChanged?.(delta);
+    options.onTextRecognized?.({
+      text: delta.text,
+      blocks: Array.from(blocks.values()),
+      timings: delta.timings,
+    });
+  };
+}
+
+/** The live options native reads; callbacks stay in JS. */
+function nativeLiveOptions(options: LiveRecognitionOptions) {
+  return {
+    fps: options.fps,
+    languageHints: options.languageHints,
+    stabilize: options.stabilize,
+    consensus: options.consensus,
+    adaptiveFps: options.adaptiveFps,
+    blurThreshold: options.blurThreshold,
+    text: options.text,
+    barcodes: options.barcodes,
+    packed: options.packed,
+  };
+}
 
 class OTR {
   private liveSubscription: EmitterSubscription | null = null;
+  private frameRateSubscription: EmitterSubscription | null = null;
 
   checkCameraPermission(): Promise<PermissionStatus> {
     return NativeOTR.checkCameraPermission();
@@ -28,30 +89,134 @@ class OTR {
     return NativeOTR.stopCamera();
   }
 
+  getCameraSessionState(): Promise<CameraSessionState> {
+    return NativeOTR.getCameraSessionState();
+  }
+
   async startLiveTextRecognition(options: LiveRecognitionOptions): Promise<void> {
-    if (this.liveSubscription) {
-      this.liveSubscription.remove();
-      this.liveSubscription = null;
+    this.subscribeLive(options);
+    await NativeOTR.startLiveTextRecognition(nativeLiveOptions(options));
+  }
+
+  async stopLiveTextRecognition(): Promise<void> {
+    this.removeLiveSubscriptions();
+
+    await NativeOTR.stopLiveTextRecognition();
+  }
+
+  /** Android only. */
+  startRecording(path: string, options?: RecordingOptions): Promise<void> {
+    return NativeOTR.startRecording(path, options);
+  }
+
+  /** Android only. */
+  stopRecording(): Promise<RecordingSummary> {
+    return NativeOTR.stopRecording();
+  }
+
+  /**
+   * Plays a recording through the live pipeline without a camera. The
+   * callbacks in `options` receive the replayed events. Android only.
+   */
+  async replaySession(
+    path: string,
+    options: ReplayOptions = {}
+  ): Promise<ReplayReport> {
+    this.subscribeLive(options);
+    try {
+      return await NativeOTR.replaySession(path, {
+        ...nativeLiveOptions(options),
+        centerCrop: options.centerCrop,
+      });
+    } finally {
+      this.removeLiveSubscriptions();
+    }
+  }
+
+  private subscribeLive(options: LiveRecognitionOptions): void {
+    this.removeLiveSubscriptions();
+
+    if (options.onFrameRateChanged) {
+      this.frameRateSubscription = OTREmitter.addListener(
+        'onFrameRateChanged',
+        options.onFrameRateChanged
+      );
     }
 
-    this.liveSubscription = OTREmitter.addListener(
-      'onTextRecognized',
-      options.onTextRecognized
-    );
+    if (
+      options.packed &&
+      !options.stabilize &&
+      !options.consensus &&
+      NativeOTR.installPackedResults?.()
+    ) {
+      setPackedResultListener((buffer) => {
+        options.onPackedResult?.(buffer);
+        if (options.onTextRecognized) {
+          options.onTextRecognized(decodeOCRBuffer(buffer));
+        }
+      });
+    }
 
-    await NativeOTR.startLiveTextRecognition({
-      fps: options.fps,
-      languageHints: options.languageHints,
-    });
+    const onTextRecognized = (result: OCRResult | OCRConsensusResult) => {
+      if ('frames' in result) {
+        options.onConsensus?.(result);
+        if (options.onTextRecognized) {
+          options.onTextRecognized({
+            text: result.text,
+            blocks: result.blocks.map(({ text, boundingBox }) => ({
+              text,
+              boundingBox,
+            })),
+            timings: result.timings,
+          });
+        }
+      } else {
+        options.onTextRecognized?.(result);
+      }
+    };
+    const onTextChanged = options.stabilize
+      ? trackChanges(options)
+      : undefined;
+
+    if (options.barcodes) {
+      // Text and barcodes found in the same frame arrive together.
+      this.liveSubscription = OTREmitter.addListener(
+        'onFrameAnalyzed',
+        (frame: OCRFrameResult) => {
+          if (frame.text) {
+            onTextRecognized(frame.text);
+          }
+          if (frame.textChanges && onTextChanged) {
+            onTextChanged(frame.textChanges);
+          }
+          if (frame.barcodes) {
+            options.onBarcodesDetected?.(frame.barcodes);
+          }
+        }
+      );
+    } else if (onTextChanged) {
+      this.liveSubscription = OTREmitter.addListener(
+        'onTextChanged',
+        onTextChanged
+      );
+    } else {
+      this.liveSubscription = OTREmitter.addListener(
+        'onTextRecognized',
+        onTextRecognized
+      );
+    }
   }
 
-  async stopLiveTextRecognition(): Promise<void> {
+  private removeLiveSubscriptions(): void {
+    setPackedResultListener(null);
     if (this.liveSubscription) {
       this.liveSubscription.remove();
       this.liveSubscription = null;
     }
-
-    await NativeOTR.stopLiveTextRecognition();
+    if (this.frameRateSubscription) {
+      this.frameRateSubscription.remove();
+      this.frameRateSubscription = null;
+    }
   }
 
   captureAndRecognize(): Promise<OCRResult> {
@@ -61,6 +226,14 @@ class OTR {
   recognizeFromImage(imagePathOrBase64: string): Promise<OCRResult> {
     return NativeOTR.recognizeFromImage(imagePathOrBase64);
   }
+
+  getOCRStats(): Promise<OCRStats> {
+    return NativeOTR.getOCRStats();
+  }
+
+  resetOCRStats(): Promise<void> {
+    return NativeOTR.resetOCRStats();
+  }
 }
 
 const otr = new OTR();
@@ -0,0 +1,133 @@
+import type {
+  OCRBlock,
+  OCRElement,
+  OCRLine,
+  OCRResult,
+  OCRStage,
+  Point,
+} from './types';
+
+declare global {
+  // Called by the native packed result channel on the JS thread.
+  // eslint-disable-next-line no-var
+  var __rnotrOnPackedResult: ((buffer: ArrayBuffer) => void) | undefined;
+}
+
+// Layout written by PackedResult.kt on Android. Sections are 4-byte
+// aligned, so they are read as typed-array views over the buffer. Views use
+// the host's byte order, which is little-endian on every React Native target.
+const VERSION = 2;
+const TIMINGS_OFFSET = 16;
+const STAGES: OCRStage[] = ['resolve', 'decode', 'inference', 'marshal', 'total'];
+const HEADER_SIZE = TIMINGS_OFFSET + STAGES.length * 4;
+// Stay well below engines' argument limits in String.fromCharCode.apply.
+const CHUNK = 4096;
+
+/**
+ * Routes packed results from native to [listener], or stops when it is
+ * null. The buffer is the native memory the result was packed into; native
+ * reuses it only after it has been garbage collected.
+ */
+export function setPackedResultListener(
+  listener: ((buffer: ArrayBuffer) => void) | null
+): void {
+  globalThis.__rnotrOnPackedResult = listener ?? undefined;
+}
+
+function readString(chars: Uint16Array, start: number, end: number): string {
+  let text = '';
+  for (let i = start; i < end; i += CHUNK) {
+    const part = chars.subarray(i, Math.min(i + CHUNK, end));
+    text += String.fromCharCode.apply(null, part as unknown as number[]);
+  }
+  return text;
+}
+
+/** Reads a packed live result, as delivered to `onPackedResult`. */
+export function decodeOCRBuffer(buffer: ArrayBuffer): OCRResult {
+  const view = new DataView(buffer);
+  const version = view.getUint8(0);
+  if (version !== VERSION) {
+    throw new Error(`Unsupported packed result version ${version}`);
+  }
+  const blockCount = view.getUint32(4, true);
+  const lineCount = view.getUint32(8, true);
+  const elementCount = view.getUint32(12, true);
+  const regions = blockCount + lineCount + elementCount;
+
+  const timings = new Float32Array(buffer, TIMINGS_OFFSET, STAGES.length);
+  const boxes = new Float32Array(buffer, HEADER_SIZE, regions * 4);
+  let offset = HEADER_SIZE + regions * 16;
+  const corners = new Float32Array(buffer, offset, regions * 8);
+  offset += regions * 32;
+  const scores = new Float32Array(buffer, offset, regions * 2);
+  offset += regions * 8;
+  const lineEnds = new Uint32Array(buffer, offset, blockCount);
+  offset += blockCount * 4;
+  const elementEnds = new Uint32Array(buffer, offset, lineCount);
+  offset += lineCount * 4;
+  const ends = new Uint32Array(buffer, offset, regions + 1);
+  offset += (regions + 1) * 4;
+  const chars = new Uint16Array(buffer, offset, ends[regions]);
+
+  const text = (region: number) =>
+    readString(chars, ends[region], ends[region + 1]);
+  const boundingBox = (region: number) => ({
+    x: boxes[region * 4],
+    y: boxes[region * 4 + 1],
+    width: boxes[region * 4 + 2],
+    height: boxes[region * 4 + 3],
+  });
+  const cornerPoints = (region: number) => {
+    const points: Point[] = new Array(4);
+    for (let p = 0; p < 4; p++) {
+      points[p] = {
+        x: corners[region * 8 + p * 2],
+        y: corners[region * 8 + p * 2 + 1],
+      };
+    }
+    return points;
+  };
+  const element = (region: number): OCRElement => ({
+    text: text(region),
+    boundingBox: boundingBox(region),
+    cornerPoints: cornerPoints(region),
+    confidence: scores[region * 2],
+    angle: scores[region * 2 + 1],
+  });
+
+  const elementBase = blockCount + lineCount;
+  const lines: OCRLine[] = new Array(lineCount);
+  let firstElement = 0;
+  for (let l = 0; l < lineCount; l++) {
+    const elements: OCRElement[] = [];
+    for (let e = firstElement; e < elementEnds[l]; e++) {
+      elements.push(element(elementBase + e));
+    }
+    firstElement = elementEnds[l];
+    lines[l] = { ...element(blockCount + l), elements };
+  }
+
+  const blocks: OCRBlock[] = new Array(blockCount);
+  let firstLine = 0;
+  for (let b = 0; b < blockCount; b++) {
+    blocks[b] = {
+      text: text(b),
+      boundingBox: boundingBox(b),
+      cornerPoints: cornerPoints(b),
+      lines: lines.slice(firstLine, lineEnds[b]),
+    };
+    firstLine = lineEnds[b];
+  }
+  return {
+    text: readString(chars, 0, ends[0]),
+    blocks,
+    timings: {
+      resolveMs: timings[0],
+      decodeMs: timings[1],
+      inferenceMs: timings[2],
+      marshalMs: timings[3],
+      totalMs: timings[4],
+    },
+  };
+}
@@ -11,27 +11,350 @@ export type BoundingBox = {
   height: number;
 };
 
+export type Point = {
+  x: number;
+  y: number;
+};
+
+export type OCRElement = {
+  text: string;
+  boundingBox: BoundingBox;
+  cornerPoints: Point[];
+  confidence: number;
+  /** Rotation in degrees, clockwise. */
+  angle: number;
+};
+
+export type OCRLine = OCRElement & {
+  elements: OCRElement[];
+};
+
 export type OCRBlock = {
   text: string;
   boundingBox: BoundingBox;
   confidence?: number;
+  /** Only in `captureAndRecognize` and `packed` live results. */
+  cornerPoints?: Point[];
+  /** Only in `captureAndRecognize` and `packed` live results. */
+  lines?: OCRLine[];
+};
+
+/** Wall-clock time spent in each stage of one recognition, in milliseconds. */
+export type OCRTimings = {
+  resolveMs: number;
+  decodeMs: number;
+  inferenceMs: number;
+  marshalMs: number;
+  totalMs: number;
 };
 
 export type OCRResult = {
   text: string;
   blocks: OCRBlock[];
+  /** Android only. */
+  timings?: OCRTimings;
+};
+
+/** Tuning for multi-frame consensus. Defaults are shown. */
+export type ConsensusOptions = {
+  /** Analyzed frames voted over. Default 5. */
+  frames?: number;
+  /** Leave out lines read the same way in fewer than this share of the frames. Default 0.4. */
+  minStability?: number;
+};
+
+export type OCRConsensusLine = {
+  text: string;
+  boundingBox: BoundingBox;
+  /** Share of the window's frames that read the line this way, 0-1. */
+  stability: number;
+};
+
+export type OCRConsensusBlock = {
+  text: string;
+  boundingBox: BoundingBox;
+  /** Mean stability of the block's lines. */
+  stability: number;
+  lines: OCRConsensusLine[];
+};
+
+/** The reading fused over the last analyzed frames when `consensus` is set. */
+export type OCRConsensusResult = {
+  text: string;
+  blocks: OCRConsensusBlock[];
+  /** Frames in the window, fewer than `frames` right after starting. */
+  frames: number;
+  timings?: OCRTimings;
+};
+
+export type OCRStage = 'resolve' | 'decode' | 'inference' | 'marshal' | 'total';
+
+/** Latency percentiles of one stage over the last 256 samples. */
+export type OCRStageStats = {
+  count: number;
+  p50Ms: number;
+  p95Ms: number;
+  p99Ms: number;
+  maxMs: number;
+};
+
+export type OCRStats = {
+  /** Still images and live frames recognized. */
+  calls: number;
+  failures: number;
+  bytesDecoded: number;
+  /** Live frames scored by the blur gate. */
+  framesChecked: number;
+  /** Live frames the blur gate skipped. */
+  framesBlurry: number;
+  stages: Record<OCRStage, OCRStageStats>;
+};
+
+export type CameraSessionStateName =
+  | 'idle'
+  | 'starting'
+  | 'ready'
+  | 'analyzing'
+  | 'paused';
+
+/**
+ * The Android camera session. Starts are timed from the request to the
+ * first analyzed frame, or to the bind when live recognition is off. Times
+ * are null until a start of that kind has happened.
+ */
+export type CameraSessionState = {
+  /**
+   * `ready`: the camera is bound for stills, with analysis off.
+   * `paused`: the app is in the background; analysis resumes with it.
+   */
+  state: CameraSessionStateName;
+  /** Whether the camera provider has been fetched and is reused by later starts. */
+  providerCached: boolean;
+  /** Last start that had to fetch the camera provider. */
+  coldStartMs: number | null;
+  /** Last start or analysis rebind that reused it. */
+  warmStartMs: number | null;
+  coldStarts: number;
+  warmStarts: number;
 };
 
 export type CameraOptions = {
   facing?: CameraFacing;
+  /**
+   * Size of the frames analyzed on Android: `low` 640x480, `medium`
+   * 1280x720 (default), `high` 1920x1080. CameraX picks the closest size
+   * the camera supports.
+   */
   resolution?: CameraResolution;
   fps?: number;
+  /**
+   * Fraction (0.1-1) of the frame's width and height to analyze, centered.
+   * Bounding boxes stay in full-frame coordinates. Android only.
+   */
+  centerCrop?: number;
   torch?: boolean;
   autoFocus?: boolean;
 };
 
+/** Tuning for stabilized live recognition. Defaults are shown. */
+export type StabilizeOptions = {
+  /** How long a change must hold before it is reported. 250. */
+  debounceMs?: number;
+  /** Fraction of a block's characters that must differ to count as an update. 0.1. */
+  changeThreshold?: number;
+  /** Center displacement, in block heights, that counts as a move. 0.5. */
+  moveThreshold?: number;
+  /** Frames a block may be missing before it is removed. 3. */
+  historySize?: number;
+};
+
+/** A block tracked across live frames; `id` stays the same while it is visible. */
+export type OCRTrackedBlock = OCRBlock & { id: number };
+
+/** Changes since the previous `onTextChanged` event. */
+export type OCRTextDelta = {
+  added: OCRTrackedBlock[];
+  updated: OCRTrackedBlock[];
+  moved: { id: number; boundingBox: BoundingBox }[];
+  removed: number[];
+  /** All tracked text after the change, in reading order. */
+  text: string;
+  timings?: OCRTimings;
+};
+
+/** Bounds for adaptive live frame rate. */
+export type AdaptiveFpsOptions = {
+  /** Never analyze less often than this. Default 2. */
+  minFps?: number;
+  /** Never analyze more often than this. Defaults to `fps`, or 15. */
+  maxFps?: number;
+};
+
+export type ThermalStatus =
+  | 'none'
+  | 'light'
+  | 'moderate'
+  | 'severe'
+  | 'critical'
+  | 'emergency'
+  | 'shutdown'
+  | 'unknown';
+
+/** Sent when the adaptive analysis rate or the device's thermal status changes. */
+export type FrameRateInfo = {
+  /** Frames actually recognized per second over the last second. */
+  fps: number;
+  /** Rate the controller is currently aiming for. */
+  targetFps: number;
+  intervalMs: number;
+  /** Smoothed time from frame to result. */
+  inferenceMs: number;
+  /** Fraction of analyzed frames that started late because recognition was still busy. */
+  dropRate: number;
+  /** `unknown` before Android 10. */
+  thermalStatus: ThermalStatus;
+};
+
+export type BarcodeFormat =
+  | 'aztec'
+  | 'codabar'
+  | 'code_39'
+  | 'code_93'
+  | 'code_128'
+  | 'data_matrix'
+  | 'ean_8'
+  | 'ean_13'
+  | 'itf'
+  | 'pdf417'
+  | 'qr_code'
+  | 'upc_a'
+  | 'upc_e';
+
+export type BarcodeOptions = {
+  /** Minimum time between scans; 0 (default) scans every frame. */
+  intervalMs?: number;
+  /** Formats to look for; all by default. Fewer formats scan faster. */
+  formats?: BarcodeFormat[];
+};
+
+export type Barcode = {
+  value: string | null;
+  displayValue: string | null;
+  format: BarcodeFormat | 'unknown';
+  /** What the value encodes, e.g. `url`, `wifi`, `product`. */
+  type: string;
+  boundingBox?: BoundingBox;
+  cornerPoints?: Point[];
+};
+
+/** Everything found in one live frame when several detectors are on. */
+export type OCRFrameResult = {
+  text?: OCRResult | OCRConsensusResult;
+  textChanges?: OCRTextDelta;
+  barcodes?: Barcode[];
+};
+
 export type LiveRecognitionOptions = {
   fps?: number;
+  /**
+   * Adjust the analysis rate to recognition latency, dropped frames and
+   * thermal status instead of holding `fps`. Android only.
+   */
+  adaptiveFps?: boolean | AdaptiveFpsOptions;
+  /**
+   * Skip frames whose sharpness (Laplacian variance of the luma plane) is
+   * below this, such as frames blurred by moving the phone. Off by default.
+   * Android only.
+   */
+  blurThreshold?: number;
   languageHints?: string[];
-  onTextRecognized: (result: OCRResult) => void;
+  /**
+   * Report only settled changes instead of every frame. `onTextRecognized`
+   * then receives the tracked blocks after each change. Android only.
+   */
+  stabilize?: boolean | StabilizeOptions;
+  /**
+   * Fuse the last few frames into one reading by voting per line, so text
+   * is steady at 3-5 fps. Has no effect with `stabilize`. Android only.
+   */
+  consensus?: boolean | ConsensusOptions;
+  /** Recognize text in live frames. Default true; set false to only scan barcodes. */
+  text?: boolean;
+  /**
+   * Also scan the same frames for barcodes, on their own interval.
+   * Android only.
+   */
+  barcodes?: boolean | BarcodeOptions;
+  /**
+   * Hand each live result to JS through JSI as an ArrayBuffer over the
+   * native memory it was packed into, with full geometry, instead of a map
+   * per block over the bridge. Packed results do not arrive inside
+   * `onFrameAnalyzed`. Falls back to maps when the runtime has no JSI
+   * ArrayBuffer support. Has no effect with `stabilize` or `consensus`.
+   * Android only.
+   */
+  packed?: boolean;
+  onTextRecognized?: (result: OCRResult) => void;
+  /** Called with each fused reading, with per-line stability, when `consensus` is set. */
+  onConsensus?: (result: OCRConsensusResult) => void;
+  /**
+   * Called with each packed result, undecoded, when `packed` is set. Read
+   * it with `decodeOCRBuffer`, or view its sections directly.
+   */
+  onPackedResult?: (buffer: ArrayBuffer) => void;
+  /** Called with each change when `stabilize` is set. */
+  onTextChanged?: (delta: OCRTextDelta) => void;
+  /** Called when the adaptive rate changes, when `adaptiveFps` is set. */
+  onFrameRateChanged?: (info: FrameRateInfo) => void;
+  /** Called with the barcodes in a frame, and once with `[]` when they are gone. */
+  onBarcodesDetected?: (barcodes: Barcode[]) => void;
+};
+
+export type RecordingOptions = {
+  /** Keep every n-th pixel in each direction. Default 2. */
+  subsample?: number;
+  /** Record at most this many frames per second. Default every frame. */
+  fps?: number;
+  /** Deflate frames before writing. Default true. */
+  compress?: boolean;
+};
+
+export type RecordingSummary = {
+  path: string;
+  frames: number;
+  results: number;
+  /** Frames left out because writing fell behind. */
+  dropped: number;
+  bytes: number;
+};
+
+export type ReplayOptions = LiveRecognitionOptions & {
+  /** Same as `CameraOptions.centerCrop`. */
+  centerCrop?: number;
+};
+
+export type ReplayReport = {
+  /** Frames in the recording. */
+  frames: number;
+  /** Frames handed to the analyzer; the rest arrived while it was busy. */
+  delivered: number;
+  /** Frames at least one detector ran on. */
+  analyzed: number;
+  dropped: number;
+  /** Recorded time covered, including recognition running past the last frame. */
+  sessionMs: number;
+  /** Wall-clock time the replay took. */
+  durationMs: number;
+  /** Analyzed frames per second of session time. */
+  fps: number;
+  latency: OCRStageStats;
+  /** Replayed text compared with the text recorded for the same frames. */
+  results: {
+    recorded: number;
+    replayed: number;
+    compared: number;
+    matching: number;
+  };
+  /** How many of each event the replay emitted. */
+  events: Record<string, number>;
 };
@@ -4,6 +4,7 @@ import android.Manifest;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.speech.RecognitionListener;
 import android.speech.RecognizerIntent;
 import android.speech.SpeechRecognizer;
@@ -29,12 +30,27 @@ import java.util.Locale;
 public class RNVoiceToTextModule extends ReactContextBaseJavaModule implements RecognitionListener {
     private static final String MODULE_NAME = "RNVoiceToText";
     private static final int PERMISSION_REQUEST_CODE = 1001;
+    private static final int MAX_REARM_ATTEMPTS = 3;
+    private static final long REARM_RETRY_DELAY_MS = 100;
     
     private final ReactApplicationContext reactContext;
     private SpeechRecognizer speechRecognizer;
     private boolean isListening = false;
     private Promise permissionPromise;
 
+    // Continuous dictation. Touched only on the UI thread, where the recognizer calls back.
+    private Intent recognizerIntent;
+    private boolean continuous = false;
+    private boolean stopRequested = false;
+    private boolean rearming = false;
+    private int rearmAttempts = 0;
+    private int session = 0;
+    private int segment = 0;
+    private long segmentEndedAt = 0;
+    private int restarts = 0;
+    private long totalRestartGapMs = 0;
+    private long maxRestartGapMs = 0;
+
     public RNVoiceToTextModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.reactContext = reactContext;
@@ -69,20 +85,19 @@ public class RNVoiceToTextModule extends ReactContextBaseJavaModule implements R
                     speechRecognizer.setRecognitionListener(this);
                 }
 
-                Intent intent = new Intent(RecognizerIntent.ACTION_RECOGNIZE_SPEECH);
-                intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_MODEL, RecognizerIntent.LANGUAGE_MODEL_FREE_FORM);
-                
-                String language = options.hasKey("language") ? options.getString("language") : "en-US";
-                intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE, language);
-                intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_PREFERENCE, language);
-                
-                int maxResults = options.hasKey("maxResults") ? options.getInt("maxResults") : 5;
-                intent.putExtra(RecognizerIntent.EXTRA_MAX_RESULTS, maxResults);
-                
-                boolean partialResults = options.hasKey("partialResults") ? options.getBoolean("partialResults") : true;
-                intent.putExtra(RecognizerIntent.EXTRA_PARTIAL_RESULTS, partialResults);
-
-                speechRecognizer.startListening(intent);
+                // Built once per session; continuous mode re-arms with the same intent.
+                recognizerIntent = buildIntent(options);
+                continuous = options.hasKey("continuous") && options.getBoolean("continuous");
+                stopRequested = false;
+                rearming = false;
+                rearmAttempts = 0;
+                session++;
+                segment = 0;
+                restarts = 0;
+                totalRestartGapMs = 0;
+                maxRestartGapMs = 0;
+
+                speechRecognizer.startListening(recognizerIntent);
                 isListening = true;
                 promise.resolve(null);
             } catch (Exception e) {
@@ -100,7 +115,15 @@ public class RNVoiceToTextModule extends ReactContextBaseJavaModule implements R
 
         UiThreadUtil.runOnUiThread(() -> {
             try {
-                if (speechRecognizer != null) {
+                stopRequested = true;
+                if (rearming) {
+                    // Between segments there is nothing left to recognize.
+                    rearming = false;
+                    if (speechRecognizer != null) {
+                        speechRecognizer.cancel();
+                    }
+                    finishSession();
+                } else if (speechRecognizer != null) {
                     speechRecognizer.stopListening();
                 }
                 promise.resolve(null);
@@ -114,6 +137,8 @@ public class RNVoiceToTextModule extends ReactContextBaseJavaModule implements R
     public void cancel(Promise promise) {
         UiThreadUtil.runOnUiThread(() -> {
             try {
+                stopRequested = true;
+                rearming = false;
                 if (speechRecognizer != null) {
                     speechRecognizer.cancel();
                 }
@@ -169,6 +194,92 @@ public class RNVoiceToTextModule extends ReactContextBaseJavaModule implements R
         promise.resolve(checkAudioPermission());
     }
 
+    private Intent buildIntent(ReadableMap options) {
+        Intent intent = new Intent(RecognizerIntent.ACTION_RECOGNIZE_SPEECH);
+        intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_MODEL, RecognizerIntent.LANGUAGE_MODEL_FREE_FORM);
+
+        String language = options.hasKey("language") ? options.getString("language") : "en-US";
+        intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE, language);
+        intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_PREFERENCE, language);
+
+        int maxResults = options.hasKey("maxResults") ? options.getInt("maxResults") : 5;
+        intent.putExtra(RecognizerIntent.EXTRA_MAX_RESULTS, maxResults);
+
+        boolean partialResults = options.hasKey("partialResults") ? options.getBoolean("partialResults") : true;
+        intent.putExtra(RecognizerIntent.EXTRA_PARTIAL_RESULTS, partialResults);
+        return intent;
+    }
+
+    /**
+     * Ends a continuous segment and, unless stopping, starts the next one on the
+     * same recognizer straight away. Runs on the UI thread, from the callback
+     * that ended the segment.
+     */
+    private void endSegment(String reason, String transcript) {
+        long endedAt = SystemClock.elapsedRealtime();
+        int ended = segment;
+        if (!stopRequested) {
+            segmentEndedAt = endedAt;
+            rearm();
+        }
+
+        WritableMap params = Arguments.createMap();
+        params.putInt("segment", ended);
+        params.putString("reason", reason);
+        if (transcript != null) {
+            params.putString("transcript", transcript);
+        }
+        sendEvent("onSegmentEnd", params);
+
+        if (stopRequested) {
+            finishSession();
+        }
+    }
+
+    private void rearm() {
+        rearming = true;
+        try {
+            speechRecognizer.startListening(recognizerIntent);
+        } catch (Exception e) {
+            onError(SpeechRecognizer.ERROR_CLIENT);
+        }
+    }
+
+    /**
+     * Some recognition services are not ready to start again the moment they
+     * deliver results and report the recognizer busy, a client error or an
+     * immediate no-match. Retries a few times with a growing delay.
+     */
+    private boolean retryRearm(int error) {
+        boolean retryable = error == SpeechRecognizer.ERROR_RECOGNIZER_BUSY
+            || error == SpeechRecognizer.ERROR_CLIENT
+            || error == SpeechRecognizer.ERROR_NO_MATCH;
+        if (!rearming || !retryable || rearmAttempts >= MAX_REARM_ATTEMPTS) {
+            return false;
+        }
+        rearmAttempts++;
+        speechRecognizer.cancel();
+        final int retrySession = session;
+        UiThreadUtil.runOnUiThread(() -> {
+            if (retrySession == session && rearming && !stopRequested && speechRecognizer != null) {
+                rearm();
+            }
+        }, REARM_RETRY_DELAY_MS * rearmAttempts);
+        return true;
+    }
+
+    private void finishSession() {
+        isListening = false;
+        WritableMap params = Arguments.createMap();
+        params.putInt("segments", segment + 1);
+        params.putInt("restarts", restarts);
+        if (restarts > 0) {
+            params.putDouble("meanRestartGapMs", totalRestartGapMs / (double) restarts);
+            params.putDouble("maxRestartGapMs", maxRestartGapMs);
+        }
+        sendEvent("onEnd", params);
+    }
+
     private boolean checkAudioPermission() {
         return ContextCompat.checkSelfPermission(reactContext, Manifest.permission.RECORD_AUDIO) 
             == PackageManager.PERMISSION_GRANTED;
@@ -182,7 +293,29 @@ public class RNVoiceToTextModule extends ReactContextBaseJavaModule implements R
 
     @Override
     public void onReadyForSpeech(Bundle params) {
-        sendEvent("onStart", Arguments.createMap());
+        if (!continuous) {
+            sendEvent("onStart", Arguments.createMap());
+            return;
+        }
+
+        WritableMap segmentParams = Arguments.createMap();
+        if (rearming) {
+            // A segment only counts once the microphone is live, so a stop or a
+            // failed re-arm in between does not add one.
+            segment++;
+            // Dead air: from the end of the previous segment until the microphone is live again.
+            long gap = SystemClock.elapsedRealtime() - segmentEndedAt;
+            restarts++;
+            totalRestartGapMs += gap;
+            maxRestartGapMs = Math.max(maxRestartGapMs, gap);
+            segmentParams.putDouble("restartGapMs", gap);
+        } else if (segment == 0) {
+            sendEvent("onStart", Arguments.createMap());
+        }
+        segmentParams.putInt("segment", segment);
+        rearming = false;
+        rearmAttempts = 0;
+        sendEvent("onSegmentStart", segmentParams);
     }
 
     @Override
@@ -199,11 +332,28 @@ public class RNVoiceToTextModule extends ReactContextBaseJavaModule implements R
 
     @Override
     public void onEndOfSpeech() {
-        isListening = false;
+        if (!continuous) {
+            isListening = false;
+        }
     }
 
     @Override
     public void onError(int error) {
+        if (continuous) {
+            if (retryRearm(error)) {
+                return;
+            }
+            if (!rearming && (error == SpeechRecognizer.ERROR_NO_MATCH || error == SpeechRecognizer.ERROR_SPEECH_TIMEOUT)) {
+                endSegment(error == SpeechRecognizer.ERROR_NO_MATCH ? "noMatch" : "timeout", null);
+                return;
+            }
+            rearming = false;
+            if (error == SpeechRecognizer.ERROR_NO_MATCH || error == SpeechRecognizer.ERROR_SPEECH_TIMEOUT) {
+                // The recognizer would not start again.
+                finishSession();
+                return;
+            }
+        }
         isListening = false;
         
         if (error == SpeechRecognizer.ERROR_NO_MATCH || error == SpeechRecognizer.ERROR_SPEECH_TIMEOUT) {
@@ -223,23 +373,33 @@ public class RNVoiceToTextModule extends ReactContextBaseJavaModule implements R
 
     @Override
     public void onResults(Bundle results) {
-        isListening = false;
+        if (!continuous) {
+            isListening = false;
+        }
         
         ArrayList<String> matches = results.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
         float[] scores = results.getFloatArray(SpeechRecognizer.CONFIDENCE_SCORES);
+        String transcript = matches != null && !matches.isEmpty() ? matches.get(0) : null;
         
-        if (matches != null && !matches.isEmpty()) {
+        if (transcript != null) {
             WritableMap result = Arguments.createMap();
-            result.putString("transcript", matches.get(0));
+            result.putString("transcript", transcript);
             result.putBoolean("isFinal", true);
             
             if (scores != null && scores.length > 0) {
                 result.putDouble("confidence", scores[0]);
             }
+            if (continuous) {
+                result.putInt("segment", segment);
+            }
             
             sendEvent("onResult", result);
         }
         
+        if (continuous) {
+            endSegment(transcript != null ? "result" : "noMatch", transcript);
+            return;
+        }
         sendEvent("onEnd", Arguments.createMap());
     }
 
@@ -251,6 +411,9 @@ public class RNVoiceToTextModule extends ReactContextBaseJavaModule implements R
             WritableMap result = Arguments.createMap();
             result.putString("transcript", matches.get(0));
             result.putBoolean("isFinal", false);
+            if (continuous) {
+                result.putInt("segment", segment);
+            }
             
             sendEvent("onPartialResult", result);
         }
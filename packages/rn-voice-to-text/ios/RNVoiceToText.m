@@ -26,7 +26,7 @@ RCT_EXPORT_MODULE()
 }
 
 - (NSArray<NSString *> *)supportedEvents {
-    return @[@"onStart", @"onPartialResult", @"onResult", @"onError", @"onEnd"];
+    return @[@"onStart", @"onPartialResult", @"onResult", @"onError", @"onEnd", @"onSegmentStart", @"onSegmentEnd"];
 }
 
 + (BOOL)requiresMainQueueSetup {
@@ -2,6 +2,11 @@ export interface VoiceToTextOptions {
   language?: string;
   maxResults?: number;
   partialResults?: boolean;
+  /**
+   * Keep listening across utterances: the recognizer is restarted right
+   * after each result, no-match or silence timeout until stopListening or
+   * cancel. Android only.
+   */
   continuous?: boolean;
   timeout?: number;
 }
@@ -10,6 +15,33 @@ export interface VoiceResult {
   transcript: string;
   confidence?: number;
   isFinal: boolean;
+  /** Segment the result belongs to, in continuous mode. */
+  segment?: number;
+}
+
+export interface VoiceSegmentStart {
+  segment: number;
+  /**
+   * Time from the end of the previous segment until the recognizer was
+   * listening again. Absent for the first segment.
+   */
+  restartGapMs?: number;
+}
+
+export type VoiceSegmentEndReason = 'result' | 'noMatch' | 'timeout';
+
+export interface VoiceSegmentEnd {
+  segment: number;
+  reason: VoiceSegmentEndReason;
+  transcript?: string;
+}
+
+/** Sent with onEnd when a continuous session ends; empty otherwise. */
+export interface VoiceSessionSummary {
+  segments?: number;
+  restarts?: number;
+  meanRestartGapMs?: number;
+  maxRestartGapMs?: number;
 }
 
 export interface VoiceError {
@@ -22,7 +54,9 @@ export type VoiceToTextEvents = {
   onPartialResult: (result: VoiceResult) => void;
   onResult: (result: VoiceResult) => void;
   onError: (error: VoiceError) => void;
-  onEnd: () => void;
+  onEnd: (summary: VoiceSessionSummary) => void;
+  onSegmentStart: (segment: VoiceSegmentStart) => void;
+  onSegmentEnd: (segment: VoiceSegmentEnd) => void;
 };
 
 export enum ErrorCode {